@@ -2,8 +2,12 @@ package com.barbearia;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 
-@SpringBootApplication
+// O R2DBC só é usado pela leitura reativa da disponibilidade, com pool próprio
+// (DisponibilidadeReativaService). Sem este exclude, um ConnectionFactory automático
+// faria o Spring Boot pular o DataSource do JPA.
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class BarbeariaApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,64 @@
+package com.barbearia.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Cache Caffeine cujo carregamento (consulta ao banco) roda fora de qualquer lock.
+ *
+ * Cache.get(chave, loader) executa o loader dentro do compute do ConcurrentHashMap,
+ * segurando o monitor do bucket. Com virtual threads (Java 21) isso prende a thread
+ * ao carrier durante todo o JDBC. Aqui a leitura é getIfPresent, o carregamento acontece
+ * sem lock e o resultado entra com put; duas threads podem carregar a mesma chave ao
+ * mesmo tempo, o que só custa uma consulta a mais.
+ *
+ * Para uma invalidação que acontece durante o carregamento não ser perdida, cada
+ * invalidação incrementa "versao": se ela mudou entre o início da carga e o put,
+ * o valor recém-colocado é descartado.
+ */
+public final class CacheCarregavel<K, V> {
+
+    private final Cache<K, V> cache;
+    private final AtomicLong versao = new AtomicLong();
+
+    public CacheCarregavel(Cache<K, V> cache) {
+        this.cache = cache;
+    }
+
+    public Cache<K, V> cache() {
+        return cache;
+    }
+
+    /**
+     * Valor em cache ou carregado agora. Se o loader devolver null, nada é guardado.
+     */
+    public V obter(K chave, Function<? super K, ? extends V> carregar) {
+
+        V valor = cache.getIfPresent(chave);
+        if (valor != null) return valor;
+
+        long antes = versao.get();
+        valor = carregar.apply(chave);
+        if (valor == null) return null;
+
+        cache.put(chave, valor);
+
+        // put antes de conferir: quem invalidou depois disso já remove o valor sozinho
+        if (versao.get() != antes) cache.invalidate(chave);
+
+        return valor;
+    }
+
+    public void invalidar(K chave) {
+        versao.incrementAndGet();
+        cache.invalidate(chave);
+    }
+
+    public void invalidarSe(Predicate<? super K> condicao) {
+        versao.incrementAndGet();
+        cache.asMap().keySet().removeIf(condicao);
+    }
+}
@@ -27,7 +27,9 @@ public class CorsConfig {
                 .filter(s -> !s.isBlank())
                 .collect(Collectors.toList());
 
-        config.setAllowedOrigins(origins);
+        // ✅ origins com curinga (ex: https://*.vercel.app) viram patterns
+        config.setAllowedOrigins(origins.stream().filter(o -> !o.contains("*")).collect(Collectors.toList()));
+        config.setAllowedOriginPatterns(origins.stream().filter(o -> o.contains("*")).collect(Collectors.toList()));
 
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS"));
         config.setAllowedHeaders(List.of("Authorization", "Content-Type"));
@@ -1,15 +1,18 @@
 package com.barbearia.config;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -22,9 +25,39 @@ import jakarta.servlet.http.HttpServletResponse;
 @Order(Ordered.HIGHEST_PRECEDENCE)
 public class CorsFilterConfig implements Filter {
 
+    // ✅ valores fixos dos headers: nada é montado por request
+    private static final String ALLOW_METHODS = "GET,POST,PUT,DELETE,PATCH,OPTIONS";
+    private static final String ALLOW_HEADERS = "Authorization,Content-Type";
+    private static final String EXPOSE_HEADERS = "Authorization";
+    private static final String MAX_AGE = "3600";
+
     @Value("${cors.allowed-origins}")
     private String allowedOrigins;
 
+    // origins exatas (lookup O(1)) e origins com curinga, ex: https://*.vercel.app
+    private Set<String> origensExatas;
+    private Pattern[] origensPadrao;
+
+    @PostConstruct
+    void init() {
+        Set<String> exatas = new HashSet<>();
+        List<Pattern> padroes = new ArrayList<>();
+
+        for (String origem : allowedOrigins.split(",")) {
+            origem = origem.trim();
+            if (origem.isBlank()) continue;
+
+            if (origem.contains("*")) {
+                padroes.add(compilarPadrao(origem));
+            } else {
+                exatas.add(origem);
+            }
+        }
+
+        origensExatas = Set.copyOf(exatas);
+        origensPadrao = padroes.toArray(new Pattern[0]);
+    }
+
     @Override
     public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
             throws IOException, ServletException {
@@ -32,21 +65,16 @@ public class CorsFilterConfig implements Filter {
         HttpServletRequest request = (HttpServletRequest) req;
         HttpServletResponse response = (HttpServletResponse) res;
 
-        List<String> origins = Arrays.stream(allowedOrigins.split(","))
-                .map(String::trim)
-                .filter(s -> !s.isBlank())
-                .collect(Collectors.toList());
-
         String origin = request.getHeader("Origin");
 
-        if (origin != null && origins.contains(origin)) {
+        if (origin != null && origemPermitida(origin)) {
             response.setHeader("Access-Control-Allow-Origin", origin);
             response.setHeader("Vary", "Origin");
             response.setHeader("Access-Control-Allow-Credentials", "true");
-            response.setHeader("Access-Control-Allow-Methods", "GET,POST,PUT,DELETE,PATCH,OPTIONS");
-            response.setHeader("Access-Control-Allow-Headers", "Authorization,Content-Type");
-            response.setHeader("Access-Control-Expose-Headers", "Authorization");
-            response.setHeader("Access-Control-Max-Age", "3600");
+            response.setHeader("Access-Control-Allow-Methods", ALLOW_METHODS);
+            response.setHeader("Access-Control-Allow-Headers", ALLOW_HEADERS);
+            response.setHeader("Access-Control-Expose-Headers", EXPOSE_HEADERS);
+            response.setHeader("Access-Control-Max-Age", MAX_AGE);
         }
 
         // ✅ Responde preflight na hora
@@ -57,4 +85,25 @@ public class CorsFilterConfig implements Filter {
 
         chain.doFilter(req, res);
     }
+
+    private boolean origemPermitida(String origin) {
+        if (origensExatas.contains(origin)) return true;
+
+        for (Pattern padrao : origensPadrao) {
+            if (padrao.matcher(origin).matches()) return true;
+        }
+        return false;
+    }
+
+    // "https://*.vercel.app" -> ^\Qhttps://\E[^/]*\Q.vercel.app\E$  (curinga não atravessa "/")
+    private static Pattern compilarPadrao(String origem) {
+        StringBuilder regex = new StringBuilder();
+        String[] partes = origem.split("\\*", -1);
+
+        for (int i = 0; i < partes.length; i++) {
+            if (i > 0) regex.append("[^/]*");
+            if (!partes[i].isEmpty()) regex.append(Pattern.quote(partes[i]));
+        }
+        return Pattern.compile(regex.toString());
+    }
 }
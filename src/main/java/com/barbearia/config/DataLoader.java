@@ -1,25 +1,81 @@
 package com.barbearia.config;
 
+import com.barbearia.model.Agendamento;
+import com.barbearia.model.EventoOutbox;
 import com.barbearia.model.Usuario;
+import com.barbearia.repository.AgendamentoRepository;
+import com.barbearia.repository.PagamentoDiarioRepository;
+import com.barbearia.repository.PagamentoRepository;
 import com.barbearia.repository.UsuarioRepository;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Component
 public class DataLoader implements CommandLineRunner {
 
+    // maior id de cada tabela com sequência (mesmos nomes/allocationSize dos @SequenceGenerator)
+    private static final String MAIOR_ID_POR_SEQUENCIA = """
+            select 'usuarios_seq', coalesce(max(id), 0) from usuarios
+            union all select 'clientes_seq', coalesce(max(id), 0) from clientes
+            union all select 'barbeiros_seq', coalesce(max(id), 0) from barbeiros
+            union all select 'servicos_seq', coalesce(max(id), 0) from servicos
+            union all select 'agendamentos_seq', coalesce(max(id), 0) from agendamentos
+            union all select 'pagamentos_seq', coalesce(max(id), 0) from pagamentos
+            """;
+    private static final int ALOCACAO_SEQUENCIA = 50;
+
+    // check constraints de colunas de enum, lidos de forma portável (PostgreSQL e H2)
+    private static final String CHECKS_DA_TABELA = """
+            select tc.constraint_name, cc.check_clause
+            from information_schema.table_constraints tc
+            join information_schema.check_constraints cc
+              on cc.constraint_schema = tc.constraint_schema
+             and cc.constraint_name = tc.constraint_name
+            where lower(tc.table_name) = ?
+              and tc.constraint_type = 'CHECK'
+            """;
+
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AgendamentoRepository agendamentoRepository;
+    private final PagamentoRepository pagamentoRepository;
+    private final PagamentoDiarioRepository pagamentoDiarioRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
 
-    public DataLoader(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder) {
+    public DataLoader(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder,
+                      AgendamentoRepository agendamentoRepository,
+                      PagamentoRepository pagamentoRepository,
+                      PagamentoDiarioRepository pagamentoDiarioRepository,
+                      TransactionTemplate transactionTemplate,
+                      JdbcTemplate jdbcTemplate) {
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
+        this.agendamentoRepository = agendamentoRepository;
+        this.pagamentoRepository = pagamentoRepository;
+        this.pagamentoDiarioRepository = pagamentoDiarioRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Override
     public void run(String... args) {
 
+        // antes de qualquer insert: ids agora vêm de sequências
+        jdbcTemplate.query(MAIOR_ID_POR_SEQUENCIA, (rs, i) -> new Object[]{rs.getString(1), rs.getLong(2)})
+                .forEach(linha -> ajustarSequencia((String) linha[0], (Long) linha[1], ALOCACAO_SEQUENCIA));
+
+        // antes dos alarmes de falta e do relay: NAO_COMPARECEU precisa passar no check
+        recriarCheckDeEnum("agendamentos", "status", Agendamento.StatusAgendamento.class);
+        recriarCheckDeEnum("eventos_outbox", "tipo", EventoOutbox.TipoEvento.class);
+
         String email = "admin@admin.com";
         String senha = "123456";
 
@@ -41,5 +97,76 @@ public class DataLoader implements CommandLineRunner {
 
             System.out.println("✅ Admin criado: " + email + " / " + senha + " (ROLE_ADMIN)");
         });
+
+        preencherDataHoraFim();
+        preencherPagamentosDiarios();
+    }
+
+    // ✅ Em produção (ddl-auto=update, sem Flyway) a coluna data_hora_fim nasce vazia:
+    // preenche uma vez a partir da duração do serviço (equivalente ao backfill do V3)
+    private void preencherDataHoraFim() {
+        List<Agendamento> pendentes = agendamentoRepository.findSemDataHoraFim();
+        if (pendentes.isEmpty()) return;
+
+        pendentes.forEach(a -> a.setDataHoraFim(a.getDataHoraFim()));
+        agendamentoRepository.saveAll(pendentes);
+
+        System.out.println("✅ data_hora_fim preenchido em " + pendentes.size() + " agendamento(s)");
+    }
+
+    // ✅ Mesmo caso: pagamentos_diarios nasce vazia em produção (equivalente ao backfill do V6)
+    private void preencherPagamentosDiarios() {
+        if (pagamentoDiarioRepository.count() > 0 || pagamentoRepository.count() == 0) return;
+
+        Integer linhas = transactionTemplate.execute(status -> pagamentoDiarioRepository.reconstruir());
+
+        System.out.println("✅ pagamentos_diarios reconstruído: " + linhas + " linha(s)");
+    }
+
+    // ✅ O ddl-auto=update não refaz o check constraint de um enum (status in (...)) numa tabela
+    // que já existe: valores novos como NAO_COMPARECEU seriam recusados. Se o check atual não
+    // aceita todos os valores do enum, troca por <tabela>_<coluna>_check com a lista completa
+    // (equivalente ao V10). Check que já aceita todos, ou coluna sem check, fica como está.
+    void recriarCheckDeEnum(String tabela, String coluna, Class<? extends Enum<?>> tipo) {
+        List<String> valores = Arrays.stream(tipo.getEnumConstants()).map(Enum::name).toList();
+
+        List<String> desatualizados = jdbcTemplate.query(CHECKS_DA_TABELA,
+                        (rs, i) -> new String[]{rs.getString(1), rs.getString(2)}, tabela).stream()
+                .filter(check -> valores.stream().anyMatch(v -> check[1].contains("'" + v + "'")))
+                .filter(check -> !valores.stream().allMatch(v -> check[1].contains("'" + v + "'")))
+                .map(check -> check[0])
+                .toList();
+        if (desatualizados.isEmpty()) return;
+
+        String nome = tabela + "_" + coluna + "_check";
+        String lista = valores.stream().map(v -> "'" + v + "'").collect(Collectors.joining(","));
+
+        for (String check : desatualizados) {
+            jdbcTemplate.execute("alter table " + tabela + " drop constraint \"" + check + "\"");
+        }
+        jdbcTemplate.execute("alter table " + tabela + " add constraint " + nome
+                + " check (" + coluna + " in (" + lista + "))");
+
+        System.out.println("✅ " + nome + " recriado: " + lista);
+    }
+
+    // ✅ Em produção a sequência é criada vazia pelo ddl-auto, mas a tabela já tem ids do
+    // BIGSERIAL antigo: avança a sequência para depois do maior id (equivalente ao V7/V8).
+    // O Hibernate (otimizador pooled) usa os ids (valor - alocacao, valor], por isso a folga.
+    // Lê o last_value (pg_sequences) em vez de chamar nextval: o boot não gasta um bloco de ids.
+    private void ajustarSequencia(String sequencia, long maiorId, int alocacao) {
+        if (maiorId == 0) return; // tabela vazia: a sequência nova já serve
+
+        List<Long> ultimo = jdbcTemplate.queryForList(
+                "select last_value from pg_sequences where schemaname = current_schema() and sequencename = ?",
+                Long.class, sequencia);
+
+        // last_value nulo: a sequência ainda não entregou nenhum valor
+        if (!ultimo.isEmpty() && ultimo.get(0) != null && ultimo.get(0) >= maiorId) return;
+
+        long reinicio = maiorId + alocacao + 1;
+        jdbcTemplate.queryForObject("select setval(cast(? as regclass), ?, false)", Long.class, sequencia, reinicio);
+
+        System.out.println("✅ " + sequencia + " ajustada para " + reinicio);
     }
-}
\ No newline at end of file
+}
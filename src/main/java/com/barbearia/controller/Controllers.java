@@ -1,22 +1,24 @@
 package com.barbearia.controller;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.barbearia.dto.DTOs.AgendamentoRecorrenteRequest;
 import com.barbearia.dto.DTOs.AgendamentoRequest;
 import com.barbearia.dto.DTOs.AgendamentoResponse;
 import com.barbearia.dto.DTOs.AgendamentoUpdateRequest;
@@ -27,10 +29,15 @@ import com.barbearia.dto.DTOs.LoginRequest;
 import com.barbearia.dto.DTOs.LoginResponse;
 import com.barbearia.dto.DTOs.PagamentoRequest;
 import com.barbearia.dto.DTOs.PagamentoResponse;
+import com.barbearia.dto.DTOs.PaginaAgendamentosResponse;
+import com.barbearia.dto.DTOs.ProximosHorariosResponse;
+import com.barbearia.dto.DTOs.RelatorioAnaliticoResponse;
 import com.barbearia.dto.DTOs.RelatorioFinanceiroResponse;
 import com.barbearia.dto.DTOs.RegisterRequest;
 import com.barbearia.dto.DTOs.RegisterResponse;
 import com.barbearia.dto.DTOs.DisponibilidadeResponse;
+import com.barbearia.dto.DTOs.GradeDisponibilidadeResponse;
+import com.barbearia.dto.DTOs.HeatmapOcupacaoResponse;
 
 import com.barbearia.model.Barbeiro;
 import com.barbearia.model.Cliente;
@@ -43,13 +50,25 @@ import com.barbearia.repository.ServicoRepository;
 import com.barbearia.repository.UsuarioRepository;
 
 import com.barbearia.security.JwtUtil;
+import com.barbearia.security.RevogacaoTokenService;
+import com.barbearia.security.UsuarioAutenticado;
 import com.barbearia.service.AgendamentoService;
 import com.barbearia.service.ClienteService;
+import com.barbearia.service.ExportacaoService;
+import com.barbearia.service.ExportacaoService.FormatoExportacao;
+import com.barbearia.service.DisponibilidadeEventos;
+import com.barbearia.service.DisponibilidadeReativaService;
+import com.barbearia.service.ImportacaoService;
+import com.barbearia.service.ImportacaoService.FormatoImportacao;
 import com.barbearia.service.PagamentoService;
+import com.barbearia.service.RelatorioAnaliticoService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import reactor.core.publisher.Mono;
 
 // =================================================================
 // AUTH CONTROLLER (SEM LOMBOK)
@@ -61,7 +80,6 @@ import jakarta.validation.Valid;
 class AuthController {
 
     private final AuthenticationManager authenticationManager;
-    private final UserDetailsService userDetailsService;
     private final JwtUtil jwtUtil;
     private final UsuarioRepository usuarioRepository;
     private final ClienteRepository clienteRepository;
@@ -69,14 +87,12 @@ class AuthController {
 
     public AuthController(
             AuthenticationManager authenticationManager,
-            UserDetailsService userDetailsService,
             JwtUtil jwtUtil,
             UsuarioRepository usuarioRepository,
             ClienteRepository clienteRepository,
             PasswordEncoder passwordEncoder
     ) {
         this.authenticationManager = authenticationManager;
-        this.userDetailsService = userDetailsService;
         this.jwtUtil = jwtUtil;
         this.usuarioRepository = usuarioRepository;
         this.clienteRepository = clienteRepository;
@@ -92,9 +108,6 @@ class AuthController {
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getSenha())
         );
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(request.getEmail());
-        String token = jwtUtil.gerarToken(userDetails);
-
         Usuario usuario = usuarioRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
 
@@ -102,23 +115,24 @@ class AuthController {
         String role = (usuario.getRole() == null) ? "" : usuario.getRole().trim();
         role = role.replace("ROLE_", ""); // "CLIENTE", "ADMIN", "BARBEIRO"
 
-        LoginResponse response = new LoginResponse();
-        response.setToken(token);
-        response.setEmail(usuario.getEmail());
-        response.setNome(usuario.getNome());
-        response.setRole(role);
-
         // ✅ clienteId só pra CLIENTE (usando usuarioId, que é o relacionamento correto)
+        Long clienteId = null;
         if ("CLIENTE".equalsIgnoreCase(role)) {
-            Long usuarioId = usuario.getId();
-
-            Long clienteId = clienteRepository.findByUsuarioId(usuarioId)
+            clienteId = clienteRepository.findByUsuarioId(usuario.getId())
                     .map(Cliente::getId)
                     .orElse(null);
-
-            response.setClienteId(clienteId);
         }
 
+        // ✅ role/ids vão no token: o filtro não precisa mais buscar o usuário a cada request
+        String token = jwtUtil.gerarToken(usuario, clienteId);
+
+        LoginResponse response = new LoginResponse();
+        response.setToken(token);
+        response.setEmail(usuario.getEmail());
+        response.setNome(usuario.getNome());
+        response.setRole(role);
+        response.setClienteId(clienteId);
+
         return ResponseEntity.ok(response);
     }
 
@@ -172,9 +186,11 @@ class AuthController {
 class ClienteController {
 
     private final ClienteService clienteService;
+    private final ImportacaoService importacaoService;
 
-    public ClienteController(ClienteService clienteService) {
+    public ClienteController(ClienteService clienteService, ImportacaoService importacaoService) {
         this.clienteService = clienteService;
+        this.importacaoService = importacaoService;
     }
 
     @PostMapping
@@ -183,6 +199,18 @@ class ClienteController {
         return ResponseEntity.status(HttpStatus.CREATED).body(clienteService.criar(request));
     }
 
+    @PostMapping("/importar")
+    @Operation(summary = "Importa clientes em massa (corpo em formato=csv|ndjson). "
+            + "Responde em NDJSON com o progresso por lote e o resumo com as linhas recusadas.")
+    public void importar(@RequestParam(defaultValue = "ndjson") String formato,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+
+        FormatoImportacao f = FormatoImportacao.de(formato);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        importacaoService.importarClientes(f, request.getInputStream(), response.getOutputStream());
+    }
+
     @GetMapping
     @Operation(summary = "Lista todos os clientes")
     public ResponseEntity<List<Cliente>> listar() {
@@ -323,17 +351,20 @@ class BarbeiroController {
     private final ServicoRepository servicoRepository;
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
+    private final RevogacaoTokenService revogacaoTokenService;
 
     public BarbeiroController(
             BarbeiroRepository barbeiroRepository,
             ServicoRepository servicoRepository,
             UsuarioRepository usuarioRepository,
-            PasswordEncoder passwordEncoder
+            PasswordEncoder passwordEncoder,
+            RevogacaoTokenService revogacaoTokenService
     ) {
         this.barbeiroRepository = barbeiroRepository;
         this.servicoRepository = servicoRepository;
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
+        this.revogacaoTokenService = revogacaoTokenService;
     }
 
     @PostMapping
@@ -456,6 +487,11 @@ class BarbeiroController {
         b.setAtivo(false);
         barbeiroRepository.save(b);
 
+        // ✅ barbeiro desativado perde o acesso (tokens já emitidos deixam de valer)
+        if (b.getUsuario() != null) {
+            revogacaoTokenService.revogar(b.getUsuario());
+        }
+
         return ResponseEntity.noContent().build();
     }
 
@@ -488,10 +524,21 @@ class AgendamentoController {
 
     private final AgendamentoService agendamentoService;
     private final ClienteRepository clienteRepository;
-
-    public AgendamentoController(AgendamentoService agendamentoService, ClienteRepository clienteRepository) {
+    private final ExportacaoService exportacaoService;
+    private final ImportacaoService importacaoService;
+    private final DisponibilidadeReativaService disponibilidadeReativaService;
+    private final DisponibilidadeEventos disponibilidadeEventos;
+
+    public AgendamentoController(AgendamentoService agendamentoService, ClienteRepository clienteRepository,
+                                 ExportacaoService exportacaoService, ImportacaoService importacaoService,
+                                 DisponibilidadeReativaService disponibilidadeReativaService,
+                                 DisponibilidadeEventos disponibilidadeEventos) {
         this.agendamentoService = agendamentoService;
         this.clienteRepository = clienteRepository;
+        this.exportacaoService = exportacaoService;
+        this.importacaoService = importacaoService;
+        this.disponibilidadeReativaService = disponibilidadeReativaService;
+        this.disponibilidadeEventos = disponibilidadeEventos;
     }
 
     private boolean temRole(String role) {
@@ -504,11 +551,17 @@ class AgendamentoController {
         return (auth != null) ? auth.getName() : null;
     }
 
-    private Cliente clienteDoUsuarioLogado() {
+    private Long clienteIdDoUsuarioLogado() {
+        // ✅ token novo já traz o clienteId
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof UsuarioAutenticado u && u.clienteId() != null) {
+            return u.clienteId();
+        }
+
         String email = emailLogado();
         if (email == null) return null;
 
-        return clienteRepository.findByEmail(email).orElse(null);
+        return clienteRepository.findByEmail(email).map(Cliente::getId).orElse(null);
     }
 
     @PostMapping
@@ -516,21 +569,71 @@ class AgendamentoController {
     public ResponseEntity<?> criar(@Valid @RequestBody AgendamentoRequest request) {
 
         if (temRole("ROLE_CLIENTE")) {
-            Cliente cliente = clienteDoUsuarioLogado();
-            if (cliente == null) {
+            Long clienteId = clienteIdDoUsuarioLogado();
+            if (clienteId == null) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body("Conta de cliente não encontrada para o usuário logado.");
             }
-            request.setClienteId(cliente.getId());
+            request.setClienteId(clienteId);
         }
 
         return ResponseEntity.status(HttpStatus.CREATED).body(agendamentoService.criar(request));
     }
 
+    @PostMapping("/recorrentes")
+    @Operation(summary = "Cria vários agendamentos de uma vez (lista de datas ou recorrência), "
+            + "com o resultado de cada ocorrência")
+    public ResponseEntity<?> criarRecorrentes(@Valid @RequestBody AgendamentoRecorrenteRequest request) {
+
+        if (temRole("ROLE_CLIENTE")) {
+            Long clienteId = clienteIdDoUsuarioLogado();
+            if (clienteId == null) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body("Conta de cliente não encontrada para o usuário logado.");
+            }
+            request.setClienteId(clienteId);
+        }
+
+        return ResponseEntity.ok(agendamentoService.criarRecorrentes(request));
+    }
+
     @GetMapping
-    @Operation(summary = "Lista todos os agendamentos")
-    public ResponseEntity<List<AgendamentoResponse>> listarTodos() {
-        return ResponseEntity.ok(agendamentoService.listarTodos());
+    @Operation(summary = "Lista agendamentos paginados (mais recentes primeiro), com filtros opcionais. "
+            + "Para a próxima página, envie o proximoCursor recebido.")
+    public ResponseEntity<PaginaAgendamentosResponse> listarTodos(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long barbeiroId,
+            @RequestParam(required = false) Long clienteId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite
+    ) {
+        return ResponseEntity.ok(agendamentoService.listarPagina(
+                status, barbeiroId, clienteId, dataInicio, dataFim, cursor, limite));
+    }
+
+    @GetMapping("/exportar")
+    @Operation(summary = "Exporta todo o histórico de agendamentos em streaming (formato=ndjson|csv)")
+    public void exportar(@RequestParam(defaultValue = "ndjson") String formato,
+                         HttpServletResponse response) throws IOException {
+
+        FormatoExportacao f = FormatoExportacao.de(formato);
+        response.setContentType(f.getContentType());
+        response.setHeader("Content-Disposition", "attachment; filename=\"agendamentos." + f.getExtensao() + "\"");
+        exportacaoService.exportarAgendamentos(f, response.getOutputStream());
+    }
+
+    @PostMapping("/importar")
+    @Operation(summary = "Importa agendamentos históricos em massa (corpo em formato=csv|ndjson). "
+            + "Responde em NDJSON com o progresso por lote e o resumo com as linhas recusadas.")
+    public void importar(@RequestParam(defaultValue = "ndjson") String formato,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+
+        FormatoImportacao f = FormatoImportacao.de(formato);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        importacaoService.importarAgendamentos(f, request.getInputStream(), response.getOutputStream());
     }
 
     @GetMapping("/cliente/{clienteId}")
@@ -538,12 +641,12 @@ class AgendamentoController {
     public ResponseEntity<?> listarPorCliente(@PathVariable Long clienteId) {
 
         if (temRole("ROLE_CLIENTE")) {
-            Cliente cliente = clienteDoUsuarioLogado();
-            if (cliente == null) {
+            Long clienteLogadoId = clienteIdDoUsuarioLogado();
+            if (clienteLogadoId == null) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body("Conta de cliente não encontrada para o usuário logado.");
             }
-            if (!cliente.getId().equals(clienteId)) {
+            if (!clienteLogadoId.equals(clienteId)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body("Você só pode ver seus próprios agendamentos.");
             }
@@ -573,12 +676,65 @@ class AgendamentoController {
     }
 
     @GetMapping("/disponibilidade")
-    @Operation(summary = "Retorna horários ocupados do barbeiro em um dia (sem dados sensíveis)")
+    @Operation(summary = "Retorna horários ocupados e livres do barbeiro em um dia (sem dados sensíveis)")
     public ResponseEntity<DisponibilidadeResponse> disponibilidade(
+            @RequestParam Long barbeiroId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data,
+            @RequestParam(required = false) Long servicoId,
+            @RequestParam(required = false) Integer granularidade
+    ) {
+        return ResponseEntity.ok(agendamentoService.getDisponibilidade(barbeiroId, data, servicoId, granularidade));
+    }
+
+    @GetMapping("/disponibilidade/reativa")
+    @Operation(summary = "Mesmo retorno de /disponibilidade, lido via R2DBC sem segurar thread do servidor "
+            + "(indicado para o polling da tela de agendamento)")
+    public Mono<DisponibilidadeResponse> disponibilidadeReativa(
+            @RequestParam Long barbeiroId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data,
+            @RequestParam(required = false) Long servicoId,
+            @RequestParam(required = false) Integer granularidade
+    ) {
+        return disponibilidadeReativaService.getDisponibilidade(barbeiroId, data, servicoId, granularidade);
+    }
+
+    @GetMapping(value = "/disponibilidade/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream SSE com os horários ocupados/liberados do barbeiro no dia "
+            + "(evento recarregar = buscar /disponibilidade de novo)")
+    public SseEmitter disponibilidadeEventos(
             @RequestParam Long barbeiroId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data
     ) {
-        return ResponseEntity.ok(agendamentoService.getDisponibilidade(barbeiroId, data));
+        return disponibilidadeEventos.assinar(barbeiroId, data);
+    }
+
+    @GetMapping("/disponibilidade/grade")
+    @Operation(summary = "Grade de horários ocupados por barbeiro e dia em um período (máscara de slots por dia)")
+    public ResponseEntity<GradeDisponibilidadeResponse> gradeDisponibilidade(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim,
+            @RequestParam(required = false) List<Long> barbeiroIds
+    ) {
+        return ResponseEntity.ok(agendamentoService.getGradeDisponibilidade(dataInicio, dataFim, barbeiroIds));
+    }
+
+    @GetMapping("/disponibilidade/proximos")
+    @Operation(summary = "Próximos horários livres para um serviço, entre todos os barbeiros que o fazem")
+    public ResponseEntity<ProximosHorariosResponse> proximosHorarios(
+            @RequestParam Long servicoId,
+            @RequestParam(required = false) Integer limite
+    ) {
+        return ResponseEntity.ok(agendamentoService.buscarProximosHorarios(servicoId, limite));
+    }
+
+    @GetMapping("/ocupacao/heatmap")
+    @Operation(summary = "Ocupação (%) por barbeiro, dia da semana e slot em um período (até 1 ano)")
+    public ResponseEntity<HeatmapOcupacaoResponse> heatmapOcupacao(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim,
+            @RequestParam(required = false) List<Long> barbeiroIds
+    ) {
+        return ResponseEntity.ok(agendamentoService.getHeatmapOcupacao(dataInicio, dataFim, barbeiroIds));
     }
 }
 
@@ -592,9 +748,14 @@ class AgendamentoController {
 class PagamentoController {
 
     private final PagamentoService pagamentoService;
+    private final ExportacaoService exportacaoService;
+    private final RelatorioAnaliticoService relatorioAnaliticoService;
 
-    public PagamentoController(PagamentoService pagamentoService) {
+    public PagamentoController(PagamentoService pagamentoService, ExportacaoService exportacaoService,
+                               RelatorioAnaliticoService relatorioAnaliticoService) {
         this.pagamentoService = pagamentoService;
+        this.exportacaoService = exportacaoService;
+        this.relatorioAnaliticoService = relatorioAnaliticoService;
     }
 
     @PostMapping
@@ -613,4 +774,26 @@ class PagamentoController {
         LocalDate fim = LocalDate.parse(dataFim);
         return ResponseEntity.ok(pagamentoService.relatorio(ini, fim));
     }
+
+    @GetMapping("/relatorio/analitico")
+    @Operation(summary = "Receita, ticket médio, cancelamento, não comparecimento e ocupação por barbeiro, serviço e forma de pagamento")
+    public ResponseEntity<RelatorioAnaliticoResponse> relatorioAnalitico(
+            @RequestParam("dataInicio") String dataInicio,
+            @RequestParam("dataFim") String dataFim
+    ) {
+        LocalDate ini = LocalDate.parse(dataInicio);
+        LocalDate fim = LocalDate.parse(dataFim);
+        return ResponseEntity.ok(relatorioAnaliticoService.gerar(ini, fim));
+    }
+
+    @GetMapping("/exportar")
+    @Operation(summary = "Exporta todos os pagamentos em streaming (formato=ndjson|csv)")
+    public void exportar(@RequestParam(defaultValue = "ndjson") String formato,
+                         HttpServletResponse response) throws IOException {
+
+        FormatoExportacao f = FormatoExportacao.de(formato);
+        response.setContentType(f.getContentType());
+        response.setHeader("Content-Disposition", "attachment; filename=\"pagamentos." + f.getExtensao() + "\"");
+        exportacaoService.exportarPagamentos(f, response.getOutputStream());
+    }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -273,6 +274,94 @@ public class DTOs {
         public void setObservacao(String observacao) { this.observacao = observacao; }
     }
 
+    // Agendamento em lote: ou a lista datasHoras, ou a recorrência
+    // (primeiraDataHora + intervaloDias + ocorrencias/dataFim)
+    public static class AgendamentoRecorrenteRequest {
+
+        private Long clienteId;
+
+        @NotNull
+        private Long barbeiroId;
+
+        @NotNull
+        private Long servicoId;
+
+        private List<LocalDateTime> datasHoras;
+
+        private LocalDateTime primeiraDataHora;
+        private Integer intervaloDias;
+        private Integer ocorrencias;
+        private LocalDate dataFim;
+
+        private String observacao;
+
+        public AgendamentoRecorrenteRequest() {}
+
+        public Long getClienteId() { return clienteId; }
+        public Long getBarbeiroId() { return barbeiroId; }
+        public Long getServicoId() { return servicoId; }
+        public List<LocalDateTime> getDatasHoras() { return datasHoras; }
+        public LocalDateTime getPrimeiraDataHora() { return primeiraDataHora; }
+        public Integer getIntervaloDias() { return intervaloDias; }
+        public Integer getOcorrencias() { return ocorrencias; }
+        public LocalDate getDataFim() { return dataFim; }
+        public String getObservacao() { return observacao; }
+
+        public void setClienteId(Long clienteId) { this.clienteId = clienteId; }
+        public void setBarbeiroId(Long barbeiroId) { this.barbeiroId = barbeiroId; }
+        public void setServicoId(Long servicoId) { this.servicoId = servicoId; }
+        public void setDatasHoras(List<LocalDateTime> datasHoras) { this.datasHoras = datasHoras; }
+        public void setPrimeiraDataHora(LocalDateTime primeiraDataHora) { this.primeiraDataHora = primeiraDataHora; }
+        public void setIntervaloDias(Integer intervaloDias) { this.intervaloDias = intervaloDias; }
+        public void setOcorrencias(Integer ocorrencias) { this.ocorrencias = ocorrencias; }
+        public void setDataFim(LocalDate dataFim) { this.dataFim = dataFim; }
+        public void setObservacao(String observacao) { this.observacao = observacao; }
+    }
+
+    public static class AgendamentoLoteResponse {
+
+        private Integer criados;
+        private Integer recusados;
+        private List<OcorrenciaAgendamento> ocorrencias;
+
+        public AgendamentoLoteResponse() {}
+
+        public Integer getCriados() { return criados; }
+        public Integer getRecusados() { return recusados; }
+        public List<OcorrenciaAgendamento> getOcorrencias() { return ocorrencias; }
+
+        public void setCriados(Integer criados) { this.criados = criados; }
+        public void setRecusados(Integer recusados) { this.recusados = recusados; }
+        public void setOcorrencias(List<OcorrenciaAgendamento> ocorrencias) { this.ocorrencias = ocorrencias; }
+    }
+
+    // resultado: CRIADO, CONFLITO, FORA_EXPEDIENTE ou DATA_PASSADA
+    public static class OcorrenciaAgendamento {
+
+        private LocalDateTime dataHora;
+        private String resultado;
+        private Long agendamentoId;
+        private String mensagem;
+
+        public OcorrenciaAgendamento() {}
+
+        public OcorrenciaAgendamento(LocalDateTime dataHora, String resultado, String mensagem) {
+            this.dataHora = dataHora;
+            this.resultado = resultado;
+            this.mensagem = mensagem;
+        }
+
+        public LocalDateTime getDataHora() { return dataHora; }
+        public String getResultado() { return resultado; }
+        public Long getAgendamentoId() { return agendamentoId; }
+        public String getMensagem() { return mensagem; }
+
+        public void setDataHora(LocalDateTime dataHora) { this.dataHora = dataHora; }
+        public void setResultado(String resultado) { this.resultado = resultado; }
+        public void setAgendamentoId(Long agendamentoId) { this.agendamentoId = agendamentoId; }
+        public void setMensagem(String mensagem) { this.mensagem = mensagem; }
+    }
+
     public static class AgendamentoUpdateRequest {
 
         private LocalDateTime dataHora;
@@ -317,6 +406,28 @@ public class DTOs {
 
         public AgendamentoResponse() {}
 
+        // usado pelas consultas de projeção (select new ...) do AgendamentoRepository
+        public AgendamentoResponse(Long id,
+                                   Long clienteId, String clienteNome,
+                                   Long barbeiroId, String barbeiroNome,
+                                   Long servicoId, String servicoNome,
+                                   Double preco,
+                                   LocalDateTime dataHora, LocalDateTime dataHoraFim,
+                                   Enum<?> status, String observacao) {
+            this.id = id;
+            this.clienteId = clienteId;
+            this.clienteNome = clienteNome;
+            this.barbeiroId = barbeiroId;
+            this.barbeiroNome = barbeiroNome;
+            this.servicoId = servicoId;
+            this.servicoNome = servicoNome;
+            this.preco = preco;
+            this.dataHora = dataHora;
+            this.dataHoraFim = dataHoraFim;
+            this.status = status != null ? status.name() : null;
+            this.observacao = observacao;
+        }
+
         public Long getId() { return id; }
 
         public Long getClienteId() { return clienteId; }
@@ -361,6 +472,21 @@ public class DTOs {
         public void setNomeServico(String nomeServico) { this.servicoNome = nomeServico; }
     }
 
+    // Página de agendamentos (keyset): proximoCursor vem null quando não há mais itens
+    public static class PaginaAgendamentosResponse {
+
+        private List<AgendamentoResponse> itens;
+        private String proximoCursor;
+
+        public PaginaAgendamentosResponse() {}
+
+        public List<AgendamentoResponse> getItens() { return itens; }
+        public String getProximoCursor() { return proximoCursor; }
+
+        public void setItens(List<AgendamentoResponse> itens) { this.itens = itens; }
+        public void setProximoCursor(String proximoCursor) { this.proximoCursor = proximoCursor; }
+    }
+
     public static class HorariosDisponiveisResponse {
 
         private Long barbeiroId;
@@ -393,8 +519,12 @@ public class DTOs {
         private LocalTime horaEntrada;
         private LocalTime horaSaida;
 
+        // blocos de duracaoMin minutos com alguma parte ocupada
         private List<String> ocupados;
 
+        // inícios onde o serviço (ou um bloco de duracaoMin) cabe inteiro
+        private List<String> livres;
+
         public DisponibilidadeResponse() {}
 
         public Long getBarbeiroId() { return barbeiroId; }
@@ -403,6 +533,7 @@ public class DTOs {
         public LocalTime getHoraEntrada() { return horaEntrada; }
         public LocalTime getHoraSaida() { return horaSaida; }
         public List<String> getOcupados() { return ocupados; }
+        public List<String> getLivres() { return livres; }
 
         public void setBarbeiroId(Long barbeiroId) { this.barbeiroId = barbeiroId; }
         public void setData(LocalDate data) { this.data = data; }
@@ -410,6 +541,205 @@ public class DTOs {
         public void setHoraEntrada(LocalTime horaEntrada) { this.horaEntrada = horaEntrada; }
         public void setHoraSaida(LocalTime horaSaida) { this.horaSaida = horaSaida; }
         public void setOcupados(List<String> ocupados) { this.ocupados = ocupados; }
+        public void setLivres(List<String> livres) { this.livres = livres; }
+    }
+
+    // Evento SSE de /agendamentos/disponibilidade/eventos (um por agendamento alterado).
+    // tipo: OCUPADO ou LIBERADO (com inicio/fim "HH:mm"), ou RECARREGAR (buscar
+    // /agendamentos/disponibilidade de novo: conexão nova, eventos perdidos ou importação).
+    public static class SlotAlterado {
+
+        private Long barbeiroId;
+        private LocalDate data;
+        private String tipo;
+        private String inicio;
+        private String fim;
+        private Long agendamentoId;
+
+        public SlotAlterado() {}
+
+        public SlotAlterado(Long barbeiroId, LocalDate data, String tipo,
+                            String inicio, String fim, Long agendamentoId) {
+            this.barbeiroId = barbeiroId;
+            this.data = data;
+            this.tipo = tipo;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.agendamentoId = agendamentoId;
+        }
+
+        public Long getBarbeiroId() { return barbeiroId; }
+        public LocalDate getData() { return data; }
+        public String getTipo() { return tipo; }
+        public String getInicio() { return inicio; }
+        public String getFim() { return fim; }
+        public Long getAgendamentoId() { return agendamentoId; }
+
+        public void setBarbeiroId(Long barbeiroId) { this.barbeiroId = barbeiroId; }
+        public void setData(LocalDate data) { this.data = data; }
+        public void setTipo(String tipo) { this.tipo = tipo; }
+        public void setInicio(String inicio) { this.inicio = inicio; }
+        public void setFim(String fim) { this.fim = fim; }
+        public void setAgendamentoId(Long agendamentoId) { this.agendamentoId = agendamentoId; }
+    }
+
+    // Grade de disponibilidade (vários dias x vários barbeiros).
+    // Cada dia é uma máscara de bits: bit i = slot que começa em i * duracaoMin após 00:00 está ocupado.
+    public static class GradeDisponibilidadeResponse {
+
+        private LocalDate dataInicio;
+        private LocalDate dataFim;
+        private Integer duracaoMin;
+        private List<GradeBarbeiro> barbeiros;
+
+        public GradeDisponibilidadeResponse() {}
+
+        public LocalDate getDataInicio() { return dataInicio; }
+        public LocalDate getDataFim() { return dataFim; }
+        public Integer getDuracaoMin() { return duracaoMin; }
+        public List<GradeBarbeiro> getBarbeiros() { return barbeiros; }
+
+        public void setDataInicio(LocalDate dataInicio) { this.dataInicio = dataInicio; }
+        public void setDataFim(LocalDate dataFim) { this.dataFim = dataFim; }
+        public void setDuracaoMin(Integer duracaoMin) { this.duracaoMin = duracaoMin; }
+        public void setBarbeiros(List<GradeBarbeiro> barbeiros) { this.barbeiros = barbeiros; }
+    }
+
+    public static class GradeBarbeiro {
+
+        private Long barbeiroId;
+        private LocalTime horaEntrada;
+        private LocalTime horaSaida;
+
+        // uma máscara por dia, de dataInicio até dataFim
+        private long[] ocupados;
+
+        public GradeBarbeiro() {}
+
+        public Long getBarbeiroId() { return barbeiroId; }
+        public LocalTime getHoraEntrada() { return horaEntrada; }
+        public LocalTime getHoraSaida() { return horaSaida; }
+        public long[] getOcupados() { return ocupados; }
+
+        public void setBarbeiroId(Long barbeiroId) { this.barbeiroId = barbeiroId; }
+        public void setHoraEntrada(LocalTime horaEntrada) { this.horaEntrada = horaEntrada; }
+        public void setHoraSaida(LocalTime horaSaida) { this.horaSaida = horaSaida; }
+        public void setOcupados(long[] ocupados) { this.ocupados = ocupados; }
+    }
+
+    public static class ProximosHorariosResponse {
+
+        private Long servicoId;
+        private String servicoNome;
+        private Integer duracaoMinutos;
+        private List<HorarioDisponivel> horarios;
+
+        public ProximosHorariosResponse() {}
+
+        public Long getServicoId() { return servicoId; }
+        public String getServicoNome() { return servicoNome; }
+        public Integer getDuracaoMinutos() { return duracaoMinutos; }
+        public List<HorarioDisponivel> getHorarios() { return horarios; }
+
+        public void setServicoId(Long servicoId) { this.servicoId = servicoId; }
+        public void setServicoNome(String servicoNome) { this.servicoNome = servicoNome; }
+        public void setDuracaoMinutos(Integer duracaoMinutos) { this.duracaoMinutos = duracaoMinutos; }
+        public void setHorarios(List<HorarioDisponivel> horarios) { this.horarios = horarios; }
+    }
+
+    public static class HorarioDisponivel {
+
+        private Long barbeiroId;
+        private String barbeiroNome;
+        private LocalDateTime inicio;
+        private LocalDateTime fim;
+
+        public HorarioDisponivel() {}
+
+        public HorarioDisponivel(Long barbeiroId, String barbeiroNome, LocalDateTime inicio, LocalDateTime fim) {
+            this.barbeiroId = barbeiroId;
+            this.barbeiroNome = barbeiroNome;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        public Long getBarbeiroId() { return barbeiroId; }
+        public String getBarbeiroNome() { return barbeiroNome; }
+        public LocalDateTime getInicio() { return inicio; }
+        public LocalDateTime getFim() { return fim; }
+
+        public void setBarbeiroId(Long barbeiroId) { this.barbeiroId = barbeiroId; }
+        public void setBarbeiroNome(String barbeiroNome) { this.barbeiroNome = barbeiroNome; }
+        public void setInicio(LocalDateTime inicio) { this.inicio = inicio; }
+        public void setFim(LocalDateTime fim) { this.fim = fim; }
+    }
+
+    public static class HeatmapOcupacaoResponse {
+
+        private LocalDate dataInicio;
+        private LocalDate dataFim;
+        private Integer duracaoMin;
+        private List<HeatmapBarbeiro> barbeiros;
+
+        public HeatmapOcupacaoResponse() {}
+
+        public LocalDate getDataInicio() { return dataInicio; }
+        public LocalDate getDataFim() { return dataFim; }
+        public Integer getDuracaoMin() { return duracaoMin; }
+        public List<HeatmapBarbeiro> getBarbeiros() { return barbeiros; }
+
+        public void setDataInicio(LocalDate dataInicio) { this.dataInicio = dataInicio; }
+        public void setDataFim(LocalDate dataFim) { this.dataFim = dataFim; }
+        public void setDuracaoMin(Integer duracaoMin) { this.duracaoMin = duracaoMin; }
+        public void setBarbeiros(List<HeatmapBarbeiro> barbeiros) { this.barbeiros = barbeiros; }
+    }
+
+    public static class HeatmapBarbeiro {
+
+        private Long barbeiroId;
+        private String nome;
+        private LocalTime horaEntrada;
+        private LocalTime horaSaida;
+
+        // [dia da semana (0 = segunda ... 6 = domingo)][slot do dia] -> % ocupado do expediente
+        private double[][] ocupacao;
+
+        public HeatmapBarbeiro() {}
+
+        public Long getBarbeiroId() { return barbeiroId; }
+        public String getNome() { return nome; }
+        public LocalTime getHoraEntrada() { return horaEntrada; }
+        public LocalTime getHoraSaida() { return horaSaida; }
+        public double[][] getOcupacao() { return ocupacao; }
+
+        public void setBarbeiroId(Long barbeiroId) { this.barbeiroId = barbeiroId; }
+        public void setNome(String nome) { this.nome = nome; }
+        public void setHoraEntrada(LocalTime horaEntrada) { this.horaEntrada = horaEntrada; }
+        public void setHoraSaida(LocalTime horaSaida) { this.horaSaida = horaSaida; }
+        public void setOcupacao(double[][] ocupacao) { this.ocupacao = ocupacao; }
+    }
+
+    // linha do cursor do heatmap já convertida em ints (select new ... do AgendamentoRepository)
+    public static class HeatmapIntervalo {
+
+        private final Long barbeiroId;
+        private final int diaSemana;   // 0 = segunda ... 6 = domingo
+        private final int minInicio;
+        private final int minFim;      // limitado ao dia de início, como na grade
+
+        public HeatmapIntervalo(Long barbeiroId, LocalDateTime inicio, LocalDateTime fim) {
+            this.barbeiroId = barbeiroId;
+            this.diaSemana = inicio.getDayOfWeek().getValue() - 1;
+            this.minInicio = inicio.toLocalTime().toSecondOfDay() / 60;
+            this.minFim = fim.toLocalDate().isAfter(inicio.toLocalDate())
+                    ? 24 * 60
+                    : fim.toLocalTime().toSecondOfDay() / 60;
+        }
+
+        public Long getBarbeiroId() { return barbeiroId; }
+        public int getDiaSemana() { return diaSemana; }
+        public int getMinInicio() { return minInicio; }
+        public int getMinFim() { return minFim; }
     }
 
     // ==========================
@@ -448,6 +778,16 @@ public class DTOs {
 
         public PagamentoResponse() {}
 
+        // usado pelas consultas de projeção (select new ...) do PagamentoRepository
+        public PagamentoResponse(Long id, Long agendamentoId, BigDecimal valor,
+                                 Enum<?> formaPagamento, LocalDateTime pagoEm) {
+            this.id = id;
+            this.agendamentoId = agendamentoId;
+            this.valor = valor != null ? valor.doubleValue() : null;
+            this.formaPagamento = formaPagamento != null ? formaPagamento.name() : null;
+            this.pagoEm = pagoEm;
+        }
+
         public Long getId() { return id; }
         public Long getAgendamentoId() { return agendamentoId; }
         public Double getValor() { return valor; }
@@ -468,16 +808,190 @@ public class DTOs {
         private Double total;
         private Integer quantidadePagamentos;
 
+        private List<RelatorioDia> porDia;
+        private List<RelatorioFormaPagamento> porFormaPagamento;
+
         public RelatorioFinanceiroResponse() {}
 
         public LocalDate getDataInicio() { return dataInicio; }
         public LocalDate getDataFim() { return dataFim; }
         public Double getTotal() { return total; }
         public Integer getQuantidadePagamentos() { return quantidadePagamentos; }
+        public List<RelatorioDia> getPorDia() { return porDia; }
+        public List<RelatorioFormaPagamento> getPorFormaPagamento() { return porFormaPagamento; }
 
         public void setDataInicio(LocalDate dataInicio) { this.dataInicio = dataInicio; }
         public void setDataFim(LocalDate dataFim) { this.dataFim = dataFim; }
         public void setTotal(Double total) { this.total = total; }
         public void setQuantidadePagamentos(Integer quantidadePagamentos) { this.quantidadePagamentos = quantidadePagamentos; }
+        public void setPorDia(List<RelatorioDia> porDia) { this.porDia = porDia; }
+        public void setPorFormaPagamento(List<RelatorioFormaPagamento> porFormaPagamento) { this.porFormaPagamento = porFormaPagamento; }
+    }
+
+    public static class RelatorioDia {
+
+        private LocalDate data;
+        private Double total;
+        private Integer quantidade;
+
+        public RelatorioDia() {}
+
+        public LocalDate getData() { return data; }
+        public Double getTotal() { return total; }
+        public Integer getQuantidade() { return quantidade; }
+
+        public void setData(LocalDate data) { this.data = data; }
+        public void setTotal(Double total) { this.total = total; }
+        public void setQuantidade(Integer quantidade) { this.quantidade = quantidade; }
+    }
+
+    public static class RelatorioFormaPagamento {
+
+        private String formaPagamento;
+        private Double total;
+        private Integer quantidade;
+
+        public RelatorioFormaPagamento() {}
+
+        public String getFormaPagamento() { return formaPagamento; }
+        public Double getTotal() { return total; }
+        public Integer getQuantidade() { return quantidade; }
+
+        public void setFormaPagamento(String formaPagamento) { this.formaPagamento = formaPagamento; }
+        public void setTotal(Double total) { this.total = total; }
+        public void setQuantidade(Integer quantidade) { this.quantidade = quantidade; }
+    }
+
+    // ==========================
+    // ANALYTICS
+    // ==========================
+
+    public static class RelatorioAnaliticoResponse {
+
+        private LocalDate dataInicio;
+        private LocalDate dataFim;
+        private IndicadoresAnaliticos geral;
+        private List<IndicadoresAnaliticos> porBarbeiro;
+        private List<IndicadoresAnaliticos> porServico;
+        private List<IndicadoresAnaliticos> porFormaPagamento;
+
+        public RelatorioAnaliticoResponse() {}
+
+        public LocalDate getDataInicio() { return dataInicio; }
+        public LocalDate getDataFim() { return dataFim; }
+        public IndicadoresAnaliticos getGeral() { return geral; }
+        public List<IndicadoresAnaliticos> getPorBarbeiro() { return porBarbeiro; }
+        public List<IndicadoresAnaliticos> getPorServico() { return porServico; }
+        public List<IndicadoresAnaliticos> getPorFormaPagamento() { return porFormaPagamento; }
+
+        public void setDataInicio(LocalDate dataInicio) { this.dataInicio = dataInicio; }
+        public void setDataFim(LocalDate dataFim) { this.dataFim = dataFim; }
+        public void setGeral(IndicadoresAnaliticos geral) { this.geral = geral; }
+        public void setPorBarbeiro(List<IndicadoresAnaliticos> porBarbeiro) { this.porBarbeiro = porBarbeiro; }
+        public void setPorServico(List<IndicadoresAnaliticos> porServico) { this.porServico = porServico; }
+        public void setPorFormaPagamento(List<IndicadoresAnaliticos> porFormaPagamento) { this.porFormaPagamento = porFormaPagamento; }
+    }
+
+    /**
+     * Indicadores de um grupo (barbeiro, serviço, forma de pagamento ou geral).
+     * Campos que não se aplicam ao grupo ficam null (ex.: ocupação por forma de pagamento).
+     */
+    public static class IndicadoresAnaliticos {
+
+        private String id;
+        private String nome;
+
+        private Double receita;
+        private Integer quantidadePagamentos;
+        private Double ticketMedio;
+
+        private Integer agendamentos;
+        private Integer cancelados;
+        private Integer naoCompareceu;
+        private Double taxaCancelamento;
+        private Double taxaNaoComparecimento;
+
+        private Long minutosOcupados;
+        private Long minutosDisponiveis;
+        private Double taxaOcupacao;
+
+        public IndicadoresAnaliticos() {}
+
+        public String getId() { return id; }
+        public String getNome() { return nome; }
+        public Double getReceita() { return receita; }
+        public Integer getQuantidadePagamentos() { return quantidadePagamentos; }
+        public Double getTicketMedio() { return ticketMedio; }
+        public Integer getAgendamentos() { return agendamentos; }
+        public Integer getCancelados() { return cancelados; }
+        public Integer getNaoCompareceu() { return naoCompareceu; }
+        public Double getTaxaCancelamento() { return taxaCancelamento; }
+        public Double getTaxaNaoComparecimento() { return taxaNaoComparecimento; }
+        public Long getMinutosOcupados() { return minutosOcupados; }
+        public Long getMinutosDisponiveis() { return minutosDisponiveis; }
+        public Double getTaxaOcupacao() { return taxaOcupacao; }
+
+        public void setId(String id) { this.id = id; }
+        public void setNome(String nome) { this.nome = nome; }
+        public void setReceita(Double receita) { this.receita = receita; }
+        public void setQuantidadePagamentos(Integer quantidadePagamentos) { this.quantidadePagamentos = quantidadePagamentos; }
+        public void setTicketMedio(Double ticketMedio) { this.ticketMedio = ticketMedio; }
+        public void setAgendamentos(Integer agendamentos) { this.agendamentos = agendamentos; }
+        public void setCancelados(Integer cancelados) { this.cancelados = cancelados; }
+        public void setNaoCompareceu(Integer naoCompareceu) { this.naoCompareceu = naoCompareceu; }
+        public void setTaxaCancelamento(Double taxaCancelamento) { this.taxaCancelamento = taxaCancelamento; }
+        public void setTaxaNaoComparecimento(Double taxaNaoComparecimento) { this.taxaNaoComparecimento = taxaNaoComparecimento; }
+        public void setMinutosOcupados(Long minutosOcupados) { this.minutosOcupados = minutosOcupados; }
+        public void setMinutosDisponiveis(Long minutosDisponiveis) { this.minutosDisponiveis = minutosDisponiveis; }
+        public void setTaxaOcupacao(Double taxaOcupacao) { this.taxaOcupacao = taxaOcupacao; }
+    }
+
+    // ==========================
+    // IMPORTAÇÃO
+    // ==========================
+
+    // Uma linha do NDJSON devolvido pela importação: "progresso" a cada lote e "resumo" no fim
+    public static class ProgressoImportacao {
+
+        private String tipo;
+        private Long linhas;
+        private Long importados;
+        private Long falhas;
+
+        // só no resumo (limitado às primeiras falhas)
+        private List<FalhaImportacao> falhasDetalhe;
+
+        public ProgressoImportacao() {}
+
+        public String getTipo() { return tipo; }
+        public Long getLinhas() { return linhas; }
+        public Long getImportados() { return importados; }
+        public Long getFalhas() { return falhas; }
+        public List<FalhaImportacao> getFalhasDetalhe() { return falhasDetalhe; }
+
+        public void setTipo(String tipo) { this.tipo = tipo; }
+        public void setLinhas(Long linhas) { this.linhas = linhas; }
+        public void setImportados(Long importados) { this.importados = importados; }
+        public void setFalhas(Long falhas) { this.falhas = falhas; }
+        public void setFalhasDetalhe(List<FalhaImportacao> falhasDetalhe) { this.falhasDetalhe = falhasDetalhe; }
+    }
+
+    public static class FalhaImportacao {
+
+        private Long linha;
+        private String motivo;
+
+        public FalhaImportacao() {}
+
+        public FalhaImportacao(Long linha, String motivo) {
+            this.linha = linha;
+            this.motivo = motivo;
+        }
+
+        public Long getLinha() { return linha; }
+        public String getMotivo() { return motivo; }
+
+        public void setLinha(Long linha) { this.linha = linha; }
+        public void setMotivo(String motivo) { this.motivo = motivo; }
     }
-}
\ No newline at end of file
+}
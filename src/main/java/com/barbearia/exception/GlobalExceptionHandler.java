@@ -1,6 +1,8 @@
 package com.barbearia.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.validation.FieldError;
@@ -47,6 +49,14 @@ public class GlobalExceptionHandler {
         return ApiError.of(404, "Não encontrado", ex.getMessage());
     }
 
+    @ExceptionHandler(ServicoIndisponivelException.class)
+    public ResponseEntity<ApiError> handleIndisponivel(ServicoIndisponivelException ex) {
+        log.warning("Serviço indisponível: " + ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSegundos()))
+                .body(ApiError.of(503, "Serviço indisponível", ex.getMessage()));
+    }
+
     @ExceptionHandler(BadCredentialsException.class)
     @ResponseStatus(HttpStatus.UNAUTHORIZED)
     public ApiError handleBadCredentials(BadCredentialsException ex) {
@@ -0,0 +1,18 @@
+package com.barbearia.exception;
+
+/**
+ * Capacidade esgotada no momento (ex.: pool de hash de senha cheio): vira 503 com Retry-After.
+ */
+public class ServicoIndisponivelException extends RuntimeException {
+
+    private final long retryAfterSegundos;
+
+    public ServicoIndisponivelException(String message, long retryAfterSegundos) {
+        super(message);
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+
+    public long getRetryAfterSegundos() {
+        return retryAfterSegundos;
+    }
+}
@@ -5,17 +5,31 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "agendamentos")
+@Table(
+        name = "agendamentos",
+        indexes = {
+                @Index(
+                        name = "idx_agendamentos_barbeiro_status_periodo",
+                        columnList = "barbeiro_id, status, data_hora, data_hora_fim"
+                ),
+                @Index(name = "idx_agendamentos_data_hora_id", columnList = "data_hora, id"),
+                @Index(name = "idx_agendamentos_status_data_hora", columnList = "status, data_hora")
+        }
+)
 public class Agendamento {
 
     public enum StatusAgendamento {
         AGENDADO,
         CANCELADO,
-        CONCLUIDO
+        CONCLUIDO,
+        NAO_COMPARECEU
     }
 
+    // sequência com alocação em blocos: o id sai sem ir ao banco a cada insert,
+    // o que permite ao Hibernate agrupar os inserts em lote (hibernate.jdbc.batch_size)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "agendamentos_seq")
+    @SequenceGenerator(name = "agendamentos_seq", sequenceName = "agendamentos_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -33,6 +47,10 @@ public class Agendamento {
     @Column(name = "data_hora", nullable = false)
     private LocalDateTime dataHora;
 
+    // Persistido para as consultas de conflito/disponibilidade usarem só o índice
+    @Column(name = "data_hora_fim")
+    private LocalDateTime dataHoraFim;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     private StatusAgendamento status = StatusAgendamento.AGENDADO;
@@ -40,6 +58,14 @@ public class Agendamento {
     @Column(length = 255)
     private String observacao;
 
+    // Lembretes já enviados para o horário atual (null = não enviado; a remarcação zera).
+    // O LembreteService reserva o envio com um update condicional nestas colunas.
+    @Column(name = "lembrete_24h_enviado_em")
+    private LocalDateTime lembrete24hEnviadoEm;
+
+    @Column(name = "lembrete_1h_enviado_em")
+    private LocalDateTime lembrete1hEnviadoEm;
+
     public Agendamento() {
     }
 
@@ -75,18 +101,33 @@ public class Agendamento {
         return observacao;
     }
 
+    public LocalDateTime getLembrete24hEnviadoEm() {
+        return lembrete24hEnviadoEm;
+    }
+
+    public LocalDateTime getLembrete1hEnviadoEm() {
+        return lembrete1hEnviadoEm;
+    }
+
     /**
-     * Calcula a data/hora final baseado na duração do serviço.
-     * Não persiste no banco.
+     * Data/hora final gravada no banco.
+     * Se ainda não foi preenchida (registro antigo), calcula pela duração do serviço.
      */
-    @Transient
     public LocalDateTime getDataHoraFim() {
+        if (dataHoraFim != null) {
+            return dataHoraFim;
+        }
         if (dataHora == null || servico == null || servico.getDuracaoMinutos() == null) {
             return null;
         }
         return dataHora.plusMinutes(servico.getDuracaoMinutos());
     }
 
+    @PrePersist
+    protected void prePersist() {
+        if (dataHoraFim == null) dataHoraFim = getDataHoraFim();
+    }
+
     // =====================
     // SETTERS
     // =====================
@@ -111,6 +152,10 @@ public class Agendamento {
         this.dataHora = dataHora;
     }
 
+    public void setDataHoraFim(LocalDateTime dataHoraFim) {
+        this.dataHoraFim = dataHoraFim;
+    }
+
     public void setStatus(StatusAgendamento status) {
         this.status = status;
     }
@@ -129,4 +174,12 @@ public class Agendamento {
     public void setObservacao(String observacao) {
         this.observacao = observacao;
     }
+
+    public void setLembrete24hEnviadoEm(LocalDateTime lembrete24hEnviadoEm) {
+        this.lembrete24hEnviadoEm = lembrete24hEnviadoEm;
+    }
+
+    public void setLembrete1hEnviadoEm(LocalDateTime lembrete1hEnviadoEm) {
+        this.lembrete1hEnviadoEm = lembrete1hEnviadoEm;
+    }
 }
@@ -14,7 +14,8 @@ import java.util.List;
 public class Barbeiro {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "barbeiros_seq")
+    @SequenceGenerator(name = "barbeiros_seq", sequenceName = "barbeiros_seq", allocationSize = 50)
     private Long id;
 
     @JsonIgnore
@@ -0,0 +1,141 @@
+package com.barbearia.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento do ciclo de vida do agendamento (outbox transacional).
+ * Gravado na mesma transação da escrita que o originou; o OutboxRelay entrega
+ * depois aos ouvintes e marca como PUBLICADO.
+ */
+@Entity
+@Table(
+        name = "eventos_outbox",
+        indexes = @Index(name = "idx_eventos_outbox_status_id", columnList = "status, id")
+)
+public class EventoOutbox {
+
+    public enum TipoEvento {
+        CRIADO,
+        REMARCADO,
+        CANCELADO,
+        PAGO,
+        NAO_COMPARECEU
+    }
+
+    public enum StatusEvento {
+        PENDENTE,
+        PUBLICADO,
+        FALHOU
+    }
+
+    // mesma alocação em blocos dos agendamentos: o insert do evento entra no lote do flush
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "eventos_outbox_seq")
+    @SequenceGenerator(name = "eventos_outbox_seq", sequenceName = "eventos_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TipoEvento tipo;
+
+    @Column(name = "agendamento_id", nullable = false)
+    private Long agendamentoId;
+
+    @Column(name = "barbeiro_id", nullable = false)
+    private Long barbeiroId;
+
+    @Column(name = "cliente_id", nullable = false)
+    private Long clienteId;
+
+    @Column(name = "data_hora", nullable = false)
+    private LocalDateTime dataHora;
+
+    @Column(name = "data_hora_fim")
+    private LocalDateTime dataHoraFim;
+
+    // só em REMARCADO: horário antes da remarcação
+    @Column(name = "data_hora_anterior")
+    private LocalDateTime dataHoraAnterior;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StatusEvento status = StatusEvento.PENDENTE;
+
+    @Column(nullable = false)
+    private int tentativas;
+
+    // depois de uma falha, o evento só volta a ser entregue a partir daqui
+    @Column(name = "proxima_tentativa")
+    private LocalDateTime proximaTentativa;
+
+    @Column(name = "publicado_em")
+    private LocalDateTime publicadoEm;
+
+    @Column(name = "ultimo_erro", length = 500)
+    private String ultimoErro;
+
+    @PrePersist
+    protected void prePersist() {
+        if (criadoEm == null) criadoEm = LocalDateTime.now();
+    }
+
+    public EventoOutbox() {
+    }
+
+    public EventoOutbox(TipoEvento tipo, Agendamento agendamento, LocalDateTime dataHoraAnterior) {
+        this.tipo = tipo;
+        this.agendamentoId = agendamento.getId();
+        this.barbeiroId = agendamento.getBarbeiro().getId();
+        this.clienteId = agendamento.getCliente().getId();
+        this.dataHora = agendamento.getDataHora();
+        this.dataHoraFim = agendamento.getDataHoraFim();
+        this.dataHoraAnterior = dataHoraAnterior;
+    }
+
+    // ===== getters/setters =====
+    public Long getId() { return id; }
+
+    public TipoEvento getTipo() { return tipo; }
+    public void setTipo(TipoEvento tipo) { this.tipo = tipo; }
+
+    public Long getAgendamentoId() { return agendamentoId; }
+    public void setAgendamentoId(Long agendamentoId) { this.agendamentoId = agendamentoId; }
+
+    public Long getBarbeiroId() { return barbeiroId; }
+    public void setBarbeiroId(Long barbeiroId) { this.barbeiroId = barbeiroId; }
+
+    public Long getClienteId() { return clienteId; }
+    public void setClienteId(Long clienteId) { this.clienteId = clienteId; }
+
+    public LocalDateTime getDataHora() { return dataHora; }
+    public void setDataHora(LocalDateTime dataHora) { this.dataHora = dataHora; }
+
+    public LocalDateTime getDataHoraFim() { return dataHoraFim; }
+    public void setDataHoraFim(LocalDateTime dataHoraFim) { this.dataHoraFim = dataHoraFim; }
+
+    public LocalDateTime getDataHoraAnterior() { return dataHoraAnterior; }
+    public void setDataHoraAnterior(LocalDateTime dataHoraAnterior) { this.dataHoraAnterior = dataHoraAnterior; }
+
+    public LocalDateTime getCriadoEm() { return criadoEm; }
+    public void setCriadoEm(LocalDateTime criadoEm) { this.criadoEm = criadoEm; }
+
+    public StatusEvento getStatus() { return status; }
+    public void setStatus(StatusEvento status) { this.status = status; }
+
+    public int getTentativas() { return tentativas; }
+    public void setTentativas(int tentativas) { this.tentativas = tentativas; }
+
+    public LocalDateTime getProximaTentativa() { return proximaTentativa; }
+    public void setProximaTentativa(LocalDateTime proximaTentativa) { this.proximaTentativa = proximaTentativa; }
+
+    public LocalDateTime getPublicadoEm() { return publicadoEm; }
+    public void setPublicadoEm(LocalDateTime publicadoEm) { this.publicadoEm = publicadoEm; }
+
+    public String getUltimoErro() { return ultimoErro; }
+    public void setUltimoErro(String ultimoErro) { this.ultimoErro = ultimoErro; }
+}
@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 public class Pagamento {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pagamentos_seq")
+    @SequenceGenerator(name = "pagamentos_seq", sequenceName = "pagamentos_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne(fetch = FetchType.LAZY, optional = false)
@@ -0,0 +1,76 @@
+package com.barbearia.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Consolidado diário de pagamentos por forma de pagamento.
+ * Atualizado na mesma transação do pagamento; o relatório financeiro soma só estas linhas.
+ */
+@Entity
+@Table(name = "pagamentos_diarios")
+@IdClass(PagamentoDiario.Chave.class)
+public class PagamentoDiario {
+
+    @Id
+    @Column(nullable = false)
+    private LocalDate data;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "forma_pagamento", nullable = false, length = 30)
+    private Pagamento.FormaPagamento formaPagamento;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal total = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private long quantidade;
+
+    public PagamentoDiario() {}
+
+    public PagamentoDiario(LocalDate data, Pagamento.FormaPagamento formaPagamento,
+                           BigDecimal total, long quantidade) {
+        this.data = data;
+        this.formaPagamento = formaPagamento;
+        this.total = total;
+        this.quantidade = quantidade;
+    }
+
+    // ===== getters =====
+
+    public LocalDate getData() { return data; }
+    public Pagamento.FormaPagamento getFormaPagamento() { return formaPagamento; }
+    public BigDecimal getTotal() { return total; }
+    public long getQuantidade() { return quantidade; }
+
+    // ===== chave composta (data, forma_pagamento) =====
+    public static class Chave implements Serializable {
+
+        private LocalDate data;
+        private Pagamento.FormaPagamento formaPagamento;
+
+        public Chave() {}
+
+        public Chave(LocalDate data, Pagamento.FormaPagamento formaPagamento) {
+            this.data = data;
+            this.formaPagamento = formaPagamento;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Chave c)) return false;
+            return Objects.equals(data, c.data) && formaPagamento == c.formaPagamento;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(data, formaPagamento);
+        }
+    }
+}
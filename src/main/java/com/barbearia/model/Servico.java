@@ -18,7 +18,8 @@ import java.util.List;
 public class Servico {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "servicos_seq")
+    @SequenceGenerator(name = "servicos_seq", sequenceName = "servicos_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 100)
@@ -1,13 +1,17 @@
 package com.barbearia.model;
 
+import com.barbearia.security.JwtUtil;
+import com.barbearia.security.UsuarioCacheListener;
 import jakarta.persistence.*;
 
 @Entity
 @Table(name = "usuarios")
+@EntityListeners(UsuarioCacheListener.class)
 public class Usuario {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usuarios_seq")
+    @SequenceGenerator(name = "usuarios_seq", sequenceName = "usuarios_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -22,6 +26,10 @@ public class Usuario {
     @Column(nullable = false)
     private String role;
 
+    // Vai no JWT: incrementar invalida todos os tokens já emitidos para o usuário
+    @Column(name = "token_versao")
+    private Integer tokenVersao = 0;
+
     public Usuario() {}
 
     public Usuario(Long id, String nome, String email, String senha, String role) {
@@ -64,7 +72,20 @@ public class Usuario {
         return role;
     }
 
+    // a role vai no token: mudar a role de um usuário existente revoga os tokens já emitidos
     public void setRole(String role) {
+        if (id != null && this.role != null
+                && !JwtUtil.roleNormalizada(this.role).equals(JwtUtil.roleNormalizada(role))) {
+            revogarTokens();
+        }
         this.role = role;
     }
+
+    public int getTokenVersao() {
+        return tokenVersao == null ? 0 : tokenVersao;
+    }
+
+    public void revogarTokens() {
+        this.tokenVersao = getTokenVersao() + 1;
+    }
 }
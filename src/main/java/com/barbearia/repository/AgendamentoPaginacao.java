@@ -0,0 +1,27 @@
+package com.barbearia.repository;
+
+import com.barbearia.dto.DTOs.AgendamentoResponse;
+import com.barbearia.model.Agendamento;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Página de agendamentos por keyset (dataHora, id) decrescente, com filtros opcionais.
+ * Implementada em AgendamentoPaginacaoImpl (fragmento do AgendamentoRepository).
+ */
+public interface AgendamentoPaginacao {
+
+    /**
+     * Filtros null ficam fora da consulta. cursorDataHora/cursorId (ambos ou nenhum) é o
+     * último item da página anterior. Nunca usa OFFSET.
+     */
+    List<AgendamentoResponse> findPagina(Agendamento.StatusAgendamento status,
+                                         Long barbeiroId,
+                                         Long clienteId,
+                                         LocalDateTime inicio,
+                                         LocalDateTime fim,
+                                         LocalDateTime cursorDataHora,
+                                         Long cursorId,
+                                         int limite);
+}
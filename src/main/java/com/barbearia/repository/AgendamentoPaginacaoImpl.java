@@ -0,0 +1,77 @@
+package com.barbearia.repository;
+
+import com.barbearia.dto.DTOs.AgendamentoResponse;
+import com.barbearia.model.Agendamento;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Monta a consulta só com os filtros presentes: cada combinação vira um SQL próprio, com
+ * plano próprio, em vez de um plano genérico cheio de "(:x is null or ...)".
+ *
+ * O keyset usa comparação de linha, (data_hora, id) < (:cursorDataHora, :cursorId), que o
+ * banco resolve como uma faixa no índice idx_agendamentos_data_hora_id.
+ */
+class AgendamentoPaginacaoImpl implements AgendamentoPaginacao {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AgendamentoResponse> findPagina(Agendamento.StatusAgendamento status,
+                                                Long barbeiroId,
+                                                Long clienteId,
+                                                LocalDateTime inicio,
+                                                LocalDateTime fim,
+                                                LocalDateTime cursorDataHora,
+                                                Long cursorId,
+                                                int limite) {
+
+        List<String> condicoes = new ArrayList<>();
+        Map<String, Object> parametros = new LinkedHashMap<>();
+
+        if (status != null) {
+            condicoes.add("a.status = :status");
+            parametros.put("status", status);
+        }
+        if (barbeiroId != null) {
+            condicoes.add("b.id = :barbeiroId");
+            parametros.put("barbeiroId", barbeiroId);
+        }
+        if (clienteId != null) {
+            condicoes.add("c.id = :clienteId");
+            parametros.put("clienteId", clienteId);
+        }
+        if (inicio != null) {
+            condicoes.add("a.dataHora >= :inicio");
+            parametros.put("inicio", inicio);
+        }
+        if (fim != null) {
+            condicoes.add("a.dataHora < :fim");
+            parametros.put("fim", fim);
+        }
+        if (cursorDataHora != null && cursorId != null) {
+            condicoes.add("(a.dataHora, a.id) < (:cursorDataHora, :cursorId)");
+            parametros.put("cursorDataHora", cursorDataHora);
+            parametros.put("cursorId", cursorId);
+        }
+
+        StringBuilder jpql = new StringBuilder(AgendamentoRepository.SELECT_RESPONSE);
+        if (!condicoes.isEmpty()) {
+            jpql.append(" where ").append(String.join(" and ", condicoes));
+        }
+        jpql.append(" order by a.dataHora desc, a.id desc");
+
+        TypedQuery<AgendamentoResponse> query = entityManager.createQuery(jpql.toString(), AgendamentoResponse.class);
+        parametros.forEach(query::setParameter);
+
+        return query.setMaxResults(limite).getResultList();
+    }
+}
@@ -1,14 +1,50 @@
 package com.barbearia.repository;
 
+import com.barbearia.dto.DTOs.AgendamentoResponse;
+import com.barbearia.dto.DTOs.HeatmapIntervalo;
 import com.barbearia.model.Agendamento;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface AgendamentoRepository extends JpaRepository<Agendamento, Long> {
+public interface AgendamentoRepository extends JpaRepository<Agendamento, Long>, AgendamentoPaginacao {
+
+    // Projeção direta para AgendamentoResponse: cliente/barbeiro/serviço vêm no mesmo SELECT (sem N+1)
+    String SELECT_RESPONSE = """
+        select new com.barbearia.dto.DTOs$AgendamentoResponse(
+            a.id,
+            c.id, c.nome,
+            b.id, b.nome,
+            s.id, s.nome,
+            s.preco,
+            a.dataHora, a.dataHoraFim,
+            a.status, a.observacao)
+        from Agendamento a
+        join a.cliente c
+        join a.barbeiro b
+        join a.servico s
+    """;
+
+    // Exportação: cursor no banco (fetch size) em vez de carregar tudo em memória.
+    // Precisa rodar dentro de uma transação e o Stream deve ser fechado por quem chama.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_RESPONSE + " order by a.id")
+    Stream<AgendamentoResponse> streamAllResponses();
+
+    @Query(SELECT_RESPONSE + " where c.id = :clienteId")
+    List<AgendamentoResponse> findResponsesByClienteId(@Param("clienteId") Long clienteId);
+
+    @Query(SELECT_RESPONSE + " where b.id = :barbeiroId")
+    List<AgendamentoResponse> findResponsesByBarbeiroId(@Param("barbeiroId") Long barbeiroId);
 
     // Lista por cliente
     List<Agendamento> findByClienteId(Long clienteId);
@@ -17,19 +53,30 @@ public interface AgendamentoRepository extends JpaRepository<Agendamento, Long>
     List<Agendamento> findByBarbeiroId(Long barbeiroId);
 
     // Conflitos de horário: existe agendamento do barbeiro que sobrepõe o intervalo?
+    // (ignorando o próprio agendamento na remarcação)
+    // inicioMinimo limita a faixa no índice por baixo (sem ele, "data_hora < :fim" percorre
+    // todo o histórico do barbeiro): nenhum agendamento começa antes dele e termina depois de inicio.
     @Query("""
-        select a from Agendamento a
+        select count(a) > 0 from Agendamento a
         where a.barbeiro.id = :barbeiroId
           and a.status = 'AGENDADO'
+          and a.dataHora >= :inicioMinimo
           and a.dataHora < :fim
-          and timestampadd(minute, a.servico.duracaoMinutos, a.dataHora) > :inicio
+          and a.dataHoraFim > :inicio
+          and (:agendamentoIdExcluir is null or a.id <> :agendamentoIdExcluir)
     """)
-    List<Agendamento> findConflitos(
+    boolean existsConflito(
             @Param("barbeiroId") Long barbeiroId,
+            @Param("agendamentoIdExcluir") Long agendamentoIdExcluir,
+            @Param("inicioMinimo") LocalDateTime inicioMinimo,
             @Param("inicio") LocalDateTime inicio,
             @Param("fim") LocalDateTime fim
     );
 
+    // Registros gravados antes de data_hora_fim existir (backfill na inicialização)
+    @Query("select a from Agendamento a join fetch a.servico where a.dataHoraFim is null")
+    List<Agendamento> findSemDataHoraFim();
+
     // Agendamentos do barbeiro dentro do dia (intervalo) - todos status
     @Query("""
         select a from Agendamento a
@@ -56,4 +103,137 @@ public interface AgendamentoRepository extends JpaRepository<Agendamento, Long>
             @Param("inicioDia") LocalDateTime inicioDia,
             @Param("fimDia") LocalDateTime fimDia
     );
+
+    // AGENDADOS de vários barbeiros em um período, só com o necessário para montar a grade
+    // e o índice de disponibilidade: [barbeiroId, dataHora, dataHoraFim, id]
+    @Query("""
+        select a.barbeiro.id, a.dataHora, a.dataHoraFim, a.id
+        from Agendamento a
+        where a.barbeiro.id in :barbeiroIds
+          and a.status = 'AGENDADO'
+          and a.dataHora >= :inicio
+          and a.dataHora < :fim
+    """)
+    List<Object[]> findIntervalosAgendadosByBarbeirosAndPeriodo(
+            @Param("barbeiroIds") Collection<Long> barbeiroIds,
+            @Param("inicio") LocalDateTime inicio,
+            @Param("fim") LocalDateTime fim
+    );
+
+    // Lembretes (LembreteService): AGENDADOS que começam no período, pelo índice em data_hora.
+    // [id, dataHora, dataHoraFim, lembrete24hEnviadoEm, lembrete1hEnviadoEm]
+    @Query("""
+        select a.id, a.dataHora, a.dataHoraFim, a.lembrete24hEnviadoEm, a.lembrete1hEnviadoEm
+        from Agendamento a
+        where a.status = 'AGENDADO'
+          and a.dataHora >= :inicio
+          and a.dataHora < :fim
+    """)
+    List<Object[]> findAlarmesPorInicio(
+            @Param("inicio") LocalDateTime inicio,
+            @Param("fim") LocalDateTime fim
+    );
+
+    // Mesmas colunas de findAlarmesPorInicio, para os agendamentos de um lote de eventos
+    @Query("""
+        select a.id, a.dataHora, a.dataHoraFim, a.lembrete24hEnviadoEm, a.lembrete1hEnviadoEm
+        from Agendamento a
+        where a.status = 'AGENDADO'
+          and a.id in :ids
+    """)
+    List<Object[]> findAlarmesPorIds(@Param("ids") Collection<Long> ids);
+
+    // Faltas (LembreteService): AGENDADOS que terminam no período. O filtro em data_hora
+    // (um agendamento não passa de um dia) deixa a consulta usar o mesmo índice.
+    // [id, dataHoraFim]
+    @Query("""
+        select a.id, a.dataHoraFim
+        from Agendamento a
+        where a.status = 'AGENDADO'
+          and a.dataHora >= :inicioMinimo
+          and a.dataHora < :fim
+          and a.dataHoraFim >= :inicio
+          and a.dataHoraFim < :fim
+    """)
+    List<Object[]> findAlarmesPorFim(
+            @Param("inicioMinimo") LocalDateTime inicioMinimo,
+            @Param("inicio") LocalDateTime inicio,
+            @Param("fim") LocalDateTime fim
+    );
+
+    // Reserva o lembrete de 24h: só um chamador (mesmo entre reinícios/instâncias) recebe 1.
+    // Não reserva se o agendamento foi cancelado ou remarcado depois que o alarme foi criado.
+    @Modifying
+    @Query("""
+        update Agendamento a
+        set a.lembrete24hEnviadoEm = :agora
+        where a.id = :id
+          and a.status = 'AGENDADO'
+          and a.dataHora = :dataHora
+          and a.lembrete24hEnviadoEm is null
+    """)
+    int reservarLembrete24h(
+            @Param("id") Long id,
+            @Param("dataHora") LocalDateTime dataHora,
+            @Param("agora") LocalDateTime agora
+    );
+
+    @Modifying
+    @Query("""
+        update Agendamento a
+        set a.lembrete1hEnviadoEm = :agora
+        where a.id = :id
+          and a.status = 'AGENDADO'
+          and a.dataHora = :dataHora
+          and a.lembrete1hEnviadoEm is null
+    """)
+    int reservarLembrete1h(
+            @Param("id") Long id,
+            @Param("dataHora") LocalDateTime dataHora,
+            @Param("agora") LocalDateTime agora
+    );
+
+    // Falta (LembreteService): só marca se ainda estiver AGENDADO e com o fim do alarme.
+    // Pago, cancelado ou remarcado nesse meio tempo (mesmo em outra transação) devolve 0.
+    @Modifying
+    @Query("""
+        update Agendamento a
+        set a.status = 'NAO_COMPARECEU'
+        where a.id = :id
+          and a.status = 'AGENDADO'
+          and a.dataHoraFim = :fim
+    """)
+    int marcarNaoComparecimento(
+            @Param("id") Long id,
+            @Param("fim") LocalDateTime fim
+    );
+
+    // Dados do lembrete: [clienteNome, clienteEmail, clienteTelefone, barbeiroNome, servicoNome]
+    @Query("""
+        select c.nome, c.email, c.telefone, b.nome, s.nome
+        from Agendamento a
+        join a.cliente c
+        join a.barbeiro b
+        join a.servico s
+        where a.id = :id
+    """)
+    List<Object[]> findDadosLembrete(@Param("id") Long id);
+
+    // Heatmap de ocupação: AGENDADO/CONCLUIDO/NAO_COMPARECEU (o horário ficou reservado)
+    // do período em cursor (rodar em transação e fechar o Stream)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+        select new com.barbearia.dto.DTOs$HeatmapIntervalo(a.barbeiro.id, a.dataHora, a.dataHoraFim)
+        from Agendamento a
+        where a.barbeiro.id in :barbeiroIds
+          and a.status in ('AGENDADO', 'CONCLUIDO', 'NAO_COMPARECEU')
+          and a.dataHora >= :inicio
+          and a.dataHora < :fim
+          and a.dataHoraFim is not null
+    """)
+    Stream<HeatmapIntervalo> streamIntervalosOcupados(
+            @Param("barbeiroIds") Collection<Long> barbeiroIds,
+            @Param("inicio") LocalDateTime inicio,
+            @Param("fim") LocalDateTime fim
+    );
 }
\ No newline at end of file
@@ -1,7 +1,11 @@
 package com.barbearia.repository;
 
 import com.barbearia.model.Barbeiro;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,5 +14,15 @@ public interface BarbeiroRepository extends JpaRepository<Barbeiro, Long> {
     Optional<Barbeiro> findByEmail(String email);
     Optional<Barbeiro> findByUsuarioId(Long usuarioId);
     List<Barbeiro> findByAtivoTrue();
+
+    // Barbeiros ativos que fazem o serviço (barbeiros_servicos)
+    @Query("select b from Barbeiro b join b.servicos s where s.id = :servicoId and b.ativo = true")
+    List<Barbeiro> findAtivosByServicoId(@Param("servicoId") Long servicoId);
     boolean existsByEmail(String email);
+
+    // Trava a linha do barbeiro (SELECT ... FOR UPDATE) até o fim da transação.
+    // Serializa só os agendamentos do mesmo barbeiro; barbeiros diferentes seguem em paralelo.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Barbeiro b where b.id = :id")
+    Optional<Barbeiro> findByIdParaAgendar(@Param("id") Long id);
 }
\ No newline at end of file
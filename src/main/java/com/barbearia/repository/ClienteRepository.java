@@ -2,11 +2,19 @@ package com.barbearia.repository;
 
 import com.barbearia.model.Cliente;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     Optional<Cliente> findByEmail(String email);
     Optional<Cliente> findByUsuarioId(Long usuarioId);
     boolean existsByEmail(String email);
+
+    // Importação: [email, id] dos clientes destes emails (uma consulta por lote)
+    @Query("select c.email, c.id from Cliente c where c.email in :emails")
+    List<Object[]> findIdsByEmails(@Param("emails") Collection<String> emails);
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.barbearia.repository;
+
+import com.barbearia.model.EventoOutbox;
+import com.barbearia.model.EventoOutbox.StatusEvento;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, Long> {
+
+    // Próximo lote do relay, em ordem de gravação (índice status, id).
+    // Quem chama passa um Pageable só com o tamanho do lote.
+    @Query("""
+        select e from EventoOutbox e
+        where e.status = 'PENDENTE'
+          and (e.proximaTentativa is null or e.proximaTentativa <= :agora)
+        order by e.id
+    """)
+    List<EventoOutbox> findPendentes(@Param("agora") LocalDateTime agora, Pageable pageable);
+
+    @Modifying
+    @Query("""
+        update EventoOutbox e
+        set e.status = 'PUBLICADO',
+            e.publicadoEm = :agora
+        where e.id in :ids
+    """)
+    int marcarPublicados(@Param("ids") Collection<Long> ids, @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("""
+        update EventoOutbox e
+        set e.status = :status,
+            e.tentativas = :tentativas,
+            e.proximaTentativa = :proximaTentativa,
+            e.ultimoErro = :erro
+        where e.id = :id
+    """)
+    int registrarFalha(
+            @Param("id") Long id,
+            @Param("status") StatusEvento status,
+            @Param("tentativas") int tentativas,
+            @Param("proximaTentativa") LocalDateTime proximaTentativa,
+            @Param("erro") String erro
+    );
+
+    // Limpeza: publicados já entregues há mais tempo que a retenção
+    @Modifying
+    @Query("""
+        delete from EventoOutbox e
+        where e.status = 'PUBLICADO'
+          and e.publicadoEm < :limite
+    """)
+    int apagarPublicadosAntes(@Param("limite") LocalDateTime limite);
+}
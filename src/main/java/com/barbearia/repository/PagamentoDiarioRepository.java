@@ -0,0 +1,66 @@
+package com.barbearia.repository;
+
+import com.barbearia.model.Pagamento;
+import com.barbearia.model.PagamentoDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PagamentoDiarioRepository extends JpaRepository<PagamentoDiario, PagamentoDiario.Chave> {
+
+    // Soma atômica no consolidado do dia (a linha fica travada até o commit).
+    // Retorna 0 se ainda não existe linha para (data, forma).
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        update PagamentoDiario d
+        set d.total = d.total + :valor,
+            d.quantidade = d.quantidade + 1
+        where d.data = :data
+          and d.formaPagamento = :forma
+    """)
+    int somar(
+            @Param("data") LocalDate data,
+            @Param("forma") Pagamento.FormaPagamento forma,
+            @Param("valor") BigDecimal valor
+    );
+
+    // Cria a linha do dia já com o primeiro pagamento. Se outra transação criou a mesma linha
+    // antes, não insere (retorna 0) em vez de violar a PK: o ON CONFLICT espera o commit dela.
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+        insert into pagamentos_diarios (data, forma_pagamento, total, quantidade)
+        values (:data, :forma, :valor, 1)
+        on conflict do nothing
+    """, nativeQuery = true)
+    int inserirSeAusente(
+            @Param("data") LocalDate data,
+            @Param("forma") String forma,
+            @Param("valor") BigDecimal valor
+    );
+
+    @Query("""
+        select d from PagamentoDiario d
+        where d.data >= :inicio
+          and d.data <= :fim
+        order by d.data, d.formaPagamento
+    """)
+    List<PagamentoDiario> findByPeriodo(
+            @Param("inicio") LocalDate inicio,
+            @Param("fim") LocalDate fim
+    );
+
+    // Reconstrói o consolidado a partir de pagamentos (tabela vazia em produção sem Flyway)
+    @Modifying
+    @Query("""
+        insert into PagamentoDiario (data, formaPagamento, total, quantidade)
+        select cast(p.dataPagamento as LocalDate), p.formaPagamento, sum(p.valorCobrado), count(p)
+        from Pagamento p
+        group by cast(p.dataPagamento as LocalDate), p.formaPagamento
+    """)
+    int reconstruir();
+}
@@ -1,20 +1,57 @@
 package com.barbearia.repository;
 
+import com.barbearia.dto.DTOs.PagamentoResponse;
 import com.barbearia.model.Pagamento;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface PagamentoRepository extends JpaRepository<Pagamento, Long> {
 
     boolean existsByAgendamentoId(Long agendamentoId);
 
-    @Query("select coalesce(sum(p.valorCobrado), 0) from Pagamento p " +
-           "where p.dataPagamento >= :inicio and p.dataPagamento < :fim")
-    java.math.BigDecimal somarTotalPorPeriodo(LocalDateTime inicio, LocalDateTime fim);
+    // Exportação: cursor no banco (fetch size); rodar em transação e fechar o Stream
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.barbearia.dto.DTOs$PagamentoResponse(" +
+           "p.id, p.agendamento.id, p.valorCobrado, p.formaPagamento, p.dataPagamento) " +
+           "from Pagamento p order by p.id")
+    Stream<PagamentoResponse> streamAllResponses();
 
-    @Query("select count(p) from Pagamento p " +
-           "where p.dataPagamento >= :inicio and p.dataPagamento < :fim")
-    long contarPorPeriodo(LocalDateTime inicio, LocalDateTime fim);
-}
\ No newline at end of file
+    /**
+     * Analytics: uma única passada sobre agendamentos (left join pagamentos) no período,
+     * agrupada no nível mais fino (barbeiro, serviço, forma de pagamento).
+     * Os subtotais por barbeiro, serviço, forma e o total geral são somados a partir
+     * dessas linhas (equivalente ao GROUP BY ROLLUP, mas portável entre bancos).
+     *
+     * Colunas: [barbeiroId, barbeiroNome, horaEntrada, horaSaida, servicoId, servicoNome,
+     *           formaPagamento, agendamentos, cancelados, naoCompareceu, minutosOcupados,
+     *           pagamentos, receita]
+     */
+    @Query("""
+        select b.id, b.nome, b.horaEntrada, b.horaSaida, s.id, s.nome, p.formaPagamento,
+               count(a),
+               sum(case when a.status = 'CANCELADO' then 1 else 0 end),
+               sum(case when a.status = 'NAO_COMPARECEU'
+                          or (a.status = 'AGENDADO' and a.dataHoraFim <= :agora) then 1 else 0 end),
+               sum(case when a.status <> 'CANCELADO' then (a.dataHoraFim - a.dataHora) by minute else 0 end),
+               count(p),
+               coalesce(sum(p.valorCobrado), 0)
+        from Agendamento a
+          join a.barbeiro b
+          join a.servico s
+          left join Pagamento p on p.agendamento = a
+        where a.dataHora >= :inicio
+          and a.dataHora < :fim
+        group by b.id, b.nome, b.horaEntrada, b.horaSaida, s.id, s.nome, p.formaPagamento
+        """)
+    List<Object[]> agregarAnalitico(@Param("inicio") LocalDateTime inicio,
+                                    @Param("fim") LocalDateTime fim,
+                                    @Param("agora") LocalDateTime agora);
+}
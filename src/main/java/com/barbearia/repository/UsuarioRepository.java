@@ -2,10 +2,21 @@ package com.barbearia.repository;
 
 import com.barbearia.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Optional<Usuario> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    @Query("select coalesce(u.tokenVersao, 0) from Usuario u where u.email = :email")
+    Optional<Integer> findTokenVersaoByEmail(String email);
+
+    // Importação: quais destes emails já existem (uma consulta por lote)
+    @Query("select u.email from Usuario u where u.email in :emails")
+    List<String> findEmailsExistentes(@Param("emails") Collection<String> emails);
 }
\ No newline at end of file
@@ -1,24 +1,30 @@
 	package com.barbearia.security;
 	
+	import io.jsonwebtoken.Claims;
 	import jakarta.servlet.*;
 	import jakarta.servlet.http.*;
 	import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+	import org.springframework.security.core.authority.SimpleGrantedAuthority;
 	import org.springframework.security.core.context.SecurityContextHolder;
 	import org.springframework.security.core.userdetails.UserDetails;
 	import org.springframework.stereotype.Component;
 	import org.springframework.web.filter.OncePerRequestFilter;
 	
 	import java.io.IOException;
+	import java.util.List;
 	
 	@Component
 	public class JwtAuthFilter extends OncePerRequestFilter {
 	
 	    private final JwtUtil jwtUtil;
 	    private final UserDetailsServiceImpl userDetailsService;
+	    private final RevogacaoTokenService revogacaoTokenService;
 	
-	    public JwtAuthFilter(JwtUtil jwtUtil, UserDetailsServiceImpl userDetailsService) {
+	    public JwtAuthFilter(JwtUtil jwtUtil, UserDetailsServiceImpl userDetailsService,
+	                         RevogacaoTokenService revogacaoTokenService) {
 	        this.jwtUtil = jwtUtil;
 	        this.userDetailsService = userDetailsService;
+	        this.revogacaoTokenService = revogacaoTokenService;
 	    }
 	
 	    @Override
@@ -35,17 +41,39 @@
 	        String token = authHeader.substring(7);
 	
 	        try {
-	            String email = jwtUtil.extrairEmail(token);
+	            // ✅ uma única verificação por request (assinatura + expiração, com cache)
+	            Claims claims = jwtUtil.validar(token);
+	            String email = (claims != null) ? claims.getSubject() : null;
 	
 	            if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 	
-	                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+	                String role = claims.get(JwtUtil.CLAIM_ROLE, String.class);
 	
-	                if (jwtUtil.tokenValido(token, userDetails)) {
-	                    var authToken = new UsernamePasswordAuthenticationToken(
-	                            userDetails, null, userDetails.getAuthorities()
-	                    );
-	                    SecurityContextHolder.getContext().setAuthentication(authToken);
+	                if (role != null) {
+	                    // ✅ token novo: autenticação só com as claims (sem ir ao banco)
+	                    Integer versao = claims.get(JwtUtil.CLAIM_VERSAO, Integer.class);
+	
+	                    if (versao != null && revogacaoTokenService.versaoValida(email, versao)) {
+	                        var principal = new UsuarioAutenticado(
+	                                email,
+	                                claims.get(JwtUtil.CLAIM_USUARIO_ID, Long.class),
+	                                claims.get(JwtUtil.CLAIM_CLIENTE_ID, Long.class)
+	                        );
+	                        var authToken = new UsernamePasswordAuthenticationToken(
+	                                principal, null, List.of(new SimpleGrantedAuthority("ROLE_" + role))
+	                        );
+	                        SecurityContextHolder.getContext().setAuthentication(authToken);
+	                    }
+	                } else {
+	                    // token emitido antes das claims de role: mantém o caminho antigo até expirar
+	                    UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+	
+	                    if (email.equals(userDetails.getUsername())) {
+	                        var authToken = new UsernamePasswordAuthenticationToken(
+	                                userDetails, null, userDetails.getAuthorities()
+	                        );
+	                        SecurityContextHolder.getContext().setAuthentication(authToken);
+	                    }
 	                }
 	            }
 	        } catch (Exception e) {
@@ -54,4 +82,4 @@
 	
 	        chain.doFilter(request, response);
 	    }
-	}
\ No newline at end of file
+	}
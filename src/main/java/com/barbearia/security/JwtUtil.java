@@ -1,70 +1,142 @@
 package com.barbearia.security;
 
+import com.barbearia.model.Usuario;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.security.core.userdetails.UserDetails;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
 
+    // tokens válidos já verificados; cada entrada expira junto com o próprio token
+    private static final int MAX_TOKENS_EM_CACHE = 10_000;
+
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_USUARIO_ID = "uid";
+    public static final String CLAIM_CLIENTE_ID = "cid";
+    public static final String CLAIM_VERSAO = "ver";
+
     @Value("${jwt.secret}")
     private String secretKey;
 
     @Value("${jwt.expiration}")
     private long expirationMs;
 
-    private SecretKey getKey() {
+    private SecretKey key;
+    private JwtParser parser;
+    private Cache<String, Claims> tokensVerificados;
+
+    @PostConstruct
+    void init() {
         // ✅ Não usa Base64 decode. Usa a string do env como bytes.
         // Isso evita erro de "Illegal base64 character" no Render.
-        return Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        key = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+
+        // parser é imutável e thread-safe: monta uma vez só
+        parser = Jwts.parser().verifyWith(key).build();
+
+        tokensVerificados = Caffeine.newBuilder()
+                .maximumSize(MAX_TOKENS_EM_CACHE)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String hash, Claims claims, long agora) {
+                        long restanteMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(restanteMs, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String hash, Claims claims, long agora, long duracaoAtual) {
+                        return duracaoAtual;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String hash, Claims claims, long agora, long duracaoAtual) {
+                        return duracaoAtual;
+                    }
+                })
+                .build();
     }
 
-    public String gerarToken(UserDetails userDetails) {
+    /**
+     * Gera o token já com role, ids e versão: o JwtAuthFilter monta a autenticação
+     * só com essas claims, sem buscar o usuário no banco.
+     */
+    public String gerarToken(Usuario usuario, Long clienteId) {
         Date agora = new Date();
         Date exp = new Date(System.currentTimeMillis() + expirationMs);
 
         return Jwts.builder()
-                .subject(userDetails.getUsername())
+                .subject(usuario.getEmail())
+                .claim(CLAIM_ROLE, roleNormalizada(usuario.getRole()))
+                .claim(CLAIM_USUARIO_ID, usuario.getId())
+                .claim(CLAIM_CLIENTE_ID, clienteId)
+                .claim(CLAIM_VERSAO, usuario.getTokenVersao())
                 .issuedAt(agora)
                 .expiration(exp)
-                .signWith(getKey())
+                .signWith(key)
                 .compact();
     }
 
-    public String extrairEmail(String token) {
-        return getClaims(token).getSubject();
-    }
+    /**
+     * Verifica assinatura e expiração do token e devolve as claims, ou null se for inválido.
+     * Um token já verificado é respondido pelo cache (só o hash SHA-256 do token é calculado).
+     */
+    public Claims validar(String token) {
+        String hash = hash(token);
+
+        Claims claims = tokensVerificados.getIfPresent(hash);
+        if (claims != null) {
+            return claims;
+        }
 
-    public boolean tokenValido(String token, UserDetails userDetails) {
         try {
-            String email = extrairEmail(token);
-            return email != null
-                    && email.equals(userDetails.getUsername())
-                    && !tokenExpirado(token);
-        } catch (JwtException e) {
+            claims = parser.parseSignedClaims(token).getPayload();
+        } catch (JwtException | IllegalArgumentException e) {
             System.out.println("JWT inválido: " + e.getMessage());
-            return false;
+            return null;
         }
+
+        // o parser já rejeita token expirado; sem exp não entra no cache
+        if (claims.getExpiration() != null) {
+            tokensVerificados.put(hash, claims);
+        }
+        return claims;
     }
 
-    private boolean tokenExpirado(String token) {
-        Date exp = getClaims(token).getExpiration();
-        return exp != null && exp.before(new Date());
+    public String extrairEmail(String token) {
+        Claims claims = validar(token);
+        return claims != null ? claims.getSubject() : null;
     }
 
-    private Claims getClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    // role do banco pode vir "ROLE_CLIENTE" -> "CLIENTE"
+    public static String roleNormalizada(String role) {
+        if (role == null || role.isBlank()) return "USER";
+        return role.replace("ROLE_", "").trim();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,77 @@
+package com.barbearia.security;
+
+import com.barbearia.config.CacheCarregavel;
+import com.barbearia.model.Usuario;
+import com.barbearia.repository.UsuarioRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Confere se a versão de token (claim "ver") ainda é a atual do usuário.
+ *
+ * A versão atual fica em cache por pouco tempo, então o banco é consultado no máximo
+ * uma vez por usuário a cada VALIDADE_CACHE, e não a cada request.
+ * Depois de revogar, tokens antigos param de valer em até esse tempo em outras instâncias
+ * (na instância que revogou, logo após o commit).
+ *
+ * A versão muda em revogar() e quando a role do usuário muda (Usuario.setRole); o
+ * UsuarioCacheListener chama invalidar() a cada save do Usuario.
+ */
+@Service
+public class RevogacaoTokenService {
+
+    private static final Duration VALIDADE_CACHE = Duration.ofSeconds(60);
+    private static final int MAX_USUARIOS_EM_CACHE = 10_000;
+
+    // usuário removido: nenhuma versão de token é aceita
+    private static final int SEM_USUARIO = -1;
+
+    private final UsuarioRepository usuarioRepository;
+    private final CacheCarregavel<String, Integer> versaoAtual;
+
+    public RevogacaoTokenService(UsuarioRepository usuarioRepository) {
+        this.usuarioRepository = usuarioRepository;
+        this.versaoAtual = new CacheCarregavel<>(Caffeine.newBuilder()
+                .maximumSize(MAX_USUARIOS_EM_CACHE)
+                .expireAfterWrite(VALIDADE_CACHE)
+                .build());
+    }
+
+    public boolean versaoValida(String email, int versaoDoToken) {
+        return versaoAtual.obter(email,
+                e -> usuarioRepository.findTokenVersaoByEmail(e).orElse(SEM_USUARIO)) == versaoDoToken;
+    }
+
+    /**
+     * Invalida todos os tokens já emitidos para o usuário (ex.: conta desativada).
+     */
+    @Transactional
+    public void revogar(Usuario usuario) {
+        usuario.revogarTokens();
+        usuarioRepository.save(usuario);
+    }
+
+    /**
+     * Descarta a versão em cache do usuário depois do commit. Antes disso, uma request
+     * concorrente leria a versão antiga do banco e a guardaria por VALIDADE_CACHE.
+     */
+    public void invalidar(String email) {
+        if (email == null) return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versaoAtual.invalidar(email);
+                }
+            });
+        } else {
+            versaoAtual.invalidar(email);
+        }
+    }
+}
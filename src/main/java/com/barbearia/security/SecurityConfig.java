@@ -1,5 +1,6 @@
 package com.barbearia.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.*;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.*;
@@ -10,8 +11,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.*;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -22,10 +21,13 @@ public class SecurityConfig {
 
     private final JwtAuthFilter jwtAuthFilter;
     private final UserDetailsServiceImpl userDetailsService;
+    private final SenhaEncoder senhaEncoder;
 
-    public SecurityConfig(JwtAuthFilter jwtAuthFilter, UserDetailsServiceImpl userDetailsService) {
+    public SecurityConfig(JwtAuthFilter jwtAuthFilter, UserDetailsServiceImpl userDetailsService,
+                          SenhaEncoder senhaEncoder) {
         this.jwtAuthFilter = jwtAuthFilter;
         this.userDetailsService = userDetailsService;
+        this.senhaEncoder = senhaEncoder;
     }
 
     @Bean
@@ -38,9 +40,17 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
+                        // ✅ Retorno de Mono/SseEmitter (disponibilidade reativa e eventos): o dispatch
+                        // ASYNC só entrega a resposta de uma requisição que já passou pelas regras abaixo
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         .requestMatchers("/auth/**").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
 
+                        // ✅ Actuator: health público, métricas só ADMIN
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasAuthority("ROLE_ADMIN")
+
                         // ✅ Serviços (listar público)
                         .requestMatchers(HttpMethod.GET, "/servicos").permitAll()
 
@@ -65,12 +75,27 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.PUT, "/clientes/**").hasAuthority("ROLE_ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/clientes/**").hasAuthority("ROLE_ADMIN")
 
+                        // ✅ Exportação do histórico (somente ADMIN)
+                        .requestMatchers(HttpMethod.GET, "/agendamentos/exportar", "/pagamentos/exportar")
+                        .hasAuthority("ROLE_ADMIN")
+
+                        // ✅ Importação em massa (somente ADMIN)
+                        .requestMatchers(HttpMethod.POST, "/clientes/importar", "/agendamentos/importar")
+                        .hasAuthority("ROLE_ADMIN")
+
+                        // ✅ Relatórios analíticos (somente ADMIN)
+                        .requestMatchers(HttpMethod.GET, "/pagamentos/relatorio/analitico").hasAuthority("ROLE_ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/agendamentos/ocupacao/heatmap").hasAuthority("ROLE_ADMIN")
+
                         // ✅ Agendamentos
-                        .requestMatchers(HttpMethod.POST, "/agendamentos").hasAnyAuthority("ROLE_CLIENTE", "ROLE_ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/agendamentos", "/agendamentos/recorrentes")
+                        .hasAnyAuthority("ROLE_CLIENTE", "ROLE_ADMIN")
                         .requestMatchers(HttpMethod.GET, "/agendamentos/cliente/**").hasAnyAuthority("ROLE_CLIENTE", "ROLE_ADMIN")
 
                         // (se você já criou)
-                        .requestMatchers(HttpMethod.GET, "/agendamentos/disponibilidade")
+                        .requestMatchers(HttpMethod.GET, "/agendamentos/disponibilidade", "/agendamentos/disponibilidade/grade",
+                                "/agendamentos/disponibilidade/proximos", "/agendamentos/disponibilidade/reativa",
+                                "/agendamentos/disponibilidade/eventos")
                         .hasAnyAuthority("ROLE_CLIENTE", "ROLE_ADMIN")
 
                         .requestMatchers(HttpMethod.GET, "/agendamentos").hasAnyAuthority("ROLE_ADMIN", "ROLE_BARBEIRO")
@@ -86,16 +111,12 @@ public class SecurityConfig {
                 .build();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     @Bean
     public DaoAuthenticationProvider authProvider() {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
-        provider.setPasswordEncoder(passwordEncoder());
+        provider.setPasswordEncoder(senhaEncoder); // BCrypt no pool limitado (PasswordEncoder da aplicação)
+        provider.setUserDetailsPasswordService(userDetailsService); // refaz o hash no login se o custo mudou
         return provider;
     }
 
@@ -0,0 +1,186 @@
+package com.barbearia.security;
+
+import com.barbearia.exception.ServicoIndisponivelException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PasswordEncoder da aplicação: BCrypt rodando num pool próprio, de tamanho fixo.
+ *
+ * Cadastro, login (DaoAuthenticationProvider), criação de barbeiro/cliente, DataLoader e
+ * importação passam por aqui, então o custo de CPU do BCrypt nunca ocupa mais que
+ * "threads" núcleos. Cabem no máximo threads + fila hashes ao mesmo tempo; acima disso
+ * a requisição recebe 503 com Retry-After na hora, em vez de ficar presa esperando.
+ * A importação em massa usa no máximo "threads" dessas vagas (somando todas as importações
+ * em andamento): login e cadastro sempre têm ao menos "fila" vagas, mesmo durante um lote.
+ *
+ * O custo (app.senha.bcrypt-custo) pode ser aumentado: hashes antigos, de custo menor,
+ * são refeitos no próximo login (upgradeEncoding + UserDetailsPasswordService).
+ *
+ * Métricas: senha.hash (latência por operação), senha.hash.fila, senha.hash.ativas
+ * e senha.hash.rejeitadas.
+ */
+@Component
+public class SenhaEncoder implements PasswordEncoder {
+
+    private final BCryptPasswordEncoder bcrypt;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore vagas;
+    private final Semaphore vagasLote; // parte das vagas que a importação pode ocupar
+    private final long retryAfterSegundos;
+
+    private final Timer tempoCodificar;
+    private final Timer tempoConferir;
+    private final Counter rejeitadas;
+
+    public SenhaEncoder(MeterRegistry meterRegistry,
+                        @Value("${app.senha.bcrypt-custo:10}") int custo,
+                        @Value("${app.senha.hash.threads:0}") int threads,
+                        @Value("${app.senha.hash.fila:64}") int fila,
+                        @Value("${app.senha.hash.retry-after:1s}") Duration retryAfter) {
+
+        this.bcrypt = new BCryptPasswordEncoder(custo);
+
+        int tamanho = (threads > 0) ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger contador = new AtomicInteger();
+
+        // a fila do executor não precisa de limite: quem limita é o semáforo
+        this.executor = new ThreadPoolExecutor(tamanho, tamanho, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "senha-hash-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.vagas = new Semaphore(tamanho + Math.max(fila, 0));
+        this.vagasLote = new Semaphore(tamanho);
+        this.retryAfterSegundos = Math.max(1, retryAfter.toSeconds());
+
+        this.tempoCodificar = Timer.builder("senha.hash").tag("operacao", "codificar")
+                .description("Tempo de BCrypt por senha").register(meterRegistry);
+        this.tempoConferir = Timer.builder("senha.hash").tag("operacao", "conferir")
+                .description("Tempo de BCrypt por senha").register(meterRegistry);
+        this.rejeitadas = Counter.builder("senha.hash.rejeitadas")
+                .description("Hashes recusados com 503 por falta de vaga").register(meterRegistry);
+
+        Gauge.builder("senha.hash.fila", executor, e -> e.getQueue().size())
+                .description("Hashes esperando uma thread livre").register(meterRegistry);
+        Gauge.builder("senha.hash.ativas", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hashes em execução").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String encode(CharSequence senha) {
+        return executar(tempoCodificar, () -> bcrypt.encode(senha));
+    }
+
+    @Override
+    public boolean matches(CharSequence senha, String hash) {
+        return executar(tempoConferir, () -> bcrypt.matches(senha, hash));
+    }
+
+    // só lê o custo gravado no hash: não precisa do pool
+    @Override
+    public boolean upgradeEncoding(String hash) {
+        return bcrypt.upgradeEncoding(hash);
+    }
+
+    /**
+     * Codifica várias senhas em paralelo (importação). Em vez de receber 503, espera
+     * vaga no pool: o lote anda no ritmo que o pool aguenta, sem passar do limite.
+     * Fica com no máximo vagasLote vagas por vez, então não tira a vez de login/cadastro.
+     */
+    public List<String> codificarTodas(List<String> senhas) {
+
+        List<Future<String>> futuros = new ArrayList<>(senhas.size());
+        for (String senha : senhas) {
+            try {
+                vagasLote.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // as já enviadas terminam e devolvem a vaga
+                throw new IllegalStateException("Interrompido esperando vaga para hash de senha.", e);
+            }
+            try {
+                vagas.acquire();
+            } catch (InterruptedException e) {
+                vagasLote.release();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrompido esperando vaga para hash de senha.", e);
+            }
+            futuros.add(enviar(tempoCodificar, () -> bcrypt.encode(senha), vagasLote));
+        }
+
+        List<String> hashes = new ArrayList<>(futuros.size());
+        for (Future<String> f : futuros) {
+            hashes.add(aguardar(f));
+        }
+        return hashes;
+    }
+
+    // ==========================
+    // POOL
+    // ==========================
+
+    private <T> T executar(Timer timer, Callable<T> tarefa) {
+        if (!vagas.tryAcquire()) {
+            rejeitadas.increment();
+            throw new ServicoIndisponivelException(
+                    "Muitos logins/cadastros ao mesmo tempo. Tente novamente em instantes.", retryAfterSegundos);
+        }
+        return aguardar(enviar(timer, tarefa, null));
+    }
+
+    // a vaga (e a de lote, se houver) já foi reservada por quem chama; é devolvida quando a tarefa termina
+    private <T> Future<T> enviar(Timer timer, Callable<T> tarefa, Semaphore lote) {
+        try {
+            return executor.submit(() -> {
+                try {
+                    return timer.recordCallable(tarefa);
+                } finally {
+                    vagas.release();
+                    if (lote != null) lote.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            vagas.release(); // só acontece no desligamento
+            if (lote != null) lote.release();
+            throw new ServicoIndisponivelException("Aplicação encerrando.", retryAfterSegundos);
+        }
+    }
+
+    private static <T> T aguardar(Future<T> futuro) {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido esperando hash de senha.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Falha ao calcular hash de senha.", e.getCause());
+        }
+    }
+}
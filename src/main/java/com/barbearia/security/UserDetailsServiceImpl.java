@@ -1,39 +1,109 @@
 package com.barbearia.security;
 
+import com.barbearia.config.CacheCarregavel;
 import com.barbearia.repository.UsuarioRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
+
+    // Só os dados do usuário ficam no cache. O User do Spring é montado a cada chamada
+    // porque o AuthenticationManager apaga a senha do objeto depois do login.
+    private record DadosUsuario(String email, String senha, String role) {}
 
     private final UsuarioRepository usuarioRepository;
+    private final CacheCarregavel<String, DadosUsuario> cache;
 
-    public UserDetailsServiceImpl(UsuarioRepository usuarioRepository) {
+    public UserDetailsServiceImpl(UsuarioRepository usuarioRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.cache.usuarios.tamanho-maximo:10000}") long tamanhoMaximo,
+                                  @Value("${app.cache.usuarios.ttl:10m}") Duration ttl) {
         this.usuarioRepository = usuarioRepository;
+        Cache<String, DadosUsuario> caffeine = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.cache = new CacheCarregavel<>(caffeine); // consulta ao banco fora do lock do cache
+
+        // hit/miss/evictions em /actuator/metrics/cache.gets?tag=cache:usuarios
+        CaffeineCacheMetrics.monitor(meterRegistry, caffeine, "usuarios");
     }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
 
-        var usuario = usuarioRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado: " + email));
+        DadosUsuario dados = cache.obter(email, this::carregar);
 
-        // Ajusta a role vinda do banco
-        // Ex: "ADMIN", "BARBEIRO", "USER"
-        String role = usuario.getRole();
+        if (dados == null) {
+            throw new UsernameNotFoundException("Usuário não encontrado: " + email);
+        }
+
+        return org.springframework.security.core.userdetails.User.builder()
+                .username(dados.email())
+                .password(dados.senha())
+                .roles(dados.role()) // <-- AGORA usa a role real do usuário
+                .build();
+    }
+
+    /**
+     * Chamado pelo DaoAuthenticationProvider depois de um login certo quando o hash salvo
+     * tem custo menor que app.senha.bcrypt-custo: grava o hash novo (o listener limpa o cache).
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String novaSenha) {
 
-        if (role == null || role.isBlank()) {
-            role = "USER";
+        usuarioRepository.findByEmail(user.getUsername()).ifPresent(usuario -> {
+            usuario.setSenha(novaSenha);
+            usuarioRepository.save(usuario);
+        });
+
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(novaSenha)
+                .build();
+    }
+
+    /**
+     * Remove o usuário do cache depois do commit (chamado sempre que um Usuario é salvo).
+     */
+    public void invalidar(String email) {
+        if (email == null) return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidar(email);
+                }
+            });
+        } else {
+            cache.invalidar(email);
         }
+    }
 
+    // null = não existe (não fica no cache)
+    private DadosUsuario carregar(String email) {
+
+        var usuario = usuarioRepository.findByEmail(email).orElse(null);
+        if (usuario == null) return null;
+
+        // Ajusta a role vinda do banco
+        // Ex: "ADMIN", "BARBEIRO", "USER"
         // remove "ROLE_" caso venha assim do banco, e deixa só "ADMIN"
-        role = role.replace("ROLE_", "").trim();
+        String role = JwtUtil.roleNormalizada(usuario.getRole());
 
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(usuario.getEmail())
-                .password(usuario.getSenha())
-                .roles(role) // <-- AGORA usa a role real do usuário
-                .build();
+        return new DadosUsuario(usuario.getEmail(), usuario.getSenha(), role);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,15 @@
+package com.barbearia.security;
+
+import java.security.Principal;
+
+/**
+ * Principal montado só a partir das claims do JWT (sem consultar o banco).
+ * getName() continua sendo o email, como no UserDetails.
+ */
+public record UsuarioAutenticado(String email, Long usuarioId, Long clienteId) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
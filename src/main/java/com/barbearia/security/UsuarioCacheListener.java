@@ -0,0 +1,33 @@
+package com.barbearia.security;
+
+import com.barbearia.model.Usuario;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA do Usuario: qualquer save (DataLoader, register, criação de barbeiro, revogação...)
+ * tira o usuário do cache de UserDetails e do cache de versão de token.
+ */
+@Component
+public class UsuarioCacheListener {
+
+    private final UserDetailsServiceImpl userDetailsService;
+    private final RevogacaoTokenService revogacaoTokenService;
+
+    public UsuarioCacheListener(@Lazy UserDetailsServiceImpl userDetailsService,
+                                @Lazy RevogacaoTokenService revogacaoTokenService) {
+        this.userDetailsService = userDetailsService;
+        this.revogacaoTokenService = revogacaoTokenService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void usuarioAlterado(Usuario usuario) {
+        userDetailsService.invalidar(usuario.getEmail());
+        revogacaoTokenService.invalidar(usuario.getEmail());
+    }
+}
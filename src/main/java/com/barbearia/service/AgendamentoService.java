@@ -5,6 +5,7 @@ import com.barbearia.exception.BusinessException;
 import com.barbearia.exception.ResourceNotFoundException;
 import com.barbearia.model.*;
 import com.barbearia.model.Agendamento.StatusAgendamento;
+import com.barbearia.model.EventoOutbox.TipoEvento;
 import com.barbearia.repository.AgendamentoRepository;
 import com.barbearia.repository.BarbeiroRepository;
 import com.barbearia.repository.ClienteRepository;
@@ -17,9 +18,9 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -27,22 +28,44 @@ public class AgendamentoService {
 
     private static final Logger log = LoggerFactory.getLogger(AgendamentoService.class);
 
-    private static final int DURACAO_FIXA_MIN = 30;
-    private static final DateTimeFormatter HORA_FMT = DateTimeFormatter.ofPattern("HH:mm");
+    // slots fixos das máscaras (grade e heatmap)
+    private static final int DURACAO_SLOT_MIN = DisponibilidadeIndex.DURACAO_SLOT_MIN;
+
+    // disponibilidade: granularidade dos blocos/horários quando o cliente não informa
+    private static final int GRANULARIDADE_PADRAO_MIN = 30;
+    private static final int GRANULARIDADE_MINIMA_MIN = 5;
+    private static final int GRANULARIDADE_MAXIMA_MIN = 240;
+    private static final int MAX_DIAS_GRADE = 31;
+    private static final int MAX_DIAS_HEATMAP = 366;
+    private static final int MAX_DIAS_BUSCA = 30;
+    private static final int HORARIOS_PADRAO = 5;
+    private static final int HORARIOS_MAXIMO = 50;
+    private static final int LIMITE_PADRAO = 50;
+    private static final int MAX_OCORRENCIAS = 52;
+    private static final int LIMITE_MAXIMO = 200;
 
     private final AgendamentoRepository agendamentoRepository;
     private final ClienteRepository clienteRepository;
     private final BarbeiroRepository barbeiroRepository;
     private final ServicoRepository servicoRepository;
+    private final DisponibilidadeIndex disponibilidadeIndex;
+    private final RelatorioAnaliticoService relatorioAnaliticoService;
+    private final OutboxService outboxService;
 
     public AgendamentoService(AgendamentoRepository agendamentoRepository,
                               ClienteRepository clienteRepository,
                               BarbeiroRepository barbeiroRepository,
-                              ServicoRepository servicoRepository) {
+                              ServicoRepository servicoRepository,
+                              DisponibilidadeIndex disponibilidadeIndex,
+                              RelatorioAnaliticoService relatorioAnaliticoService,
+                              OutboxService outboxService) {
         this.agendamentoRepository = agendamentoRepository;
         this.clienteRepository = clienteRepository;
         this.barbeiroRepository = barbeiroRepository;
         this.servicoRepository = servicoRepository;
+        this.disponibilidadeIndex = disponibilidadeIndex;
+        this.relatorioAnaliticoService = relatorioAnaliticoService;
+        this.outboxService = outboxService;
     }
 
     public AgendamentoResponse criar(AgendamentoRequest request) {
@@ -50,7 +73,8 @@ public class AgendamentoService {
         Cliente cliente = clienteRepository.findById(request.getClienteId())
                 .orElseThrow(() -> new ResourceNotFoundException("Cliente não encontrado: " + request.getClienteId()));
 
-        Barbeiro barbeiro = barbeiroRepository.findById(request.getBarbeiroId())
+        // trava o barbeiro: a checagem de conflito e o insert ficam atômicos por barbeiro
+        Barbeiro barbeiro = barbeiroRepository.findByIdParaAgendar(request.getBarbeiroId())
                 .orElseThrow(() -> new ResourceNotFoundException("Barbeiro não encontrado: " + request.getBarbeiroId()));
 
         Servico servico = servicoRepository.findById(request.getServicoId())
@@ -73,13 +97,175 @@ public class AgendamentoService {
         agendamento.setBarbeiro(barbeiro);
         agendamento.setServico(servico);
         agendamento.setDataHora(inicio);
+        agendamento.setDataHoraFim(fim);
         agendamento.setStatus(StatusAgendamento.AGENDADO);
         agendamento.setObservacao(request.getObservacao());
 
         agendamento = agendamentoRepository.save(agendamento);
+        disponibilidadeIndex.marcar(barbeiro.getId(), agendamento.getId(), inicio, fim);
+        relatorioAnaliticoService.invalidar(inicio.toLocalDate());
+        outboxService.registrar(TipoEvento.CRIADO, agendamento);
+
         return toResponse(agendamento);
     }
 
+    // ==========================
+    // AGENDAMENTO EM LOTE / RECORRENTE
+    // ==========================
+
+    /**
+     * Cria várias ocorrências de uma vez para o mesmo cliente, barbeiro e serviço.
+     * Cliente, barbeiro e serviço são lidos uma vez; os agendamentos existentes do período
+     * vêm de uma única consulta; os aceitos são inseridos em lote.
+     * Cada ocorrência volta com o seu resultado; as recusadas não impedem as demais.
+     */
+    public AgendamentoLoteResponse criarRecorrentes(AgendamentoRecorrenteRequest request) {
+
+        if (request.getClienteId() == null) throw new BusinessException("clienteId é obrigatório.");
+
+        List<LocalDateTime> datas = gerarOcorrencias(request);
+
+        Cliente cliente = clienteRepository.findById(request.getClienteId())
+                .orElseThrow(() -> new ResourceNotFoundException("Cliente não encontrado: " + request.getClienteId()));
+
+        // trava o barbeiro uma vez para o lote inteiro
+        Barbeiro barbeiro = barbeiroRepository.findByIdParaAgendar(request.getBarbeiroId())
+                .orElseThrow(() -> new ResourceNotFoundException("Barbeiro não encontrado: " + request.getBarbeiroId()));
+
+        Servico servico = servicoRepository.findById(request.getServicoId())
+                .orElseThrow(() -> new ResourceNotFoundException("Serviço não encontrado: " + request.getServicoId()));
+
+        LocalDate primeiroDia = datas.get(0).toLocalDate();
+        LocalDate ultimoDia = datas.get(datas.size() - 1).toLocalDate();
+
+        // uma consulta para o período todo, separada por dia
+        Map<LocalDate, IntervalosOcupados> ocupadosPorDia = new HashMap<>();
+        List<Object[]> existentes = agendamentoRepository.findIntervalosAgendadosByBarbeirosAndPeriodo(
+                List.of(barbeiro.getId()),
+                primeiroDia.atStartOfDay(),
+                ultimoDia.plusDays(1).atStartOfDay()
+        );
+        for (Object[] linha : existentes) {
+            LocalDateTime aInicio = (LocalDateTime) linha[1];
+            LocalDateTime aFim = (LocalDateTime) linha[2];
+            if (aInicio == null || aFim == null) continue;
+
+            LocalDate dia = aInicio.toLocalDate();
+            ocupadosPorDia.put(dia, ocupadosPorDia.getOrDefault(dia, IntervalosOcupados.VAZIO).com(0,
+                    DisponibilidadeIndex.minutoDoDia(aInicio.toLocalTime()),
+                    DisponibilidadeIndex.minutoFim(aInicio, aFim)));
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        List<OcorrenciaAgendamento> resultados = new ArrayList<>(datas.size());
+        List<Agendamento> novos = new ArrayList<>();
+        Map<Agendamento, OcorrenciaAgendamento> resultadoDe = new IdentityHashMap<>();
+
+        for (LocalDateTime inicio : datas) {
+            LocalDateTime fim = inicio.plusMinutes(servico.getDuracaoMinutos());
+
+            if (inicio.isBefore(agora)) {
+                resultados.add(new OcorrenciaAgendamento(inicio, "DATA_PASSADA", "Não é permitido agendar em data passada."));
+                continue;
+            }
+
+            if (!dentroDoExpediente(barbeiro, inicio, fim)) {
+                resultados.add(new OcorrenciaAgendamento(inicio, "FORA_EXPEDIENTE", "Horário fora do expediente do barbeiro."));
+                continue;
+            }
+
+            LocalDate dia = inicio.toLocalDate();
+            int minInicio = DisponibilidadeIndex.minutoDoDia(inicio.toLocalTime());
+            int minFim = DisponibilidadeIndex.minutoFim(inicio, fim);
+            IntervalosOcupados ocupados = ocupadosPorDia.getOrDefault(dia, IntervalosOcupados.VAZIO);
+
+            if (ocupados.sobrepoe(minInicio, minFim)) {
+                resultados.add(new OcorrenciaAgendamento(inicio, "CONFLITO", "Já existe um agendamento neste horário."));
+                continue;
+            }
+
+            // ocorrências aceitas também ocupam o horário para as próximas do lote
+            ocupadosPorDia.put(dia, ocupados.com(0, minInicio, minFim));
+
+            Agendamento agendamento = new Agendamento();
+            agendamento.setCliente(cliente);
+            agendamento.setBarbeiro(barbeiro);
+            agendamento.setServico(servico);
+            agendamento.setDataHora(inicio);
+            agendamento.setDataHoraFim(fim);
+            agendamento.setStatus(StatusAgendamento.AGENDADO);
+            agendamento.setObservacao(request.getObservacao());
+            novos.add(agendamento);
+
+            OcorrenciaAgendamento ok = new OcorrenciaAgendamento(inicio, "CRIADO", null);
+            resultados.add(ok);
+            resultadoDe.put(agendamento, ok);
+        }
+
+        // ids vêm da sequência (em blocos), então os inserts saem em lote no flush
+        agendamentoRepository.saveAll(novos);
+
+        LocalDate[] diasAfetados = new LocalDate[novos.size()];
+        for (int i = 0; i < novos.size(); i++) {
+            Agendamento a = novos.get(i);
+            resultadoDe.get(a).setAgendamentoId(a.getId());
+            disponibilidadeIndex.marcar(barbeiro.getId(), a.getId(), a.getDataHora(), a.getDataHoraFim());
+            diasAfetados[i] = a.getDataHora().toLocalDate();
+        }
+        relatorioAnaliticoService.invalidar(diasAfetados);
+        outboxService.registrarTodos(TipoEvento.CRIADO, novos);
+
+        AgendamentoLoteResponse resp = new AgendamentoLoteResponse();
+        resp.setCriados(novos.size());
+        resp.setRecusados(resultados.size() - novos.size());
+        resp.setOcorrencias(resultados);
+
+        return resp;
+    }
+
+    // datas do lote, em ordem: a lista enviada ou a recorrência
+    private List<LocalDateTime> gerarOcorrencias(AgendamentoRecorrenteRequest request) {
+
+        List<LocalDateTime> datas = new ArrayList<>();
+
+        if (request.getDatasHoras() != null && !request.getDatasHoras().isEmpty()) {
+            for (LocalDateTime d : request.getDatasHoras()) {
+                if (d == null) throw new BusinessException("datasHoras não pode ter valores nulos.");
+                datas.add(d);
+            }
+        } else {
+            LocalDateTime primeira = request.getPrimeiraDataHora();
+            if (primeira == null)
+                throw new BusinessException("Informe datasHoras ou primeiraDataHora.");
+
+            int intervalo = (request.getIntervaloDias() == null) ? 7 : request.getIntervaloDias();
+            if (intervalo < 1 || intervalo > 365)
+                throw new BusinessException("intervaloDias deve estar entre 1 e 365.");
+
+            if (request.getOcorrencias() == null && request.getDataFim() == null)
+                throw new BusinessException("Informe ocorrencias ou dataFim.");
+
+            if (request.getOcorrencias() != null && request.getOcorrencias() < 1)
+                throw new BusinessException("ocorrencias deve ser maior que 0.");
+
+            for (LocalDateTime d = primeira; ; d = d.plusDays(intervalo)) {
+                if (request.getOcorrencias() != null && datas.size() >= request.getOcorrencias()) break;
+                if (request.getDataFim() != null && d.toLocalDate().isAfter(request.getDataFim())) break;
+                if (datas.size() > MAX_OCORRENCIAS) break;
+                datas.add(d);
+            }
+        }
+
+        if (datas.isEmpty())
+            throw new BusinessException("Nenhuma ocorrência no período informado.");
+
+        if (datas.size() > MAX_OCORRENCIAS)
+            throw new BusinessException("Máximo de " + MAX_OCORRENCIAS + " ocorrências por lote.");
+
+        Collections.sort(datas);
+        return datas;
+    }
+
     public AgendamentoResponse atualizar(Long id, AgendamentoUpdateRequest request) {
 
         Agendamento agendamento = buscarPorId(id);
@@ -90,27 +276,63 @@ public class AgendamentoService {
         if (agendamento.getStatus() == StatusAgendamento.CONCLUIDO)
             throw new BusinessException("Não é possível atualizar um agendamento concluído.");
 
-        if (request.getDataHora() != null) {
+        LocalDateTime inicioAnterior = agendamento.getDataHora();
+        LocalDateTime fimAnterior = agendamento.getDataHoraFim();
+        StatusAgendamento statusAnterior = agendamento.getStatus();
 
-            LocalDateTime novoInicio = request.getDataHora();
-            LocalDateTime novoFim = novoInicio.plusMinutes(agendamento.getServico().getDuracaoMinutos());
+        if (request.getStatus() != null && !request.getStatus().isBlank())
+            agendamento.setStatus(request.getStatus());
+
+        // voltar para AGENDADO (de NAO_COMPARECEU) ocupa de novo um horário que o índice já
+        // liberou e que outro cliente pode ter pego: passa pela mesma checagem de conflito
+        boolean reabrindo = agendamento.getStatus() == StatusAgendamento.AGENDADO
+                && statusAnterior != StatusAgendamento.AGENDADO;
+
+        if (request.getDataHora() != null || reabrindo) {
 
-            if (novoInicio.isBefore(LocalDateTime.now()))
+            LocalDateTime novoInicio = (request.getDataHora() != null) ? request.getDataHora() : inicioAnterior;
+            LocalDateTime novoFim = (request.getDataHora() == null && fimAnterior != null)
+                    ? fimAnterior
+                    : novoInicio.plusMinutes(agendamento.getServico().getDuracaoMinutos());
+
+            if (request.getDataHora() != null && novoInicio.isBefore(LocalDateTime.now()))
                 throw new BusinessException("Não é permitido remarcar para data passada.");
 
-            validarHorarioTrabalho(agendamento.getBarbeiro(), novoInicio, novoFim);
-            validarConflito(agendamento.getBarbeiro().getId(), id, novoInicio, novoFim);
+            // trava o barbeiro (como em criar): a checagem de conflito e o update ficam atômicos
+            Long barbeiroId = agendamento.getBarbeiro().getId();
+            Barbeiro barbeiro = barbeiroRepository.findByIdParaAgendar(barbeiroId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Barbeiro não encontrado: " + barbeiroId));
+
+            if (request.getDataHora() != null) validarHorarioTrabalho(barbeiro, novoInicio, novoFim);
+            validarConflito(barbeiro.getId(), id, novoInicio, novoFim);
 
             agendamento.setDataHora(novoInicio);
-        }
+            agendamento.setDataHoraFim(novoFim);
 
-        if (request.getStatus() != null && !request.getStatus().isBlank())
-            agendamento.setStatus(request.getStatus());
+            // horário novo: os lembretes valem de novo
+            if (!novoInicio.equals(inicioAnterior)) {
+                agendamento.setLembrete24hEnviadoEm(null);
+                agendamento.setLembrete1hEnviadoEm(null);
+            }
+        }
 
         if (request.getObservacao() != null)
             agendamento.setObservacao(request.getObservacao());
 
-        return toResponse(agendamentoRepository.save(agendamento));
+        agendamento = agendamentoRepository.save(agendamento);
+        atualizarIndice(agendamento, inicioAnterior, fimAnterior, statusAnterior);
+        relatorioAnaliticoService.invalidar(inicioAnterior.toLocalDate(), agendamento.getDataHora().toLocalDate());
+
+        if (agendamento.getStatus() == StatusAgendamento.CANCELADO) {
+            outboxService.registrar(TipoEvento.CANCELADO, agendamento);
+        } else if (agendamento.getStatus() == StatusAgendamento.NAO_COMPARECEU
+                && statusAnterior != StatusAgendamento.NAO_COMPARECEU) {
+            outboxService.registrar(TipoEvento.NAO_COMPARECEU, agendamento);
+        } else if (!agendamento.getDataHora().equals(inicioAnterior)) {
+            outboxService.registrar(TipoEvento.REMARCADO, agendamento, inicioAnterior);
+        }
+
+        return toResponse(agendamento);
     }
 
     public void cancelar(Long id) {
@@ -125,146 +347,493 @@ public class AgendamentoService {
 
         agendamento.setStatus(StatusAgendamento.CANCELADO);
         agendamentoRepository.save(agendamento);
+
+        disponibilidadeIndex.liberar(agendamento.getBarbeiro().getId(), agendamento.getId(),
+                agendamento.getDataHora(), agendamento.getDataHoraFim());
+        relatorioAnaliticoService.invalidar(agendamento.getDataHora().toLocalDate());
+        outboxService.registrar(TipoEvento.CANCELADO, agendamento);
+    }
+
+    /**
+     * Marca como NAO_COMPARECEU o agendamento que terminou sem pagamento (LembreteService).
+     * Só altera se ainda estiver AGENDADO e com o mesmo fim do alarme: remarcado, cancelado
+     * ou pago nesse meio tempo, devolve false e não faz nada.
+     */
+    public boolean marcarNaoComparecimento(Long id, LocalDateTime fimEsperado) {
+
+        // update condicional: um pagamento que commitou depois do alarme não é sobrescrito
+        if (agendamentoRepository.marcarNaoComparecimento(id, fimEsperado) == 0) return false;
+
+        Agendamento agendamento = buscarPorId(id);
+
+        disponibilidadeIndex.liberar(agendamento.getBarbeiro().getId(), agendamento.getId(),
+                agendamento.getDataHora(), agendamento.getDataHoraFim());
+        relatorioAnaliticoService.invalidar(agendamento.getDataHora().toLocalDate());
+        outboxService.registrar(TipoEvento.NAO_COMPARECEU, agendamento);
+
+        return true;
     }
 
+    // ==========================
+    // LISTAGEM PAGINADA (keyset em dataHora/id, mais recentes primeiro)
+    // ==========================
     @Transactional(readOnly = true)
-    public List<AgendamentoResponse> listarTodos() {
-        return agendamentoRepository.findAll()
-                .stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+    public PaginaAgendamentosResponse listarPagina(String status, Long barbeiroId, Long clienteId,
+                                                   LocalDate dataInicio, LocalDate dataFim,
+                                                   String cursor, Integer limite) {
+
+        int tamanho = (limite == null) ? LIMITE_PADRAO : limite;
+        if (tamanho < 1 || tamanho > LIMITE_MAXIMO)
+            throw new BusinessException("limite deve estar entre 1 e " + LIMITE_MAXIMO + ".");
+
+        if (dataInicio != null && dataFim != null && dataFim.isBefore(dataInicio))
+            throw new BusinessException("dataFim não pode ser antes de dataInicio.");
+
+        StatusAgendamento statusFiltro = null;
+        if (status != null && !status.isBlank()) {
+            try {
+                statusFiltro = StatusAgendamento.valueOf(status.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new BusinessException("Status inválido. Use: AGENDADO, CANCELADO, CONCLUIDO, NAO_COMPARECEU");
+            }
+        }
+
+        LocalDateTime cursorDataHora = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            int sep = cursor.lastIndexOf(',');
+            try {
+                cursorDataHora = LocalDateTime.parse(cursor.substring(0, sep));
+                cursorId = Long.valueOf(cursor.substring(sep + 1));
+            } catch (RuntimeException e) {
+                throw new BusinessException("cursor inválido.");
+            }
+        }
+
+        // busca um a mais só para saber se existe próxima página
+        List<AgendamentoResponse> itens = agendamentoRepository.findPagina(
+                statusFiltro,
+                barbeiroId,
+                clienteId,
+                dataInicio != null ? dataInicio.atStartOfDay() : null,
+                dataFim != null ? dataFim.plusDays(1).atStartOfDay() : null,
+                cursorDataHora,
+                cursorId,
+                tamanho + 1
+        );
+
+        PaginaAgendamentosResponse pagina = new PaginaAgendamentosResponse();
+
+        if (itens.size() > tamanho) {
+            itens = new ArrayList<>(itens.subList(0, tamanho));
+            AgendamentoResponse ultimo = itens.get(tamanho - 1);
+            pagina.setProximoCursor(ultimo.getDataHora() + "," + ultimo.getId());
+        }
+
+        pagina.setItens(itens);
+        return pagina;
     }
 
     @Transactional(readOnly = true)
     public List<AgendamentoResponse> listarPorCliente(Long clienteId) {
-        return agendamentoRepository.findByClienteId(clienteId)
-                .stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+        return agendamentoRepository.findResponsesByClienteId(clienteId);
     }
 
     @Transactional(readOnly = true)
     public List<AgendamentoResponse> listarPorBarbeiro(Long barbeiroId) {
-        return agendamentoRepository.findByBarbeiroId(barbeiroId)
-                .stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+        return agendamentoRepository.findResponsesByBarbeiroId(barbeiroId);
     }
 
     // ==========================
     // ✅ NOVO: DISPONIBILIDADE (CLIENTE/ADMIN)
     // ==========================
+    // Blocos ocupados na granularidade pedida (padrão 30 min) e horários livres
+    // para o serviço (ou, sem serviço, para um bloco da granularidade).
     @Transactional(readOnly = true)
-    public DisponibilidadeResponse getDisponibilidade(Long barbeiroId, LocalDate data) {
+    public DisponibilidadeResponse getDisponibilidade(Long barbeiroId, LocalDate data,
+                                                      Long servicoId, Integer granularidade) {
 
-        if (barbeiroId == null) throw new BusinessException("barbeiroId é obrigatório.");
-        if (data == null) throw new BusinessException("data é obrigatória (formato YYYY-MM-DD).");
+        int passo = validarDisponibilidade(barbeiroId, data, granularidade);
+
+        int duracao = passo;
+        if (servicoId != null) {
+            Servico servico = servicoRepository.findById(servicoId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Serviço não encontrado: " + servicoId));
+            duracao = servico.getDuracaoMinutos();
+        }
 
         Barbeiro barbeiro = barbeiroRepository.findById(barbeiroId)
                 .orElseThrow(() -> new ResourceNotFoundException("Barbeiro não encontrado: " + barbeiroId));
 
-        LocalTime horaEntrada = barbeiro.getHoraEntrada();
-        LocalTime horaSaida = barbeiro.getHoraSaida();
+        // intervalos vêm do índice em memória (só consulta o banco na primeira vez do dia)
+        IntervalosOcupados dia = disponibilidadeIndex.intervalos(barbeiroId, data);
+
+        return montarDisponibilidade(barbeiroId, data, passo, duracao,
+                barbeiro.getHoraEntrada(), barbeiro.getHoraSaida(), dia);
+    }
+
+    /**
+     * Valida os parâmetros da disponibilidade e devolve a granularidade (passo) em minutos.
+     * Usado também pela leitura reativa (DisponibilidadeReativaService).
+     */
+    static int validarDisponibilidade(Long barbeiroId, LocalDate data, Integer granularidade) {
+
+        if (barbeiroId == null) throw new BusinessException("barbeiroId é obrigatório.");
+        if (data == null) throw new BusinessException("data é obrigatória (formato YYYY-MM-DD).");
+
+        int passo = (granularidade == null) ? GRANULARIDADE_PADRAO_MIN : granularidade;
+        if (passo < GRANULARIDADE_MINIMA_MIN || passo > GRANULARIDADE_MAXIMA_MIN)
+            throw new BusinessException("granularidade deve estar entre " + GRANULARIDADE_MINIMA_MIN
+                    + " e " + GRANULARIDADE_MAXIMA_MIN + " minutos.");
+
+        return passo;
+    }
+
+    static DisponibilidadeResponse montarDisponibilidade(Long barbeiroId, LocalDate data, int passo, int duracao,
+                                                         LocalTime horaEntrada, LocalTime horaSaida,
+                                                         IntervalosOcupados dia) {
 
         if (horaEntrada == null || horaSaida == null) {
             throw new BusinessException("Barbeiro sem horário de trabalho configurado (horaEntrada/horaSaida).");
         }
 
-        LocalDateTime inicioDia = data.atStartOfDay();
-        LocalDateTime fimDia = data.plusDays(1).atStartOfDay();
+        int entrada = DisponibilidadeIndex.minutoDoDia(horaEntrada);
+        int saida = DisponibilidadeIndex.minutoDoDia(horaSaida);
 
-        // pegamos apenas AGENDADO para bloquear horários ocupados
-        List<Agendamento> agendados = agendamentoRepository.findAgendadosByBarbeiroAndDia(barbeiroId, inicioDia, fimDia);
+        List<Integer> ocupados = dia.blocosOcupados(entrada, saida, passo);
+        List<Integer> livres = dia.iniciosLivres(entrada, saida, duracao, passo,
+                primeiroMinutoLivre(data, LocalDateTime.now()), Integer.MAX_VALUE);
 
-        // usamos Set para não repetir e já ordenar depois
-        Set<String> ocupados = new HashSet<>();
+        DisponibilidadeResponse resp = new DisponibilidadeResponse();
+        resp.setBarbeiroId(barbeiroId);
+        resp.setData(data);
+        resp.setDuracaoMin(passo);
+        resp.setHoraEntrada(horaEntrada);
+        resp.setHoraSaida(horaSaida);
+        resp.setOcupados(DisponibilidadeIndex.rotulos(ocupados));
+        resp.setLivres(DisponibilidadeIndex.rotulos(livres));
 
-        for (Agendamento a : agendados) {
-            if (a.getDataHora() == null) continue;
+        return resp;
+    }
 
-            LocalDateTime aInicio = a.getDataHora();
+    // ==========================
+    // GRADE DE DISPONIBILIDADE (vários dias x vários barbeiros)
+    // ==========================
+    @Transactional(readOnly = true)
+    public GradeDisponibilidadeResponse getGradeDisponibilidade(LocalDate dataInicio, LocalDate dataFim,
+                                                                List<Long> barbeiroIds) {
+
+        if (dataInicio == null || dataFim == null)
+            throw new BusinessException("dataInicio e dataFim são obrigatórios.");
+
+        if (dataFim.isBefore(dataInicio))
+            throw new BusinessException("dataFim não pode ser antes de dataInicio.");
+
+        int dias = (int) ChronoUnit.DAYS.between(dataInicio, dataFim) + 1;
+        if (dias > MAX_DIAS_GRADE)
+            throw new BusinessException("Período máximo da grade é de " + MAX_DIAS_GRADE + " dias.");
+
+        List<Barbeiro> barbeiros;
+        if (barbeiroIds == null || barbeiroIds.isEmpty()) {
+            barbeiros = barbeiroRepository.findByAtivoTrue();
+        } else {
+            barbeiros = barbeiroRepository.findAllById(barbeiroIds);
+            if (barbeiros.size() != new HashSet<>(barbeiroIds).size())
+                throw new ResourceNotFoundException("Barbeiro não encontrado na lista: " + barbeiroIds);
+        }
 
-            // Se sua entidade calcula dataHoraFim certinho, usamos ela.
-            // Se vier null (por algum motivo), calculamos pelo serviço.
-            LocalDateTime aFim = a.getDataHoraFim();
-            if (aFim == null) {
-                if (a.getServico() == null || a.getServico().getDuracaoMinutos() == null) continue;
-                aFim = aInicio.plusMinutes(a.getServico().getDuracaoMinutos());
+        // uma linha de máscaras (uma por dia) para cada barbeiro
+        Map<Long, long[]> grade = new HashMap<>();
+        for (Barbeiro b : barbeiros) {
+            grade.put(b.getId(), new long[dias]);
+        }
+
+        if (!grade.isEmpty()) {
+            // uma única consulta para o período todo; a grade é montada em uma passada
+            List<Object[]> intervalos = agendamentoRepository.findIntervalosAgendadosByBarbeirosAndPeriodo(
+                    grade.keySet(),
+                    dataInicio.atStartOfDay(),
+                    dataFim.plusDays(1).atStartOfDay()
+            );
+
+            for (Object[] linha : intervalos) {
+                Long barbeiroId = (Long) linha[0];
+                LocalDateTime aInicio = (LocalDateTime) linha[1];
+                LocalDateTime aFim = (LocalDateTime) linha[2];
+                if (aInicio == null || aFim == null) continue;
+
+                int dia = (int) ChronoUnit.DAYS.between(dataInicio, aInicio.toLocalDate());
+                grade.get(barbeiroId)[dia] |= DisponibilidadeIndex.mascaraIntervalo(aInicio, aFim);
             }
+        }
 
-            // slot começa em aInicio e vai de 30 em 30 até antes do fim
-            LocalDateTime slot = aInicio;
-            while (slot.isBefore(aFim)) {
-                LocalTime t = slot.toLocalTime();
+        List<GradeBarbeiro> linhas = new ArrayList<>(barbeiros.size());
+        for (Barbeiro b : barbeiros) {
+            long expediente = DisponibilidadeIndex.mascaraExpediente(b.getHoraEntrada(), b.getHoraSaida());
+            long[] ocupados = grade.get(b.getId());
+            for (int i = 0; i < ocupados.length; i++) {
+                ocupados[i] &= expediente;
+            }
 
-                // respeita expediente do barbeiro
-                if (!t.isBefore(horaEntrada) && t.isBefore(horaSaida)) {
-                    ocupados.add(t.format(HORA_FMT));
-                }
+            GradeBarbeiro linha = new GradeBarbeiro();
+            linha.setBarbeiroId(b.getId());
+            linha.setHoraEntrada(b.getHoraEntrada());
+            linha.setHoraSaida(b.getHoraSaida());
+            linha.setOcupados(ocupados);
+            linhas.add(linha);
+        }
 
-                slot = slot.plusMinutes(DURACAO_FIXA_MIN);
-            }
+        GradeDisponibilidadeResponse resp = new GradeDisponibilidadeResponse();
+        resp.setDataInicio(dataInicio);
+        resp.setDataFim(dataFim);
+        resp.setDuracaoMin(DURACAO_SLOT_MIN);
+        resp.setBarbeiros(linhas);
+
+        return resp;
+    }
+
+    // ==========================
+    // PRÓXIMOS HORÁRIOS LIVRES DE UM SERVIÇO (todos os barbeiros que o fazem)
+    // ==========================
+    @Transactional(readOnly = true)
+    public ProximosHorariosResponse buscarProximosHorarios(Long servicoId, Integer limite) {
+
+        if (servicoId == null) throw new BusinessException("servicoId é obrigatório.");
+
+        Servico servico = servicoRepository.findById(servicoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Serviço não encontrado: " + servicoId));
+
+        int n = (limite == null) ? HORARIOS_PADRAO : Math.min(Math.max(limite, 1), HORARIOS_MAXIMO);
+        int duracao = servico.getDuracaoMinutos();
+
+        List<Barbeiro> barbeiros = barbeiroRepository.findAtivosByServicoId(servicoId);
+
+        LocalDateTime agora = LocalDateTime.now();
+        List<HorarioDisponivel> encontrados = new ArrayList<>();
+
+        List<Long> barbeiroIds = barbeiros.stream().map(Barbeiro::getId).toList();
+
+        // dia a dia: os dias que faltam no índice vêm numa consulta só, nesta thread;
+        // depois os barbeiros são varridos em paralelo só em memória (sem JDBC no common pool).
+        // Qualquer horário de um dia é anterior aos do dia seguinte, então basta
+        // juntar N horários para parar.
+        for (int d = 0; d < MAX_DIAS_BUSCA && encontrados.size() < n && !barbeiros.isEmpty(); d++) {
+            LocalDate data = agora.toLocalDate().plusDays(d);
+            Map<Long, IntervalosOcupados> doDia = disponibilidadeIndex.intervalos(barbeiroIds, data);
+
+            barbeiros.parallelStream()
+                    .map(b -> horariosLivres(b, doDia.get(b.getId()), data, duracao, agora, n))
+                    .forEachOrdered(encontrados::addAll);
         }
 
-        List<String> ocupadosOrdenados = ocupados.stream()
-                .sorted()
-                .collect(Collectors.toList());
+        encontrados.sort(Comparator.comparing(HorarioDisponivel::getInicio)
+                .thenComparing(HorarioDisponivel::getBarbeiroId));
 
-        DisponibilidadeResponse resp = new DisponibilidadeResponse();
-        resp.setBarbeiroId(barbeiroId);
-        resp.setData(data);
-        resp.setDuracaoMin(DURACAO_FIXA_MIN);
-        resp.setHoraEntrada(horaEntrada);
-        resp.setHoraSaida(horaSaida);
-        resp.setOcupados(ocupadosOrdenados);
+        ProximosHorariosResponse resp = new ProximosHorariosResponse();
+        resp.setServicoId(servico.getId());
+        resp.setServicoNome(servico.getNome());
+        resp.setDuracaoMinutos(duracao);
+        resp.setHorarios(encontrados.size() > n ? new ArrayList<>(encontrados.subList(0, n)) : encontrados);
 
         return resp;
     }
 
-    private void validarHorarioTrabalho(Barbeiro barbeiro, LocalDateTime inicio, LocalDateTime fim) {
+    // até "maximo" inícios livres do barbeiro no dia, em ordem, alinhados ao expediente
+    private static List<HorarioDisponivel> horariosLivres(Barbeiro b, IntervalosOcupados ocupados, LocalDate data,
+                                                          int duracao, LocalDateTime agora, int maximo) {
 
-        LocalTime horaInicio = inicio.toLocalTime();
-        LocalTime horaFim = fim.toLocalTime();
+        if (b.getHoraEntrada() == null || b.getHoraSaida() == null) return List.of();
 
-        if (horaInicio.isBefore(barbeiro.getHoraEntrada())
-                || horaFim.isAfter(barbeiro.getHoraSaida())
-                || horaInicio.equals(barbeiro.getHoraSaida())) {
+        List<Integer> inicios = ocupados.iniciosLivres(
+                DisponibilidadeIndex.minutoDoDia(b.getHoraEntrada()),
+                DisponibilidadeIndex.minutoDoDia(b.getHoraSaida()),
+                duracao, GRANULARIDADE_PADRAO_MIN, primeiroMinutoLivre(data, agora), maximo);
 
-            throw new BusinessException("Horário fora do expediente do barbeiro.");
+        List<HorarioDisponivel> livres = new ArrayList<>(inicios.size());
+        for (int minuto : inicios) {
+            LocalDateTime inicio = data.atStartOfDay().plusMinutes(minuto);
+            livres.add(new HorarioDisponivel(b.getId(), b.getNome(), inicio, inicio.plusMinutes(duracao)));
         }
+        return livres;
     }
 
-    private void validarConflito(Long barbeiroId, Long agendamentoIdExcluir,
-                                 LocalDateTime inicio, LocalDateTime fim) {
+    // primeiro minuto do dia que ainda pode ser agendado (nada em dia passado)
+    private static int primeiroMinutoLivre(LocalDate data, LocalDateTime agora) {
+        if (data.isBefore(agora.toLocalDate())) return IntervalosOcupados.MINUTOS_DIA;
+        if (data.isAfter(agora.toLocalDate())) return 0;
 
-        LocalDate dia = inicio.toLocalDate();
+        LocalTime hora = agora.toLocalTime();
+        return DisponibilidadeIndex.minutoDoDia(hora) + (hora.getSecond() > 0 || hora.getNano() > 0 ? 1 : 0);
+    }
 
-        List<Agendamento> agendamentosDoDia = agendamentoRepository.findByBarbeiroAndDia(
-                barbeiroId,
-                dia.atStartOfDay(),
-                dia.plusDays(1).atStartOfDay()
-        );
+    // ==========================
+    // HEATMAP DE OCUPAÇÃO (barbeiro x dia da semana x slot)
+    // ==========================
+    @Transactional(readOnly = true)
+    public HeatmapOcupacaoResponse getHeatmapOcupacao(LocalDate dataInicio, LocalDate dataFim,
+                                                      List<Long> barbeiroIds) {
+
+        if (dataInicio == null || dataFim == null)
+            throw new BusinessException("dataInicio e dataFim são obrigatórios.");
+
+        if (dataFim.isBefore(dataInicio))
+            throw new BusinessException("dataFim não pode ser antes de dataInicio.");
+
+        int dias = (int) ChronoUnit.DAYS.between(dataInicio, dataFim) + 1;
+        if (dias > MAX_DIAS_HEATMAP)
+            throw new BusinessException("Período máximo do heatmap é de " + MAX_DIAS_HEATMAP + " dias.");
+
+        List<Barbeiro> barbeiros;
+        if (barbeiroIds == null || barbeiroIds.isEmpty()) {
+            barbeiros = barbeiroRepository.findByAtivoTrue();
+        } else {
+            barbeiros = barbeiroRepository.findAllById(barbeiroIds);
+            if (barbeiros.size() != new HashSet<>(barbeiroIds).size())
+                throw new ResourceNotFoundException("Barbeiro não encontrado na lista: " + barbeiroIds);
+        }
 
-        boolean temConflito = agendamentosDoDia.stream()
-                .filter(a -> agendamentoIdExcluir == null || !a.getId().equals(agendamentoIdExcluir))
-                .filter(a -> a.getStatus() == StatusAgendamento.AGENDADO) // evita conflito com CANCELADO/CONCLUIDO
-                .anyMatch(a -> {
-                    LocalDateTime aInicio = a.getDataHora();
-                    LocalDateTime aFim = a.getDataHoraFim();
+        // sem expediente cadastrado não há ocupação a calcular (como em minutosExpediente do analítico)
+        barbeiros = barbeiros.stream()
+                .filter(b -> b.getHoraEntrada() != null && b.getHoraSaida() != null)
+                .toList();
 
-                    if (aInicio == null) return false;
+        final int slots = DisponibilidadeIndex.SLOTS_POR_DIA;
+        final int celulasPorBarbeiro = 7 * slots;
 
-                    // fallback se dataHoraFim vier null
-                    if (aFim == null && a.getServico() != null && a.getServico().getDuracaoMinutos() != null) {
-                        aFim = aInicio.plusMinutes(a.getServico().getDuracaoMinutos());
-                    }
+        // posição de cada barbeiro no array de minutos ocupados
+        Map<Long, Integer> posicao = new HashMap<>();
+        for (int i = 0; i < barbeiros.size(); i++) {
+            posicao.put(barbeiros.get(i).getId(), i);
+        }
 
-                    return aFim != null
-                            && inicio.isBefore(aFim)
-                            && fim.isAfter(aInicio);
+        // minutos ocupados em [barbeiro][dia da semana][slot], achatado em um único int[]
+        int[] minutos = new int[barbeiros.size() * celulasPorBarbeiro];
+
+        if (!barbeiros.isEmpty()) {
+            // uma passada em cursor sobre o período; nada é acumulado por linha além dos ints
+            try (Stream<HeatmapIntervalo> linhas = agendamentoRepository.streamIntervalosOcupados(
+                    posicao.keySet(),
+                    dataInicio.atStartOfDay(),
+                    dataFim.plusDays(1).atStartOfDay()
+            )) {
+                linhas.forEach(linha -> {
+                    int base = posicao.get(linha.getBarbeiroId()) * celulasPorBarbeiro
+                            + linha.getDiaSemana() * slots;
+                    acumularMinutos(minutos, base, linha.getMinInicio(), linha.getMinFim());
                 });
+            }
+        }
+
+        // quantas vezes cada dia da semana aparece no período
+        int[] ocorrencias = new int[7];
+        for (int d = 0; d < 7 && d < dias; d++) {
+            int diaSemana = dataInicio.plusDays(d).getDayOfWeek().getValue() - 1;
+            ocorrencias[diaSemana] = (dias - d + 6) / 7;
+        }
+
+        List<HeatmapBarbeiro> linhas = new ArrayList<>(barbeiros.size());
+        for (int i = 0; i < barbeiros.size(); i++) {
+            Barbeiro b = barbeiros.get(i);
+
+            // minutos de expediente de cada slot (igual para todos os dias da semana)
+            int[] expediente = new int[slots];
+            acumularMinutos(expediente, 0,
+                    b.getHoraEntrada().toSecondOfDay() / 60,
+                    b.getHoraSaida().toSecondOfDay() / 60);
+
+            double[][] ocupacao = new double[7][slots];
+            int base = i * celulasPorBarbeiro;
+            for (int diaSemana = 0; diaSemana < 7; diaSemana++) {
+                for (int s = 0; s < slots; s++) {
+                    long disponivel = (long) expediente[s] * ocorrencias[diaSemana];
+                    if (disponivel == 0) continue;
+                    int ocupado = minutos[base + diaSemana * slots + s];
+                    ocupacao[diaSemana][s] = Math.round(ocupado * 1000.0 / disponivel) / 10.0;
+                }
+            }
+
+            HeatmapBarbeiro linha = new HeatmapBarbeiro();
+            linha.setBarbeiroId(b.getId());
+            linha.setNome(b.getNome());
+            linha.setHoraEntrada(b.getHoraEntrada());
+            linha.setHoraSaida(b.getHoraSaida());
+            linha.setOcupacao(ocupacao);
+            linhas.add(linha);
+        }
+
+        HeatmapOcupacaoResponse resp = new HeatmapOcupacaoResponse();
+        resp.setDataInicio(dataInicio);
+        resp.setDataFim(dataFim);
+        resp.setDuracaoMin(DURACAO_SLOT_MIN);
+        resp.setBarbeiros(linhas);
+
+        return resp;
+    }
+
+    // soma em minutos[base + slot] os minutos de [minInicio, minFim) que caem em cada slot
+    private static void acumularMinutos(int[] minutos, int base, int minInicio, int minFim) {
+        for (int m = minInicio; m < minFim; ) {
+            int slot = m / DURACAO_SLOT_MIN;
+            int fimSlot = Math.min((slot + 1) * DURACAO_SLOT_MIN, minFim);
+            minutos[base + slot] += fimSlot - m;
+            m = fimSlot;
+        }
+    }
+
+    // mantém o índice de disponibilidade coerente com a remarcação/mudança de status
+    private void atualizarIndice(Agendamento agendamento, LocalDateTime inicioAnterior,
+                                 LocalDateTime fimAnterior, StatusAgendamento statusAnterior) {
+
+        Long barbeiroId = agendamento.getBarbeiro().getId();
+        boolean mudouHorario = !agendamento.getDataHora().equals(inicioAnterior);
+        boolean mudouStatus = agendamento.getStatus() != statusAnterior;
+
+        if (!mudouHorario && !mudouStatus) return;
+
+        if (statusAnterior == StatusAgendamento.AGENDADO) {
+            disponibilidadeIndex.liberar(barbeiroId, agendamento.getId(), inicioAnterior, fimAnterior);
+        }
+
+        if (agendamento.getStatus() == StatusAgendamento.AGENDADO) {
+            disponibilidadeIndex.marcar(barbeiroId, agendamento.getId(),
+                    agendamento.getDataHora(), agendamento.getDataHoraFim());
+        }
+    }
+
+    private void validarHorarioTrabalho(Barbeiro barbeiro, LocalDateTime inicio, LocalDateTime fim) {
+
+        if (!dentroDoExpediente(barbeiro, inicio, fim)) {
+            throw new BusinessException("Horário fora do expediente do barbeiro.");
+        }
+    }
+
+    private static boolean dentroDoExpediente(Barbeiro barbeiro, LocalDateTime inicio, LocalDateTime fim) {
+
+        LocalTime horaInicio = inicio.toLocalTime();
+        LocalTime horaFim = fim.toLocalTime();
+
+        return !(horaInicio.isBefore(barbeiro.getHoraEntrada())
+                || horaFim.isAfter(barbeiro.getHoraSaida())
+                || horaInicio.equals(barbeiro.getHoraSaida()));
+    }
+
+    private void validarConflito(Long barbeiroId, Long agendamentoIdExcluir,
+                                 LocalDateTime inicio, LocalDateTime fim) {
+
+        // 1) índice em memória: recusa na hora, sem ir ao banco, quando já se sabe do conflito
+        IntervalosOcupados dia = disponibilidadeIndex.intervalos(barbeiroId, inicio.toLocalDate());
+        int minInicio = DisponibilidadeIndex.minutoDoDia(inicio.toLocalTime());
+        int minFim = DisponibilidadeIndex.minutoFim(inicio, fim);
+
+        if (dia.sobrepoe(minInicio, minFim, agendamentoIdExcluir))
+            throw new BusinessException("Já existe um agendamento neste horário.");
 
-        if (temConflito)
+        // 2) banco, com o barbeiro travado: o índice só é atualizado depois do commit de
+        // outras transações, então a confirmação final continua sendo aqui
+        // (sobreposição: a.inicio < fim && a.fim > inicio). Um agendamento fica dentro do
+        // expediente de um dia, então quem começou mais de um dia antes já terminou.
+        if (agendamentoRepository.existsConflito(barbeiroId, agendamentoIdExcluir,
+                inicio.minusDays(1), inicio, fim))
             throw new BusinessException("Já existe um agendamento neste horário.");
     }
 
@@ -7,6 +7,7 @@ import com.barbearia.model.Cliente;
 import com.barbearia.model.Usuario;
 import com.barbearia.repository.ClienteRepository;
 import com.barbearia.repository.UsuarioRepository;
+import com.barbearia.security.RevogacaoTokenService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,13 +21,16 @@ public class ClienteService {
     private final ClienteRepository clienteRepository;
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
+    private final RevogacaoTokenService revogacaoTokenService;
 
     public ClienteService(ClienteRepository clienteRepository,
                           UsuarioRepository usuarioRepository,
-                          PasswordEncoder passwordEncoder) {
+                          PasswordEncoder passwordEncoder,
+                          RevogacaoTokenService revogacaoTokenService) {
         this.clienteRepository = clienteRepository;
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
+        this.revogacaoTokenService = revogacaoTokenService;
     }
 
     public Cliente criar(ClienteRequest request) {
@@ -81,8 +85,9 @@ public class ClienteService {
         Cliente cliente = buscarPorId(id);
 
         // Se você tiver campo "ativo" no Usuario, você pode desativar aqui.
+        // ✅ por enquanto: invalida os tokens já emitidos para o cliente
         if (cliente.getUsuario() != null) {
-            usuarioRepository.save(cliente.getUsuario());
+            revogacaoTokenService.revogar(cliente.getUsuario());
         }
 
         // Se você quiser realmente remover do banco, use delete(cliente).
@@ -0,0 +1,243 @@
+package com.barbearia.service;
+
+import com.barbearia.dto.DTOs.SlotAlterado;
+import com.barbearia.exception.BusinessException;
+import com.barbearia.exception.ServicoIndisponivelException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Barramento em memória dos eventos de disponibilidade, entregues por SSE
+ * (GET /agendamentos/disponibilidade/eventos) para quem olha um barbeiro em um dia.
+ *
+ * Quem publica é o DisponibilidadeIndex, depois do commit: toda escrita que muda o
+ * índice vira um evento OCUPADO/LIBERADO para os assinantes daquele (barbeiro, dia).
+ *
+ * - Conexão parada não segura thread: o SseEmitter usa request assíncrona.
+ * - Cada assinante tem uma fila limitada. Se o cliente não acompanha, a fila é
+ *   descartada e ele recebe um RECARREGAR (busca a disponibilidade inteira de novo).
+ * - O envio roda num pool com no máximo uma tarefa por assinante por vez. O send do
+ *   SseEmitter é uma escrita bloqueante no socket: um cliente que parou de ler segura
+ *   uma thread até o timeout de escrita do Tomcat (server.tomcat.connection-timeout,
+ *   60s por padrão). Por isso o pool cresce sob demanda até app.disponibilidade.eventos.threads
+ *   (as ociosas morrem): só com esse número de sockets travados ao mesmo tempo o envio
+ *   para os demais assinantes espera.
+ * - Um comentário SSE periódico mantém proxies abertos e detecta quem desconectou.
+ */
+@Component
+public class DisponibilidadeEventos {
+
+    public static final String OCUPADO = "OCUPADO";
+    public static final String LIBERADO = "LIBERADO";
+    public static final String RECARREGAR = "RECARREGAR";
+
+    private record Chave(Long barbeiroId, LocalDate data) {}
+
+    private final class Assinante {
+
+        final Chave chave;
+        final SseEmitter emitter;
+        final ArrayBlockingQueue<SlotAlterado> fila;
+        final AtomicBoolean enviando = new AtomicBoolean();
+        volatile boolean recarregar = true; // o primeiro evento manda buscar a disponibilidade
+        volatile boolean ping;
+
+        Assinante(Chave chave, SseEmitter emitter) {
+            this.chave = chave;
+            this.emitter = emitter;
+            this.fila = new ArrayBlockingQueue<>(tamanhoFila);
+        }
+    }
+
+    private final ConcurrentHashMap<Chave, Set<Assinante>> assinantes = new ConcurrentHashMap<>();
+    private final AtomicInteger total = new AtomicInteger();
+
+    private final int tamanhoFila;
+    private final int maxAssinantes;
+    private final long timeoutMs;
+
+    private final ThreadPoolExecutor envio;
+    private final ScheduledExecutorService pings;
+    private final Counter descartes;
+
+    public DisponibilidadeEventos(MeterRegistry meterRegistry,
+                                  @Value("${app.disponibilidade.eventos.fila:32}") int tamanhoFila,
+                                  @Value("${app.disponibilidade.eventos.max-assinantes:10000}") int maxAssinantes,
+                                  @Value("${app.disponibilidade.eventos.timeout:30m}") Duration timeout,
+                                  @Value("${app.disponibilidade.eventos.ping:25s}") Duration ping,
+                                  @Value("${app.disponibilidade.eventos.threads:32}") int threads) {
+        this.tamanhoFila = tamanhoFila;
+        this.maxAssinantes = maxAssinantes;
+        this.timeoutMs = timeout.toMillis();
+
+        AtomicInteger contador = new AtomicInteger();
+        this.envio = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "disponibilidade-sse-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        envio.allowCoreThreadTimeOut(true); // threads só enquanto há envio (ou socket travado)
+        this.pings = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "disponibilidade-sse-ping");
+            t.setDaemon(true);
+            return t;
+        });
+        pings.scheduleAtFixedRate(this::pingarTodos, ping.toMillis(), ping.toMillis(), TimeUnit.MILLISECONDS);
+
+        Gauge.builder("disponibilidade.sse.assinantes", total, AtomicInteger::get)
+                .description("Conexões SSE abertas").register(meterRegistry);
+        this.descartes = Counter.builder("disponibilidade.sse.descartes")
+                .description("Filas de assinante descartadas por cliente lento (vira RECARREGAR)")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        pings.shutdownNow();
+        envio.shutdown();
+        assinantes.values().forEach(set -> set.forEach(a -> a.emitter.complete()));
+    }
+
+    /**
+     * Abre o canal SSE do barbeiro no dia. O primeiro evento é sempre RECARREGAR.
+     */
+    public SseEmitter assinar(Long barbeiroId, LocalDate data) {
+
+        if (barbeiroId == null) throw new BusinessException("barbeiroId é obrigatório.");
+        if (data == null) throw new BusinessException("data é obrigatória (formato YYYY-MM-DD).");
+
+        if (total.incrementAndGet() > maxAssinantes) {
+            total.decrementAndGet();
+            throw new ServicoIndisponivelException("Limite de conexões de disponibilidade atingido.", 30);
+        }
+
+        Chave chave = new Chave(barbeiroId, data);
+        Assinante a = new Assinante(chave, new SseEmitter(timeoutMs));
+
+        a.emitter.onCompletion(() -> remover(a));
+        a.emitter.onTimeout(() -> remover(a));
+        a.emitter.onError(e -> remover(a));
+
+        // add dentro do compute: não cai num set que remover() está tirando do mapa
+        assinantes.compute(chave, (k, set) -> {
+            if (set == null) set = ConcurrentHashMap.newKeySet();
+            set.add(a);
+            return set;
+        });
+        agendarEnvio(a);
+
+        return a.emitter;
+    }
+
+    /**
+     * Entrega o evento aos assinantes do (barbeiro, dia). Não bloqueia: só enfileira.
+     */
+    public void publicar(SlotAlterado evento) {
+
+        Set<Assinante> set = assinantes.get(new Chave(evento.getBarbeiroId(), evento.getData()));
+        if (set == null) return;
+
+        for (Assinante a : set) {
+            if (!a.fila.offer(evento)) {
+                // cliente lento: os deltas não servem mais, ele recarrega tudo
+                a.fila.clear();
+                a.recarregar = true;
+                descartes.increment();
+            }
+            agendarEnvio(a);
+        }
+    }
+
+    public int assinantes() {
+        return total.get();
+    }
+
+    // ==========================
+    // ENVIO
+    // ==========================
+
+    private void agendarEnvio(Assinante a) {
+        if (a.enviando.compareAndSet(false, true)) {
+            try {
+                envio.execute(() -> enviar(a));
+            } catch (RuntimeException e) {
+                a.enviando.set(false); // desligando
+            }
+        }
+    }
+
+    private void enviar(Assinante a) {
+        try {
+            if (a.recarregar) {
+                a.recarregar = false;
+                a.fila.clear();
+                a.emitter.send(evento(new SlotAlterado(a.chave.barbeiroId(), a.chave.data(),
+                        RECARREGAR, null, null, null)));
+            }
+
+            SlotAlterado ev;
+            while ((ev = a.fila.poll()) != null) {
+                a.emitter.send(evento(ev));
+            }
+
+            if (a.ping) {
+                a.ping = false;
+                a.emitter.send(SseEmitter.event().comment("ping"));
+            }
+        } catch (IOException | IllegalStateException e) {
+            // cliente desconectou (ou o emitter já terminou)
+            remover(a);
+            a.emitter.completeWithError(e);
+            return;
+        } finally {
+            a.enviando.set(false);
+        }
+
+        // chegou evento depois do último poll: agenda de novo para não perdê-lo
+        if (!a.fila.isEmpty() || a.recarregar || a.ping) agendarEnvio(a);
+    }
+
+    private static SseEmitter.SseEventBuilder evento(SlotAlterado ev) {
+        return SseEmitter.event().name(ev.getTipo().toLowerCase()).data(ev, MediaType.APPLICATION_JSON);
+    }
+
+    private void pingarTodos() {
+        for (Set<Assinante> set : assinantes.values()) {
+            for (Assinante a : set) {
+                a.ping = true;
+                agendarEnvio(a);
+            }
+        }
+    }
+
+    // remove e descarta o set vazio atomicamente (mesmo lock do compute em assinar)
+    private void remover(Assinante a) {
+        AtomicBoolean removido = new AtomicBoolean();
+        assinantes.computeIfPresent(a.chave, (k, set) -> {
+            removido.set(set.remove(a));
+            return set.isEmpty() ? null : set;
+        });
+        if (removido.get()) total.decrementAndGet();
+    }
+}
@@ -0,0 +1,362 @@
+package com.barbearia.service;
+
+import com.barbearia.dto.DTOs.SlotAlterado;
+import com.barbearia.model.Agendamento;
+import com.barbearia.repository.AgendamentoRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Índice em memória dos horários ocupados de cada barbeiro por dia.
+ *
+ * Cada (barbeiro, dia) guarda os intervalos AGENDADOS exatos (IntervalosOcupados),
+ * então sobreposição, blocos ocupados e horários livres saem em qualquer granularidade.
+ *
+ * O dia é carregado do banco só na primeira consulta; depois disso as escritas do
+ * AgendamentoService/PagamentoService mantêm o índice atualizado (após o commit).
+ * Cada alteração também vai, após o commit, para os assinantes SSE do dia
+ * (DisponibilidadeEventos) como OCUPADO, LIBERADO ou RECARREGAR.
+ *
+ * Os dias ficam num cache Caffeine limitado (app.cache.disponibilidade.*): datas pedidas
+ * à toa não fazem a memória crescer. O TTL conta da carga do banco e não é renovado por
+ * consultas nem pelas escritas locais: um dia que a tela de agendamento consulta sem parar
+ * ainda é relido a cada ttl, o que limita quanto tempo uma escrita feita em outra instância
+ * fica sem aparecer aqui.
+ *
+ * As máscaras de bits (slots fixos de 30 minutos) continuam aqui para a grade e o heatmap.
+ */
+@Component
+public class DisponibilidadeIndex {
+
+    public static final int DURACAO_SLOT_MIN = 30;
+    public static final int SLOTS_POR_DIA = 24 * 60 / DURACAO_SLOT_MIN;
+
+    // "00:00", "00:01", ... pré-formatados para não criar String por horário
+    private static final String[] ROTULOS = new String[IntervalosOcupados.MINUTOS_DIA];
+
+    static {
+        for (int m = 0; m < ROTULOS.length; m++) {
+            ROTULOS[m] = String.format("%02d:%02d", m / 60, m % 60);
+        }
+    }
+
+    private record Chave(Long barbeiroId, LocalDate data) {}
+
+    // visão de mapa do cache: putIfAbsent/computeIfPresent/remove atômicos, com limite e TTL
+    private final ConcurrentMap<Chave, IntervalosOcupados> ocupados;
+
+    // incrementada a cada marcar()/liberar(): uma carga do banco que cruzou com eles não fica no índice
+    private final AtomicLong versao = new AtomicLong();
+    private final AgendamentoRepository agendamentoRepository;
+    private final DisponibilidadeEventos eventos;
+
+    public DisponibilidadeIndex(AgendamentoRepository agendamentoRepository,
+                                DisponibilidadeEventos eventos,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.cache.disponibilidade.tamanho-maximo:20000}") long tamanhoMaximo,
+                                @Value("${app.cache.disponibilidade.ttl:5m}") Duration ttl) {
+        this.agendamentoRepository = agendamentoRepository;
+        this.eventos = eventos;
+
+        Cache<Chave, IntervalosOcupados> caffeine = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfter(new ExpiraAposCarga(ttl))
+                .recordStats()
+                .build();
+        this.ocupados = caffeine.asMap();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, caffeine, "disponibilidade");
+    }
+
+    // expira ttl depois da carga do banco; marcar/liberar (computeIfPresent) e leituras
+    // mantêm o prazo que restava, senão um dia com escritas locais nunca seria relido
+    private record ExpiraAposCarga(Duration ttl) implements Expiry<Chave, IntervalosOcupados> {
+
+        @Override
+        public long expireAfterCreate(Chave chave, IntervalosOcupados valor, long agora) {
+            return ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Chave chave, IntervalosOcupados valor, long agora, long restante) {
+            return restante;
+        }
+
+        @Override
+        public long expireAfterRead(Chave chave, IntervalosOcupados valor, long agora, long restante) {
+            return restante;
+        }
+    }
+
+    /**
+     * Intervalos AGENDADOS do barbeiro no dia. Só vai ao banco se o dia ainda não estiver no índice.
+     */
+    public IntervalosOcupados intervalos(Long barbeiroId, LocalDate data) {
+
+        Chave chave = new Chave(barbeiroId, data);
+        IntervalosOcupados atual = ocupados.get(chave);
+        if (atual != null) return atual;
+
+        // carrega fora do computeIfAbsent: o lock do bucket não fica preso durante o JDBC
+        // (com virtual threads, isso prenderia a thread ao carrier)
+        long antes = versao.get();
+        return guardar(barbeiroId, data, carregarDoBanco(chave), antes);
+    }
+
+    /**
+     * Intervalos AGENDADOS de vários barbeiros no mesmo dia. Os que ainda não estão no índice
+     * vêm do banco numa única consulta, na thread de quem chama; o mapa devolvido só tem
+     * memória e pode ser varrido em paralelo sem JDBC.
+     */
+    public Map<Long, IntervalosOcupados> intervalos(Collection<Long> barbeiroIds, LocalDate data) {
+
+        Map<Long, IntervalosOcupados> resultado = new HashMap<>();
+        List<Long> faltando = new ArrayList<>();
+
+        for (Long barbeiroId : barbeiroIds) {
+            IntervalosOcupados atual = ocupados.get(new Chave(barbeiroId, data));
+            if (atual != null) {
+                resultado.put(barbeiroId, atual);
+            } else {
+                faltando.add(barbeiroId);
+            }
+        }
+        if (faltando.isEmpty()) return resultado;
+
+        long antes = versao.get();
+        List<Object[]> linhas = agendamentoRepository.findIntervalosAgendadosByBarbeirosAndPeriodo(
+                faltando, data.atStartOfDay(), data.plusDays(1).atStartOfDay());
+
+        Map<Long, List<Object[]>> porBarbeiro = new HashMap<>();
+        for (Object[] linha : linhas) {
+            porBarbeiro.computeIfAbsent((Long) linha[0], id -> new ArrayList<>()).add(linha);
+        }
+
+        for (Long barbeiroId : faltando) {
+            IntervalosOcupados carregado = montar(porBarbeiro.getOrDefault(barbeiroId, List.of()));
+            resultado.put(barbeiroId, guardar(barbeiroId, data, carregado, antes));
+        }
+        return resultado;
+    }
+
+    /**
+     * Dia já carregado no índice, ou null (sem ir ao banco). Usado pela leitura reativa.
+     */
+    public IntervalosOcupados emMemoria(Long barbeiroId, LocalDate data) {
+        return ocupados.get(new Chave(barbeiroId, data));
+    }
+
+    /**
+     * Versão atual do índice: leia antes de consultar o banco e passe para guardar(...).
+     */
+    public long versao() {
+        return versao.get();
+    }
+
+    /**
+     * Coloca no índice um dia lido do banco por quem chama. Se outra thread já colocou o
+     * dia, devolve o que está no índice; se houve marcar/liberar desde versaoAntes, o valor
+     * lido pode estar velho e não fica guardado (mas é devolvido para esta consulta).
+     */
+    public IntervalosOcupados guardar(Long barbeiroId, LocalDate data,
+                                      IntervalosOcupados carregado, long versaoAntes) {
+
+        Chave chave = new Chave(barbeiroId, data);
+        IntervalosOcupados atual = ocupados.putIfAbsent(chave, carregado);
+        if (atual != null) return atual; // outra thread carregou (ou marcou) primeiro
+
+        if (versao.get() != versaoAntes) ocupados.remove(chave, carregado);
+        return carregado;
+    }
+
+    /**
+     * Marca o intervalo do agendamento como ocupado depois do commit.
+     * Se o dia ainda não foi carregado, não faz nada: será lido do banco na próxima consulta.
+     */
+    public void marcar(Long barbeiroId, Long agendamentoId, LocalDateTime inicio, LocalDateTime fim) {
+        aposCommit(() -> {
+            Chave chave = new Chave(barbeiroId, inicio.toLocalDate());
+            int minInicio = minutoDoDia(inicio.toLocalTime());
+            int minFim = minutoFim(inicio, fim);
+            versao.incrementAndGet(); // uma carga em andamento pode ter lido o banco antes deste commit
+            ocupados.computeIfPresent(chave, (k, atual) -> atual.com(agendamentoId, minInicio, minFim));
+
+            eventos.publicar(new SlotAlterado(barbeiroId, chave.data(), DisponibilidadeEventos.OCUPADO,
+                    ROTULOS[minInicio], rotuloFim(minFim), agendamentoId));
+        });
+    }
+
+    /**
+     * Libera o intervalo do agendamento depois do commit.
+     * O dia é descartado e recarregado na próxima consulta (mais simples e seguro
+     * do que procurar o intervalo certo quando há remarcação e mudança de status juntas).
+     */
+    public void liberar(Long barbeiroId, Long agendamentoId, LocalDateTime inicio, LocalDateTime fim) {
+        aposCommit(() -> {
+            versao.incrementAndGet();
+            ocupados.remove(new Chave(barbeiroId, inicio.toLocalDate()));
+
+            if (fim == null) {
+                eventos.publicar(recarregarEvento(barbeiroId, inicio.toLocalDate()));
+                return;
+            }
+            int minInicio = minutoDoDia(inicio.toLocalTime());
+            eventos.publicar(new SlotAlterado(barbeiroId, inicio.toLocalDate(), DisponibilidadeEventos.LIBERADO,
+                    ROTULOS[minInicio], rotuloFim(minutoFim(inicio, fim)), agendamentoId));
+        });
+    }
+
+    /**
+     * Descarta o dia inteiro depois do commit (ex.: importação em massa) e avisa os
+     * assinantes para buscarem a disponibilidade de novo.
+     */
+    public void recarregar(Long barbeiroId, LocalDate data) {
+        aposCommit(() -> {
+            versao.incrementAndGet();
+            ocupados.remove(new Chave(barbeiroId, data));
+            eventos.publicar(recarregarEvento(barbeiroId, data));
+        });
+    }
+
+    public static List<String> rotulos(List<Integer> minutos) {
+        List<String> resultado = new ArrayList<>(minutos.size());
+        for (int m : minutos) {
+            resultado.add(ROTULOS[m]);
+        }
+        return resultado;
+    }
+
+    // fim = meia-noite vira "24:00" (não cabe em ROTULOS)
+    private static String rotuloFim(int minFim) {
+        return (minFim >= IntervalosOcupados.MINUTOS_DIA) ? "24:00" : ROTULOS[minFim];
+    }
+
+    private static SlotAlterado recarregarEvento(Long barbeiroId, LocalDate data) {
+        return new SlotAlterado(barbeiroId, data, DisponibilidadeEventos.RECARREGAR, null, null, null);
+    }
+
+    public static int minutoDoDia(LocalTime hora) {
+        return hora.toSecondOfDay() / 60;
+    }
+
+    // fim em minutos do dia de inicio (limitado à meia-noite, como na grade)
+    public static int minutoFim(LocalDateTime inicio, LocalDateTime fim) {
+        return fim.toLocalDate().isAfter(inicio.toLocalDate())
+                ? IntervalosOcupados.MINUTOS_DIA
+                : minutoDoDia(fim.toLocalTime());
+    }
+
+    private IntervalosOcupados carregarDoBanco(Chave chave) {
+
+        List<Agendamento> agendados = agendamentoRepository.findAgendadosByBarbeiroAndDia(
+                chave.barbeiroId(),
+                chave.data().atStartOfDay(),
+                chave.data().plusDays(1).atStartOfDay()
+        );
+
+        int n = agendados.size();
+        int[] inicios = new int[n];
+        int[] fins = new int[n];
+        long[] ids = new long[n];
+
+        for (int i = 0; i < n; i++) {
+            Agendamento a = agendados.get(i);
+            LocalDateTime aInicio = a.getDataHora();
+            LocalDateTime aFim = a.getDataHoraFim();
+            if (aInicio == null || aFim == null) continue; // fica vazio e é ignorado
+
+            inicios[i] = minutoDoDia(aInicio.toLocalTime());
+            fins[i] = minutoFim(aInicio, aFim);
+            ids[i] = a.getId();
+        }
+        return IntervalosOcupados.de(inicios, fins, ids);
+    }
+
+    // linhas [barbeiroId, dataHora, dataHoraFim, id] de um barbeiro no dia
+    private static IntervalosOcupados montar(List<Object[]> linhas) {
+
+        int n = linhas.size();
+        int[] inicios = new int[n];
+        int[] fins = new int[n];
+        long[] ids = new long[n];
+
+        for (int i = 0; i < n; i++) {
+            Object[] linha = linhas.get(i);
+            LocalDateTime aInicio = (LocalDateTime) linha[1];
+            LocalDateTime aFim = (LocalDateTime) linha[2];
+            if (aInicio == null || aFim == null) continue; // fica vazio e é ignorado
+
+            inicios[i] = minutoDoDia(aInicio.toLocalTime());
+            fins[i] = minutoFim(aInicio, aFim);
+            ids[i] = (Long) linha[3];
+        }
+        return IntervalosOcupados.de(inicios, fins, ids);
+    }
+
+    // bits dos slots que intersectam [inicio, fim), limitado ao dia de inicio
+    static long mascaraIntervalo(LocalDateTime inicio, LocalDateTime fim) {
+
+        int minInicio = inicio.toLocalTime().toSecondOfDay() / 60;
+        int minFim = fim.toLocalDate().isAfter(inicio.toLocalDate())
+                ? 24 * 60
+                : fim.toLocalTime().toSecondOfDay() / 60;
+
+        if (minFim <= minInicio) return 0L;
+
+        int primeiro = minInicio / DURACAO_SLOT_MIN;
+        int ultimo = (minFim - 1) / DURACAO_SLOT_MIN;
+
+        return faixa(primeiro, ultimo);
+    }
+
+    // bits dos slots cujo início está dentro do expediente [horaEntrada, horaSaida)
+    static long mascaraExpediente(LocalTime horaEntrada, LocalTime horaSaida) {
+
+        int minEntrada = horaEntrada.toSecondOfDay() / 60;
+        int minSaida = horaSaida.toSecondOfDay() / 60;
+
+        int primeiro = (minEntrada + DURACAO_SLOT_MIN - 1) / DURACAO_SLOT_MIN;
+        int ultimo = (minSaida - 1) / DURACAO_SLOT_MIN;
+
+        if (ultimo < primeiro) return 0L;
+
+        return faixa(primeiro, ultimo);
+    }
+
+    private static long faixa(int primeiro, int ultimo) {
+        long ateUltimo = (ultimo >= 63) ? -1L : (1L << (ultimo + 1)) - 1;
+        return ateUltimo & (-1L << primeiro);
+    }
+
+    private static void aposCommit(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
+}
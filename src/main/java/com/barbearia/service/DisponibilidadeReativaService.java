@@ -0,0 +1,158 @@
+package com.barbearia.service;
+
+import com.barbearia.dto.DTOs.DisponibilidadeResponse;
+import com.barbearia.exception.ResourceNotFoundException;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Leitura não bloqueante da disponibilidade (GET /agendamentos/disponibilidade/reativa).
+ *
+ * Mesmo resultado de AgendamentoService.getDisponibilidade, mas as consultas vão pelo
+ * R2DBC, num pool próprio, e o controller devolve um Mono: a thread do Tomcat é liberada
+ * enquanto o banco responde, então o polling da tela de agendamento não ocupa as threads
+ * que as escritas precisam. O índice em memória (DisponibilidadeIndex) é o mesmo dos dois
+ * caminhos: dia já carregado não vai ao banco, e o dia lido aqui fica no índice.
+ *
+ * A URL vem de app.disponibilidade.reativa.url; sem ela, é derivada de spring.datasource.url
+ * (jdbc:postgresql:... vira r2dbc:postgresql:...). Sem nenhuma das duas, a rota continua
+ * funcionando pelo caminho bloqueante, num scheduler separado.
+ */
+@Service
+public class DisponibilidadeReativaService {
+
+    private static final Logger log = LoggerFactory.getLogger(DisponibilidadeReativaService.class);
+
+    private record Horario(long id, LocalDateTime inicio, LocalDateTime fim) {}
+
+    private final DisponibilidadeIndex disponibilidadeIndex;
+    private final AgendamentoService agendamentoService;
+    private final ConnectionPool pool;
+    private final DatabaseClient db;
+
+    public DisponibilidadeReativaService(DisponibilidadeIndex disponibilidadeIndex,
+                                         AgendamentoService agendamentoService,
+                                         @Value("${app.disponibilidade.reativa.url:}") String url,
+                                         @Value("${spring.datasource.url:}") String urlJdbc,
+                                         @Value("${app.disponibilidade.reativa.usuario:${spring.datasource.username:}}") String usuario,
+                                         @Value("${app.disponibilidade.reativa.senha:${spring.datasource.password:}}") String senha,
+                                         @Value("${app.disponibilidade.reativa.pool-maximo:10}") int poolMaximo) {
+        this.disponibilidadeIndex = disponibilidadeIndex;
+        this.agendamentoService = agendamentoService;
+
+        if (url.isBlank() && urlJdbc.startsWith("jdbc:postgresql:")) {
+            url = "r2dbc:" + urlJdbc.substring("jdbc:".length());
+        }
+
+        if (url.isBlank()) {
+            log.warn("Leitura reativa sem URL R2DBC (app.disponibilidade.reativa.url): usando o caminho bloqueante");
+            this.pool = null;
+            this.db = null;
+            return;
+        }
+
+        ConnectionFactoryOptions.Builder opcoes = ConnectionFactoryOptions.parse(url).mutate();
+        if (!usuario.isBlank()) opcoes.option(ConnectionFactoryOptions.USER, usuario);
+        if (!senha.isBlank()) opcoes.option(ConnectionFactoryOptions.PASSWORD, senha);
+
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(opcoes.build()))
+                .maxSize(poolMaximo)
+                .build());
+        this.db = DatabaseClient.create(pool);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (pool != null) pool.dispose();
+    }
+
+    public Mono<DisponibilidadeResponse> getDisponibilidade(Long barbeiroId, LocalDate data,
+                                                            Long servicoId, Integer granularidade) {
+
+        int passo = AgendamentoService.validarDisponibilidade(barbeiroId, data, granularidade);
+
+        if (db == null) {
+            return Mono.fromCallable(() -> agendamentoService.getDisponibilidade(barbeiroId, data, servicoId, granularidade))
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+
+        Mono<Integer> duracao = (servicoId == null)
+                ? Mono.just(passo)
+                : db.sql("select duracao_minutos from servicos where id = :id")
+                    .bind("id", servicoId)
+                    .map(row -> row.get(0, Integer.class))
+                    .one()
+                    .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Serviço não encontrado: " + servicoId)));
+
+        Mono<LocalTime[]> expediente = db.sql("select hora_entrada, hora_saida from barbeiros where id = :id")
+                .bind("id", barbeiroId)
+                .map(row -> new LocalTime[]{row.get(0, LocalTime.class), row.get(1, LocalTime.class)})
+                .one()
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Barbeiro não encontrado: " + barbeiroId)));
+
+        return Mono.zip(duracao, expediente, intervalos(barbeiroId, data))
+                .map(t -> AgendamentoService.montarDisponibilidade(barbeiroId, data, passo, t.getT1(),
+                        t.getT2()[0], t.getT2()[1], t.getT3()));
+    }
+
+    // dia do índice em memória ou, se ainda não carregado, lido pelo R2DBC e guardado no índice
+    private Mono<IntervalosOcupados> intervalos(Long barbeiroId, LocalDate data) {
+
+        IntervalosOcupados emMemoria = disponibilidadeIndex.emMemoria(barbeiroId, data);
+        if (emMemoria != null) return Mono.just(emMemoria);
+
+        return Mono.defer(() -> {
+            long versaoAntes = disponibilidadeIndex.versao();
+
+            return db.sql("""
+                        select id, data_hora, data_hora_fim from agendamentos
+                        where barbeiro_id = :barbeiroId
+                          and status = 'AGENDADO'
+                          and data_hora >= :inicioDia
+                          and data_hora < :fimDia
+                    """)
+                    .bind("barbeiroId", barbeiroId)
+                    .bind("inicioDia", data.atStartOfDay())
+                    .bind("fimDia", data.plusDays(1).atStartOfDay())
+                    .map(row -> new Horario(row.get(0, Long.class),
+                            row.get(1, LocalDateTime.class), row.get(2, LocalDateTime.class)))
+                    .all()
+                    .collectList()
+                    .map(horarios -> disponibilidadeIndex.guardar(barbeiroId, data, montar(horarios), versaoAntes));
+        });
+    }
+
+    private static IntervalosOcupados montar(List<Horario> horarios) {
+
+        int n = horarios.size();
+        int[] inicios = new int[n];
+        int[] fins = new int[n];
+        long[] ids = new long[n];
+
+        for (int i = 0; i < n; i++) {
+            Horario h = horarios.get(i);
+            if (h.inicio() == null || h.fim() == null) continue; // fica vazio e é ignorado
+
+            inicios[i] = DisponibilidadeIndex.minutoDoDia(h.inicio().toLocalTime());
+            fins[i] = DisponibilidadeIndex.minutoFim(h.inicio(), h.fim());
+            ids[i] = h.id();
+        }
+        return IntervalosOcupados.de(inicios, fins, ids);
+    }
+}
@@ -0,0 +1,13 @@
+package com.barbearia.service;
+
+/**
+ * Canal de envio dos lembretes (e-mail, SMS, WhatsApp...).
+ *
+ * O LembreteService já reservou o envio no banco antes de chamar: cada lembrete chega
+ * aqui no máximo uma vez, mesmo com reinícios. Se enviar(...) lançar exceção, o lembrete
+ * não é repetido.
+ */
+public interface EnviadorLembretes {
+
+    void enviar(Lembrete lembrete);
+}
@@ -0,0 +1,24 @@
+package com.barbearia.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Enviador local (app.lembretes.enviador=log, o padrão): só registra no log.
+ * Para um canal real, crie outro EnviadorLembretes com um valor próprio da propriedade.
+ */
+@Component
+@ConditionalOnProperty(name = "app.lembretes.enviador", havingValue = "log", matchIfMissing = true)
+public class EnviadorLembretesLog implements EnviadorLembretes {
+
+    private static final Logger log = LoggerFactory.getLogger(EnviadorLembretesLog.class);
+
+    @Override
+    public void enviar(Lembrete lembrete) {
+        log.info("Lembrete {} -> {} <{}>: {} com {} em {} (agendamento {})",
+                lembrete.tipo(), lembrete.clienteNome(), lembrete.clienteEmail(), lembrete.servicoNome(),
+                lembrete.barbeiroNome(), lembrete.dataHora(), lembrete.agendamentoId());
+    }
+}
@@ -0,0 +1,29 @@
+package com.barbearia.service;
+
+import com.barbearia.model.EventoOutbox;
+import com.barbearia.model.EventoOutbox.TipoEvento;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento do ciclo de vida do agendamento, como chega aos ouvintes do OutboxRelay.
+ * "id" é o id do evento no outbox: a entrega é pelo menos uma vez, então quem
+ * precisa de efeito único usa esse id para descartar repetições.
+ */
+public record EventoAgendamento(
+        Long id,
+        TipoEvento tipo,
+        Long agendamentoId,
+        Long barbeiroId,
+        Long clienteId,
+        LocalDateTime dataHora,
+        LocalDateTime dataHoraFim,
+        LocalDateTime dataHoraAnterior,
+        LocalDateTime criadoEm
+) {
+
+    static EventoAgendamento de(EventoOutbox e) {
+        return new EventoAgendamento(e.getId(), e.getTipo(), e.getAgendamentoId(), e.getBarbeiroId(),
+                e.getClienteId(), e.getDataHora(), e.getDataHoraFim(), e.getDataHoraAnterior(), e.getCriadoEm());
+    }
+}
@@ -0,0 +1,182 @@
+package com.barbearia.service;
+
+import com.barbearia.dto.DTOs.AgendamentoResponse;
+import com.barbearia.dto.DTOs.PagamentoResponse;
+import com.barbearia.exception.BusinessException;
+import com.barbearia.repository.AgendamentoRepository;
+import com.barbearia.repository.PagamentoRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+/**
+ * Exportação do histórico (agendamentos e pagamentos) em NDJSON ou CSV.
+ * As linhas vêm de um cursor no banco e são escritas direto no OutputStream,
+ * então a memória usada não depende da quantidade de registros.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ExportacaoService {
+
+    public enum FormatoExportacao {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv; charset=UTF-8", "csv");
+
+        private final String contentType;
+        private final String extensao;
+
+        FormatoExportacao(String contentType, String extensao) {
+            this.contentType = contentType;
+            this.extensao = extensao;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtensao() { return extensao; }
+
+        public static FormatoExportacao de(String valor) {
+            if (valor == null || valor.isBlank()) return NDJSON;
+            try {
+                return valueOf(valor.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new BusinessException("Formato inválido. Use: ndjson, csv");
+            }
+        }
+    }
+
+    private static final String CABECALHO_AGENDAMENTOS =
+            "id,clienteId,clienteNome,barbeiroId,barbeiroNome,servicoId,servicoNome,preco,dataHora,dataHoraFim,status,observacao";
+
+    private static final String CABECALHO_PAGAMENTOS =
+            "id,agendamentoId,valor,formaPagamento,pagoEm";
+
+    private final AgendamentoRepository agendamentoRepository;
+    private final PagamentoRepository pagamentoRepository;
+    private final ObjectMapper objectMapper;
+
+    public ExportacaoService(AgendamentoRepository agendamentoRepository,
+                             PagamentoRepository pagamentoRepository,
+                             ObjectMapper objectMapper) {
+        this.agendamentoRepository = agendamentoRepository;
+        this.pagamentoRepository = pagamentoRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public void exportarAgendamentos(FormatoExportacao formato, OutputStream out) throws IOException {
+        try (Stream<AgendamentoResponse> linhas = agendamentoRepository.streamAllResponses()) {
+            if (formato == FormatoExportacao.CSV) {
+                escreverCsv(linhas, CABECALHO_AGENDAMENTOS, out, (w, a) -> {
+                    campo(w, a.getId(), true);
+                    campo(w, a.getClienteId(), true);
+                    campo(w, a.getClienteNome(), true);
+                    campo(w, a.getBarbeiroId(), true);
+                    campo(w, a.getBarbeiroNome(), true);
+                    campo(w, a.getServicoId(), true);
+                    campo(w, a.getServicoNome(), true);
+                    campo(w, a.getPreco(), true);
+                    campo(w, a.getDataHora(), true);
+                    campo(w, a.getDataHoraFim(), true);
+                    campo(w, a.getStatus(), true);
+                    campo(w, a.getObservacao(), false);
+                });
+            } else {
+                escreverNdjson(linhas, out);
+            }
+        }
+    }
+
+    public void exportarPagamentos(FormatoExportacao formato, OutputStream out) throws IOException {
+        try (Stream<PagamentoResponse> linhas = pagamentoRepository.streamAllResponses()) {
+            if (formato == FormatoExportacao.CSV) {
+                escreverCsv(linhas, CABECALHO_PAGAMENTOS, out, (w, p) -> {
+                    campo(w, p.getId(), true);
+                    campo(w, p.getAgendamentoId(), true);
+                    campo(w, p.getValor(), true);
+                    campo(w, p.getFormaPagamento(), true);
+                    campo(w, p.getPagoEm(), false);
+                });
+            } else {
+                escreverNdjson(linhas, out);
+            }
+        }
+    }
+
+    // ==========================
+    // ESCRITA
+    // ==========================
+
+    private <T> void escreverNdjson(Stream<T> linhas, OutputStream out) throws IOException {
+        JsonGenerator gen = objectMapper.createGenerator(out);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        gen.setRootValueSeparator(null); // o separador entre linhas é só o '\n'
+
+        try {
+            linhas.forEach(linha -> {
+                try {
+                    gen.writeObject(linha);
+                    gen.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        gen.flush();
+    }
+
+    @FunctionalInterface
+    private interface LinhaCsv<T> {
+        void escrever(Writer w, T linha) throws IOException;
+    }
+
+    private <T> void escreverCsv(Stream<T> linhas, String cabecalho, OutputStream out,
+                                 LinhaCsv<T> linhaCsv) throws IOException {
+
+        // não fecha o writer: o OutputStream pertence à resposta HTTP
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        w.write(cabecalho);
+        w.write('\n');
+
+        try {
+            linhas.forEach(linha -> {
+                try {
+                    linhaCsv.escrever(w, linha);
+                    w.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        w.flush();
+    }
+
+    // escreve um campo CSV (RFC 4180): aspas só quando precisa
+    private static void campo(Writer w, Object valor, boolean separador) throws IOException {
+        if (valor != null) {
+            String texto = valor.toString();
+            if (texto.indexOf(',') >= 0 || texto.indexOf('"') >= 0
+                    || texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0) {
+                w.write('"');
+                w.write(texto.replace("\"", "\"\""));
+                w.write('"');
+            } else {
+                w.write(texto);
+            }
+        }
+        if (separador) w.write(',');
+    }
+}
@@ -0,0 +1,545 @@
+package com.barbearia.service;
+
+import com.barbearia.dto.DTOs.FalhaImportacao;
+import com.barbearia.dto.DTOs.ProgressoImportacao;
+import com.barbearia.exception.BusinessException;
+import com.barbearia.model.Agendamento;
+import com.barbearia.model.Agendamento.StatusAgendamento;
+import com.barbearia.model.Barbeiro;
+import com.barbearia.model.Cliente;
+import com.barbearia.model.Servico;
+import com.barbearia.model.Usuario;
+import com.barbearia.repository.AgendamentoRepository;
+import com.barbearia.repository.BarbeiroRepository;
+import com.barbearia.repository.ClienteRepository;
+import com.barbearia.repository.ServicoRepository;
+import com.barbearia.repository.UsuarioRepository;
+import com.barbearia.security.SenhaEncoder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importação em massa (CSV ou NDJSON) de clientes e de agendamentos históricos.
+ *
+ * O arquivo é lido linha a linha e processado em lotes de TAMANHO_LOTE:
+ * - emails verificados com uma consulta por lote;
+ * - senhas com BCrypt em paralelo no pool do SenhaEncoder (espera vaga, sem 503);
+ * - gravação em lote (JDBC batch) em uma transação por lote.
+ * Linhas inválidas viram falhas no resumo e não interrompem a importação.
+ * A resposta é NDJSON: uma linha de progresso por lote e o resumo no fim.
+ */
+@Service
+public class ImportacaoService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacaoService.class);
+
+    private static final int TAMANHO_LOTE = 500;
+    private static final int MAX_FALHAS_DETALHADAS = 1000;
+
+    public enum FormatoImportacao {
+        NDJSON, CSV;
+
+        public static FormatoImportacao de(String valor) {
+            if (valor == null || valor.isBlank()) return NDJSON;
+            try {
+                return valueOf(valor.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new BusinessException("Formato inválido. Use: ndjson, csv");
+            }
+        }
+    }
+
+    private final UsuarioRepository usuarioRepository;
+    private final ClienteRepository clienteRepository;
+    private final BarbeiroRepository barbeiroRepository;
+    private final ServicoRepository servicoRepository;
+    private final AgendamentoRepository agendamentoRepository;
+    private final SenhaEncoder senhaEncoder;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final DisponibilidadeIndex disponibilidadeIndex;
+    private final RelatorioAnaliticoService relatorioAnaliticoService;
+
+    public ImportacaoService(UsuarioRepository usuarioRepository,
+                             ClienteRepository clienteRepository,
+                             BarbeiroRepository barbeiroRepository,
+                             ServicoRepository servicoRepository,
+                             AgendamentoRepository agendamentoRepository,
+                             SenhaEncoder senhaEncoder,
+                             TransactionTemplate transactionTemplate,
+                             ObjectMapper objectMapper,
+                             DisponibilidadeIndex disponibilidadeIndex,
+                             RelatorioAnaliticoService relatorioAnaliticoService) {
+        this.usuarioRepository = usuarioRepository;
+        this.clienteRepository = clienteRepository;
+        this.barbeiroRepository = barbeiroRepository;
+        this.servicoRepository = servicoRepository;
+        this.agendamentoRepository = agendamentoRepository;
+        this.senhaEncoder = senhaEncoder;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.disponibilidadeIndex = disponibilidadeIndex;
+        this.relatorioAnaliticoService = relatorioAnaliticoService;
+    }
+
+    // ==========================
+    // CLIENTES
+    // ==========================
+
+    /**
+     * Colunas: nome, email, telefone (opcional), senha.
+     * Linha sem senha é recusada: não existe senha padrão para conta importada.
+     */
+    public ProgressoImportacao importarClientes(FormatoImportacao formato, InputStream in, OutputStream out)
+            throws IOException {
+
+        Set<String> emailsDoArquivo = new HashSet<>();
+
+        return importar(formato, in, out, (lote, resultado) -> {
+
+            // 1) validação e duplicados dentro do próprio arquivo
+            List<Linha> validas = new ArrayList<>(lote.size());
+            for (Linha l : lote) {
+                String nome = l.campo("nome");
+                String email = l.campo("email");
+
+                if (nome == null) resultado.falhar(l, "nome é obrigatório.");
+                else if (email == null || !email.contains("@")) resultado.falhar(l, "email inválido.");
+                else if (l.campo("senha") == null) resultado.falhar(l, "senha é obrigatória.");
+                else if (!emailsDoArquivo.add(email)) resultado.falhar(l, "Email repetido no arquivo: " + email);
+                else validas.add(l);
+            }
+            if (validas.isEmpty()) return;
+
+            // 2) uma consulta para o lote inteiro
+            Set<String> existentes = new HashSet<>(usuarioRepository.findEmailsExistentes(
+                    validas.stream().map(l -> l.campo("email")).toList()));
+
+            List<Linha> novas = new ArrayList<>(validas.size());
+            for (Linha l : validas) {
+                if (existentes.contains(l.campo("email"))) resultado.falhar(l, "Email já cadastrado: " + l.campo("email"));
+                else novas.add(l);
+            }
+            if (novas.isEmpty()) return;
+
+            // 3) senhas em paralelo no pool do SenhaEncoder
+            Iterator<String> hashes = senhaEncoder.codificarTodas(
+                    novas.stream().map(l -> l.campo("senha")).toList()).iterator();
+
+            List<Usuario> usuarios = new ArrayList<>(novas.size());
+            List<Cliente> clientes = new ArrayList<>(novas.size());
+            for (int i = 0; i < novas.size(); i++) {
+                Linha l = novas.get(i);
+
+                Usuario usuario = new Usuario();
+                usuario.setNome(l.campo("nome"));
+                usuario.setEmail(l.campo("email"));
+                usuario.setSenha(hashes.next());
+                usuario.setRole("ROLE_CLIENTE");
+                usuarios.add(usuario);
+
+                Cliente cliente = new Cliente();
+                cliente.setUsuario(usuario);
+                cliente.setNome(l.campo("nome"));
+                cliente.setEmail(l.campo("email"));
+                cliente.setTelefone(l.campo("telefone"));
+                clientes.add(cliente);
+            }
+
+            // 4) gravação em lote, uma transação por lote
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    usuarioRepository.saveAll(usuarios);
+                    clienteRepository.saveAll(clientes);
+                });
+                resultado.importados += novas.size();
+            } catch (DataAccessException e) {
+                log.warn("Falha ao gravar lote de clientes: {}", e.getMostSpecificCause().getMessage());
+                for (Linha l : novas) resultado.falhar(l, "Erro ao gravar o lote: " + e.getMostSpecificCause().getMessage());
+            }
+        });
+    }
+
+    // ==========================
+    // AGENDAMENTOS (histórico)
+    // ==========================
+
+    /**
+     * Colunas: clienteEmail, barbeiroId, servicoId, dataHora (ISO), status (padrão CONCLUIDO),
+     * dataHoraFim (opcional, padrão = dataHora + duração do serviço), observacao (opcional).
+     * Histórico não passa pela checagem de conflito nem de data passada.
+     */
+    public ProgressoImportacao importarAgendamentos(FormatoImportacao formato, InputStream in, OutputStream out)
+            throws IOException {
+
+        // tabelas pequenas: lidas uma vez para a importação toda
+        Set<Long> barbeiros = new HashSet<>();
+        for (Barbeiro b : barbeiroRepository.findAll()) barbeiros.add(b.getId());
+
+        Map<Long, Integer> duracaoServico = new HashMap<>();
+        for (Servico s : servicoRepository.findAll()) duracaoServico.put(s.getId(), s.getDuracaoMinutos());
+
+        return importar(formato, in, out, (lote, resultado) -> {
+
+            // 1) clientes do lote em uma consulta
+            Set<String> emails = new HashSet<>();
+            for (Linha l : lote) {
+                if (l.campo("clienteEmail") != null) emails.add(l.campo("clienteEmail"));
+            }
+            Map<String, Long> clientePorEmail = new HashMap<>();
+            if (!emails.isEmpty()) {
+                for (Object[] r : clienteRepository.findIdsByEmails(emails)) {
+                    clientePorEmail.put((String) r[0], (Long) r[1]);
+                }
+            }
+
+            // 2) validação e montagem
+            List<Object[]> validas = new ArrayList<>(lote.size()); // [linha, clienteId, barbeiroId, servicoId, inicio, fim, status]
+            for (Linha l : lote) {
+                try {
+                    Long clienteId = clientePorEmail.get(l.campo("clienteEmail"));
+                    if (clienteId == null) throw new IllegalArgumentException("Cliente não encontrado: " + l.campo("clienteEmail"));
+
+                    Long barbeiroId = Long.valueOf(obrigatorio(l, "barbeiroId"));
+                    if (!barbeiros.contains(barbeiroId)) throw new IllegalArgumentException("Barbeiro não encontrado: " + barbeiroId);
+
+                    Long servicoId = Long.valueOf(obrigatorio(l, "servicoId"));
+                    Integer duracao = duracaoServico.get(servicoId);
+                    if (duracao == null) throw new IllegalArgumentException("Serviço não encontrado: " + servicoId);
+
+                    LocalDateTime inicio = LocalDateTime.parse(obrigatorio(l, "dataHora"));
+                    LocalDateTime fim = (l.campo("dataHoraFim") != null)
+                            ? LocalDateTime.parse(l.campo("dataHoraFim"))
+                            : inicio.plusMinutes(duracao);
+                    if (!fim.isAfter(inicio)) throw new IllegalArgumentException("dataHoraFim precisa ser depois de dataHora.");
+
+                    StatusAgendamento status = (l.campo("status") == null)
+                            ? StatusAgendamento.CONCLUIDO
+                            : StatusAgendamento.valueOf(l.campo("status").toUpperCase());
+
+                    validas.add(new Object[]{l, clienteId, barbeiroId, servicoId, inicio, fim, status});
+
+                } catch (NumberFormatException e) {
+                    resultado.falhar(l, "Id inválido: " + e.getMessage());
+                } catch (DateTimeParseException e) {
+                    resultado.falhar(l, "Data inválida: " + e.getParsedString());
+                } catch (IllegalArgumentException e) {
+                    resultado.falhar(l, e.getMessage());
+                }
+            }
+            if (validas.isEmpty()) return;
+
+            // 3) gravação em lote, uma transação por lote (referências sem SELECT)
+            try {
+                transactionTemplate.executeWithoutResult(tx -> {
+                    List<Agendamento> novos = new ArrayList<>(validas.size());
+                    Set<LocalDate> dias = new HashSet<>();
+                    Set<List<Object>> diasPorBarbeiro = new HashSet<>();
+
+                    for (Object[] v : validas) {
+                        Agendamento a = new Agendamento();
+                        a.setCliente(clienteRepository.getReferenceById((Long) v[1]));
+                        a.setBarbeiro(barbeiroRepository.getReferenceById((Long) v[2]));
+                        a.setServico(servicoRepository.getReferenceById((Long) v[3]));
+                        a.setDataHora((LocalDateTime) v[4]);
+                        a.setDataHoraFim((LocalDateTime) v[5]);
+                        a.setStatus((StatusAgendamento) v[6]);
+                        a.setObservacao(((Linha) v[0]).campo("observacao"));
+                        novos.add(a);
+
+                        dias.add(a.getDataHora().toLocalDate());
+                        if (a.getStatus() == StatusAgendamento.AGENDADO
+                                && diasPorBarbeiro.add(List.of(v[2], a.getDataHora().toLocalDate()))) {
+                            // recarrega o dia após o commit (um aviso por barbeiro/dia do lote)
+                            disponibilidadeIndex.recarregar((Long) v[2], a.getDataHora().toLocalDate());
+                        }
+                    }
+
+                    agendamentoRepository.saveAll(novos);
+                    relatorioAnaliticoService.invalidar(dias.toArray(new LocalDate[0]));
+                });
+                resultado.importados += validas.size();
+            } catch (DataAccessException e) {
+                log.warn("Falha ao gravar lote de agendamentos: {}", e.getMostSpecificCause().getMessage());
+                for (Object[] v : validas) resultado.falhar((Linha) v[0], "Erro ao gravar o lote: " + e.getMostSpecificCause().getMessage());
+            }
+        });
+    }
+
+    // ==========================
+    // LEITURA EM LOTES + PROGRESSO
+    // ==========================
+
+    private record Linha(long numero, Map<String, String> campos) {
+        // valor sem espaços nas pontas; vazio vira null
+        String campo(String nome) {
+            String v = campos.get(nome);
+            if (v == null) return null;
+            v = v.trim();
+            return v.isEmpty() ? null : v;
+        }
+    }
+
+    private static String obrigatorio(Linha l, String nome) {
+        String v = l.campo(nome);
+        if (v == null) throw new IllegalArgumentException(nome + " é obrigatório.");
+        return v;
+    }
+
+    private static final class Resultado {
+        long linhas;
+        long importados;
+        long falhas;
+        final List<FalhaImportacao> detalhes = new ArrayList<>();
+
+        void falhar(Linha l, String motivo) {
+            falhas++;
+            if (detalhes.size() < MAX_FALHAS_DETALHADAS) detalhes.add(new FalhaImportacao(l.numero(), motivo));
+        }
+
+        ProgressoImportacao progresso(String tipo) {
+            ProgressoImportacao p = new ProgressoImportacao();
+            p.setTipo(tipo);
+            p.setLinhas(linhas);
+            p.setImportados(importados);
+            p.setFalhas(falhas);
+            if ("resumo".equals(tipo)) p.setFalhasDetalhe(detalhes);
+            return p;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ProcessadorLote {
+        void processar(List<Linha> lote, Resultado resultado);
+    }
+
+    private ProgressoImportacao importar(FormatoImportacao formato, InputStream in, OutputStream out,
+                                         ProcessadorLote processador) throws IOException {
+
+        JsonGenerator gen = objectMapper.createGenerator(out);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        gen.setRootValueSeparator(null);
+
+        Resultado resultado = new Resultado();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Iterator<Linha> linhas = (formato == FormatoImportacao.CSV) ? new LeitorCsv(reader) : new LeitorNdjson(reader);
+
+        List<Linha> lote = new ArrayList<>(TAMANHO_LOTE);
+        while (true) {
+            Linha linha = null;
+            try {
+                if (!linhas.hasNext()) break;
+                linha = linhas.next();
+            } catch (LinhaInvalida e) {
+                resultado.linhas++;
+                resultado.falhar(new Linha(e.numero, Map.of()), e.getMessage());
+                continue;
+            }
+
+            resultado.linhas++;
+            lote.add(linha);
+
+            if (lote.size() == TAMANHO_LOTE) {
+                processador.processar(lote, resultado);
+                lote = new ArrayList<>(TAMANHO_LOTE);
+                escrever(gen, resultado.progresso("progresso"));
+            }
+        }
+
+        if (!lote.isEmpty()) {
+            processador.processar(lote, resultado);
+        }
+
+        ProgressoImportacao resumo = resultado.progresso("resumo");
+        escrever(gen, resumo);
+
+        log.info("Importação concluída: {} linha(s), {} importada(s), {} falha(s)",
+                resultado.linhas, resultado.importados, resultado.falhas);
+
+        return resumo;
+    }
+
+    private static void escrever(JsonGenerator gen, ProgressoImportacao p) throws IOException {
+        gen.writeObject(p);
+        gen.writeRaw('\n');
+        gen.flush(); // o cliente acompanha o progresso enquanto o arquivo é processado
+    }
+
+    // linha que não deu para ler (JSON inválido, aspas sem fechar...): vira falha, a leitura continua
+    private static final class LinhaInvalida extends RuntimeException {
+        final long numero;
+
+        LinhaInvalida(long numero, String motivo) {
+            super(motivo);
+            this.numero = numero;
+        }
+    }
+
+    // NDJSON: um objeto JSON por linha; linhas em branco são ignoradas
+    private final class LeitorNdjson implements Iterator<Linha> {
+
+        private final BufferedReader reader;
+        private long numero;
+        private String proxima;
+
+        LeitorNdjson(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (proxima == null) {
+                    String texto = reader.readLine();
+                    if (texto == null) return false;
+                    numero++;
+                    if (!texto.isBlank()) proxima = texto;
+                }
+                return true;
+            } catch (IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Linha next() {
+            String texto = proxima;
+            proxima = null;
+
+            JsonNode no;
+            try {
+                no = objectMapper.readTree(texto);
+            } catch (IOException e) {
+                throw new LinhaInvalida(numero, "JSON inválido.");
+            }
+            if (no == null || !no.isObject()) throw new LinhaInvalida(numero, "Esperado um objeto JSON.");
+
+            Map<String, String> campos = new HashMap<>();
+            no.fields().forEachRemaining(e -> {
+                if (!e.getValue().isNull()) campos.put(e.getKey(), e.getValue().asText());
+            });
+            return new Linha(numero, campos);
+        }
+    }
+
+    // CSV (RFC 4180) com cabeçalho na primeira linha; aceita campos entre aspas com quebra de linha
+    private static final class LeitorCsv implements Iterator<Linha> {
+
+        private final BufferedReader reader;
+        private String[] cabecalho;
+        private long numero;
+        private List<String> proxima;
+        private long numeroProxima;
+
+        LeitorCsv(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                if (cabecalho == null) {
+                    List<String> c = lerRegistro();
+                    if (c == null) return false;
+                    cabecalho = c.stream().map(String::trim).toArray(String[]::new);
+                }
+                while (proxima == null) {
+                    long inicio = numero + 1;
+                    List<String> r = lerRegistro();
+                    if (r == null) return false;
+                    if (r.size() == 1 && r.get(0).isBlank()) continue;
+                    proxima = r;
+                    numeroProxima = inicio;
+                }
+                return true;
+            } catch (IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Linha next() {
+            List<String> valores = proxima;
+            proxima = null;
+
+            if (valores.size() > cabecalho.length)
+                throw new LinhaInvalida(numeroProxima, "Mais colunas que o cabeçalho.");
+
+            Map<String, String> campos = new HashMap<>();
+            for (int i = 0; i < valores.size(); i++) {
+                campos.put(cabecalho[i], valores.get(i));
+            }
+            return new Linha(numeroProxima, campos);
+        }
+
+        // um registro (pode ocupar várias linhas físicas se houver aspas); null no fim do arquivo
+        private List<String> lerRegistro() throws IOException {
+            String texto = reader.readLine();
+            if (texto == null) return null;
+            numero++;
+
+            List<String> campos = new ArrayList<>();
+            StringBuilder atual = new StringBuilder();
+            boolean entreAspas = false;
+
+            while (true) {
+                for (int i = 0; i < texto.length(); i++) {
+                    char ch = texto.charAt(i);
+                    if (entreAspas) {
+                        if (ch == '"') {
+                            if (i + 1 < texto.length() && texto.charAt(i + 1) == '"') {
+                                atual.append('"');
+                                i++;
+                            } else {
+                                entreAspas = false;
+                            }
+                        } else {
+                            atual.append(ch);
+                        }
+                    } else if (ch == '"') {
+                        entreAspas = true;
+                    } else if (ch == ',') {
+                        campos.add(atual.toString());
+                        atual.setLength(0);
+                    } else {
+                        atual.append(ch);
+                    }
+                }
+
+                if (!entreAspas) break;
+
+                // aspas abertas: o campo continua na próxima linha
+                texto = reader.readLine();
+                if (texto == null) throw new LinhaInvalida(numero, "Aspas sem fechamento.");
+                numero++;
+                atual.append('\n');
+            }
+
+            campos.add(atual.toString());
+            return campos;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.barbearia.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Conjunto ordenado e imutável dos intervalos ocupados de um barbeiro em um dia.
+ *
+ * Os intervalos são guardados em minutos do dia ([inicio, fim), fim até 1440), ordenados
+ * pelo início, junto com o maior fim visto até cada posição. Com isso:
+ * - saber se [inicio, fim) sobrepõe algum intervalo custa uma busca binária;
+ * - as lacunas livres do expediente saem em uma passada, em qualquer granularidade.
+ *
+ * Intervalos sobrepostos (dados antigos) são aceitos. Para incluir um intervalo é
+ * criada uma cópia (com(...)), então uma instância pode ser lida por várias threads.
+ */
+public final class IntervalosOcupados {
+
+    public static final int MINUTOS_DIA = 24 * 60;
+
+    public static final IntervalosOcupados VAZIO = new IntervalosOcupados(new int[0], new int[0], new long[0]);
+
+    private final int[] inicios;
+    private final int[] fins;
+    private final long[] ids;
+
+    // maxFim[i] = maior fim entre os intervalos 0..i (não decrescente)
+    private final int[] maxFim;
+
+    private IntervalosOcupados(int[] inicios, int[] fins, long[] ids) {
+        this.inicios = inicios;
+        this.fins = fins;
+        this.ids = ids;
+        this.maxFim = new int[fins.length];
+
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < fins.length; i++) {
+            max = Math.max(max, fins[i]);
+            maxFim[i] = max;
+        }
+    }
+
+    /**
+     * Monta o conjunto a partir de arrays paralelos (em qualquer ordem).
+     * Intervalos vazios (fim <= inicio) são ignorados.
+     */
+    public static IntervalosOcupados de(int[] inicios, int[] fins, long[] ids) {
+
+        Integer[] ordem = new Integer[inicios.length];
+        int n = 0;
+        for (int i = 0; i < inicios.length; i++) {
+            if (fins[i] > inicios[i]) ordem[n++] = i;
+        }
+        if (n == 0) return VAZIO;
+
+        Arrays.sort(ordem, 0, n, (a, b) -> Integer.compare(inicios[a], inicios[b]));
+
+        int[] ini = new int[n];
+        int[] fim = new int[n];
+        long[] id = new long[n];
+        for (int k = 0; k < n; k++) {
+            ini[k] = inicios[ordem[k]];
+            fim[k] = fins[ordem[k]];
+            id[k] = ids[ordem[k]];
+        }
+        return new IntervalosOcupados(ini, fim, id);
+    }
+
+    public int tamanho() {
+        return inicios.length;
+    }
+
+    /**
+     * Cópia com o intervalo incluído na posição certa.
+     */
+    public IntervalosOcupados com(long id, int inicio, int fim) {
+
+        if (fim <= inicio) return this;
+
+        int pos = ultimoInicioAntes(inicio + 1) + 1; // depois dos que começam no mesmo minuto
+        int n = inicios.length;
+
+        int[] ini = new int[n + 1];
+        int[] fi = new int[n + 1];
+        long[] ident = new long[n + 1];
+
+        System.arraycopy(inicios, 0, ini, 0, pos);
+        System.arraycopy(fins, 0, fi, 0, pos);
+        System.arraycopy(ids, 0, ident, 0, pos);
+
+        ini[pos] = inicio;
+        fi[pos] = fim;
+        ident[pos] = id;
+
+        System.arraycopy(inicios, pos, ini, pos + 1, n - pos);
+        System.arraycopy(fins, pos, fi, pos + 1, n - pos);
+        System.arraycopy(ids, pos, ident, pos + 1, n - pos);
+
+        return new IntervalosOcupados(ini, fi, ident);
+    }
+
+    /**
+     * [inicio, fim) sobrepõe algum intervalo? O(log n).
+     */
+    public boolean sobrepoe(int inicio, int fim) {
+        if (fim <= inicio) return false;
+
+        // o último que começa antes de fim: se o maior fim até ele passa de inicio, há sobreposição
+        int i = ultimoInicioAntes(fim);
+        return i >= 0 && maxFim[i] > inicio;
+    }
+
+    /**
+     * Igual a sobrepoe(inicio, fim), ignorando o intervalo do agendamento idIgnorado
+     * (remarcação). Percorre só os candidatos à sobreposição.
+     */
+    public boolean sobrepoe(int inicio, int fim, Long idIgnorado) {
+        if (idIgnorado == null) return sobrepoe(inicio, fim);
+        if (fim <= inicio) return false;
+
+        for (int i = ultimoInicioAntes(fim); i >= 0 && maxFim[i] > inicio; i--) {
+            if (fins[i] > inicio && ids[i] != idIgnorado) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Lacunas livres dentro de [entrada, saida), em ordem: cada item é {inicio, fim}.
+     */
+    public List<int[]> lacunas(int entrada, int saida) {
+
+        List<int[]> livres = new ArrayList<>();
+        int cursor = entrada;
+
+        // os intervalos antes deste índice terminam até "entrada" (maxFim é não decrescente)
+        for (int i = primeiroComMaxFimDepois(entrada); i < inicios.length && cursor < saida; i++) {
+            if (inicios[i] >= saida) break;
+            if (fins[i] <= cursor) continue;
+
+            if (inicios[i] > cursor) livres.add(new int[]{cursor, inicios[i]});
+            cursor = fins[i];
+        }
+
+        if (cursor < saida) livres.add(new int[]{cursor, saida});
+
+        return livres;
+    }
+
+    /**
+     * Inícios (minuto do dia) onde cabe um atendimento de "duracao" minutos, alinhados a
+     * entrada + k * passo, a partir de "aPartirDe". Para ao achar "maximo" inícios.
+     */
+    public List<Integer> iniciosLivres(int entrada, int saida, int duracao, int passo,
+                                       int aPartirDe, int maximo) {
+
+        List<Integer> resultado = new ArrayList<>();
+        if (duracao <= 0 || passo <= 0) return resultado;
+
+        for (int[] lacuna : lacunas(entrada, saida)) {
+            int minimo = Math.max(lacuna[0], aPartirDe);
+            int t = entrada + Math.floorDiv(minimo - entrada + passo - 1, passo) * passo;
+
+            for (; t + duracao <= lacuna[1]; t += passo) {
+                if (resultado.size() >= maximo) return resultado;
+                resultado.add(t);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Inícios dos blocos de "granularidade" minutos de [entrada, saida) que têm
+     * alguma parte ocupada.
+     */
+    public List<Integer> blocosOcupados(int entrada, int saida, int granularidade) {
+
+        List<Integer> resultado = new ArrayList<>();
+        if (granularidade <= 0) return resultado;
+
+        for (int t = entrada; t < saida; t += granularidade) {
+            if (sobrepoe(t, Math.min(t + granularidade, saida))) resultado.add(t);
+        }
+        return resultado;
+    }
+
+    // último índice com inicios[i] < limite, ou -1
+    private int ultimoInicioAntes(int limite) {
+        int lo = 0, hi = inicios.length - 1, r = -1;
+        while (lo <= hi) {
+            int meio = (lo + hi) >>> 1;
+            if (inicios[meio] < limite) {
+                r = meio;
+                lo = meio + 1;
+            } else {
+                hi = meio - 1;
+            }
+        }
+        return r;
+    }
+
+    // primeiro índice com maxFim[i] > minuto, ou tamanho() se não houver
+    private int primeiroComMaxFimDepois(int minuto) {
+        int lo = 0, hi = maxFim.length - 1, r = maxFim.length;
+        while (lo <= hi) {
+            int meio = (lo + hi) >>> 1;
+            if (maxFim[meio] > minuto) {
+                r = meio;
+                hi = meio - 1;
+            } else {
+                lo = meio + 1;
+            }
+        }
+        return r;
+    }
+}
@@ -0,0 +1,23 @@
+package com.barbearia.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lembrete de agendamento entregue ao EnviadorLembretes.
+ */
+public record Lembrete(
+        Tipo tipo,
+        Long agendamentoId,
+        LocalDateTime dataHora,
+        String clienteNome,
+        String clienteEmail,
+        String clienteTelefone,
+        String barbeiroNome,
+        String servicoNome
+) {
+
+    public enum Tipo {
+        LEMBRETE_24H,
+        LEMBRETE_1H
+    }
+}
@@ -0,0 +1,361 @@
+package com.barbearia.service;
+
+import com.barbearia.repository.AgendamentoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lembretes 24h e 1h antes de cada agendamento e marcação automática de falta
+ * (NAO_COMPARECEU) depois que o horário termina sem pagamento.
+ *
+ * Os alarmes ficam numa RodaTemporal em memória, que só recebe as próximas horas
+ * (app.lembretes.janela): a cada app.lembretes.recarga a janela anda e só o trecho novo
+ * é lido do banco, por faixa de data_hora (índice idx_agendamentos_status_data_hora).
+ * Agendamentos de meses à frente não ocupam memória até entrarem na janela.
+ *
+ * Remarcação, cancelamento e pagamento chegam pelo outbox (OuvinteEventosAgendamento):
+ * os alarmes do agendamento são refeitos a partir do estado atual no banco, então
+ * eventos repetidos ou fora de ordem não deixam alarme errado.
+ *
+ * Sem envio duplicado, mesmo com reinício ou mais de uma instância: antes de enviar, o
+ * lembrete é reservado com um update condicional (lembrete_24h/1h_enviado_em is null e
+ * data_hora igual à do alarme). Se a aplicação cair entre a reserva e o envio, o lembrete
+ * se perde (no máximo uma vez). Ao subir, alarmes vencidos há até app.lembretes.atraso-maximo
+ * ainda são enviados e faltas das últimas app.lembretes.recuperar-faltas são marcadas.
+ *
+ * O envio é do EnviadorLembretes (padrão: EnviadorLembretesLog).
+ * Métricas: lembretes.alarmes, lembretes.enviados (tipo), lembretes.faltas,
+ * lembretes.ignorados e lembretes.falhas.
+ */
+@Service
+public class LembreteService implements OuvinteEventosAgendamento {
+
+    private static final Logger log = LoggerFactory.getLogger(LembreteService.class);
+
+    private enum TipoAlarme {
+        LEMBRETE_24H,
+        LEMBRETE_1H,
+        NAO_COMPARECEU
+    }
+
+    // referencia: data_hora (lembretes) ou data_hora_fim (falta) que o alarme espera encontrar no banco
+    private record Alarme(Long agendamentoId, TipoAlarme tipo, LocalDateTime referencia) {}
+
+    private record Chave(Long agendamentoId, TipoAlarme tipo) {}
+
+    private final AgendamentoRepository agendamentoRepository;
+    private final AgendamentoService agendamentoService;
+    private final EnviadorLembretes enviador;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean habilitado;
+    private final long tickMs;
+    private final Duration janela;
+    private final Duration recarga;
+    private final Duration atrasoMaximo;
+    private final Duration toleranciaFalta;
+    private final Duration recuperarFaltas;
+
+    // protegidos por "this"
+    private final RodaTemporal<Alarme> roda;
+    private final Map<Chave, RodaTemporal.Entrada<Alarme>> alarmes = new HashMap<>();
+    private LocalDateTime carregadoAte; // a janela já lida do banco vai até aqui
+    private LocalDateTime limite;       // alarmes que vencem antes disso entram na roda
+
+    private final ScheduledExecutorService relogio;
+    private final ExecutorService envio;
+
+    private final Counter enviados24h;
+    private final Counter enviados1h;
+    private final Counter faltas;
+    private final Counter ignorados;
+    private final Counter falhas;
+
+    public LembreteService(AgendamentoRepository agendamentoRepository,
+                           AgendamentoService agendamentoService,
+                           EnviadorLembretes enviador,
+                           TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.lembretes.habilitado:true}") boolean habilitado,
+                           @Value("${app.lembretes.tick:1s}") Duration tick,
+                           @Value("${app.lembretes.janela:6h}") Duration janela,
+                           @Value("${app.lembretes.recarga:1m}") Duration recarga,
+                           @Value("${app.lembretes.atraso-maximo:30m}") Duration atrasoMaximo,
+                           @Value("${app.lembretes.tolerancia-falta:30m}") Duration toleranciaFalta,
+                           @Value("${app.lembretes.recuperar-faltas:24h}") Duration recuperarFaltas,
+                           @Value("${app.lembretes.threads:2}") int threads) {
+        this.agendamentoRepository = agendamentoRepository;
+        this.agendamentoService = agendamentoService;
+        this.enviador = enviador;
+        this.transactionTemplate = transactionTemplate;
+        this.habilitado = habilitado;
+        this.tickMs = Math.max(1, tick.toMillis());
+        this.janela = janela;
+        this.recarga = recarga;
+        this.atrasoMaximo = atrasoMaximo;
+        this.toleranciaFalta = toleranciaFalta;
+        this.recuperarFaltas = recuperarFaltas;
+
+        this.roda = new RodaTemporal<>(tickMs, System.currentTimeMillis());
+
+        this.relogio = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "lembretes-roda");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger contador = new AtomicInteger();
+        this.envio = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "lembretes-envio-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        this.enviados24h = Counter.builder("lembretes.enviados").tag("tipo", "24h")
+                .description("Lembretes entregues ao enviador").register(meterRegistry);
+        this.enviados1h = Counter.builder("lembretes.enviados").tag("tipo", "1h")
+                .description("Lembretes entregues ao enviador").register(meterRegistry);
+        this.faltas = Counter.builder("lembretes.faltas")
+                .description("Agendamentos marcados como NAO_COMPARECEU").register(meterRegistry);
+        this.ignorados = Counter.builder("lembretes.ignorados")
+                .description("Alarmes vencidos sem efeito (já enviado, remarcado, cancelado ou pago)")
+                .register(meterRegistry);
+        this.falhas = Counter.builder("lembretes.falhas")
+                .description("Alarmes que falharam ao enviar ou marcar falta").register(meterRegistry);
+
+        Gauge.builder("lembretes.alarmes", this, LembreteService::totalAlarmes)
+                .description("Alarmes na roda (janela carregada)").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!habilitado) return;
+
+        relogio.scheduleWithFixedDelay(this::carregarComLog, 0, recarga.toMillis(), TimeUnit.MILLISECONDS);
+        relogio.scheduleAtFixedRate(this::avancar, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        relogio.shutdownNow();
+        envio.shutdown();
+    }
+
+    public synchronized int totalAlarmes() {
+        return roda.tamanho();
+    }
+
+    // ==========================
+    // EVENTOS DO OUTBOX
+    // ==========================
+
+    @Override
+    public void processar(List<EventoAgendamento> lote) {
+        if (!habilitado) return;
+
+        Set<Long> ids = new LinkedHashSet<>();
+        for (EventoAgendamento e : lote) ids.add(e.agendamentoId());
+
+        // estado atual no banco (só AGENDADOS): cancelado, pago ou falta não volta
+        List<Object[]> atuais = agendamentoRepository.findAlarmesPorIds(ids);
+
+        synchronized (this) {
+            if (limite == null) return; // a primeira carga ainda vai ler tudo do banco
+
+            LocalDateTime agora = LocalDateTime.now();
+            for (Long id : ids) {
+                for (TipoAlarme tipo : TipoAlarme.values()) {
+                    roda.cancelar(alarmes.remove(new Chave(id, tipo)));
+                }
+            }
+            for (Object[] linha : atuais) {
+                agendarLembretes(linha, agora);
+                agendarFalta((Long) linha[0], (LocalDateTime) linha[2]);
+            }
+        }
+    }
+
+    // ==========================
+    // JANELA (carga incremental)
+    // ==========================
+
+    private void carregarComLog() {
+        try {
+            carregar();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao carregar alarmes de lembrete: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Estende a janela até agora + janela, lendo do banco só o trecho ainda não carregado.
+     */
+    void carregar() {
+
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime ate = agora.plus(janela);
+        LocalDateTime de;
+        LocalDateTime deFaltas;
+
+        synchronized (this) {
+            de = (carregadoAte != null) ? carregadoAte : agora.minus(atrasoMaximo);
+            deFaltas = (carregadoAte != null) ? carregadoAte : agora.minus(recuperarFaltas);
+            if (!ate.isAfter(de)) return;
+
+            // eventos que chegarem durante a consulta já valem para a janela nova
+            limite = ate;
+        }
+
+        // alarme vence em [de, ate): lembrete de 24h => data_hora em [de + 24h, ate + 24h) etc.
+        List<Object[]> vespera = agendamentoRepository.findAlarmesPorInicio(de.plusHours(24), ate.plusHours(24));
+        List<Object[]> umaHora = agendamentoRepository.findAlarmesPorInicio(de.plusHours(1), ate.plusHours(1));
+        List<Object[]> terminando = agendamentoRepository.findAlarmesPorFim(
+                deFaltas.minus(toleranciaFalta).minusDays(1),
+                deFaltas.minus(toleranciaFalta),
+                ate.minus(toleranciaFalta));
+
+        synchronized (this) {
+            for (Object[] linha : vespera) {
+                if (linha[3] == null) agendarLembrete((Long) linha[0], TipoAlarme.LEMBRETE_24H, (LocalDateTime) linha[1], agora);
+            }
+            for (Object[] linha : umaHora) {
+                if (linha[4] == null) agendarLembrete((Long) linha[0], TipoAlarme.LEMBRETE_1H, (LocalDateTime) linha[1], agora);
+            }
+            for (Object[] linha : terminando) {
+                agendarFalta((Long) linha[0], (LocalDateTime) linha[1]);
+            }
+            carregadoAte = ate;
+        }
+    }
+
+    // [id, dataHora, dataHoraFim, lembrete24hEnviadoEm, lembrete1hEnviadoEm]
+    private void agendarLembretes(Object[] linha, LocalDateTime agora) {
+        Long id = (Long) linha[0];
+        LocalDateTime dataHora = (LocalDateTime) linha[1];
+        if (linha[3] == null) agendarLembrete(id, TipoAlarme.LEMBRETE_24H, dataHora, agora);
+        if (linha[4] == null) agendarLembrete(id, TipoAlarme.LEMBRETE_1H, dataHora, agora);
+    }
+
+    private void agendarLembrete(Long id, TipoAlarme tipo, LocalDateTime dataHora, LocalDateTime agora) {
+        if (dataHora == null || !dataHora.isAfter(agora)) return;
+
+        LocalDateTime vencimento = dataHora.minusHours(tipo == TipoAlarme.LEMBRETE_24H ? 24 : 1);
+
+        // atrasado demais (ex.: agendado 3h antes não recebe o de 24h)
+        if (vencimento.isBefore(agora.minus(atrasoMaximo))) return;
+        agendar(new Alarme(id, tipo, dataHora), vencimento);
+    }
+
+    private void agendarFalta(Long id, LocalDateTime fim) {
+        if (fim == null) return;
+        agendar(new Alarme(id, TipoAlarme.NAO_COMPARECEU, fim), fim.plus(toleranciaFalta));
+    }
+
+    // chamado com o lock: substitui o alarme anterior do mesmo agendamento/tipo
+    private void agendar(Alarme alarme, LocalDateTime vencimento) {
+        if (!vencimento.isBefore(limite)) return; // fora da janela: a próxima carga traz
+
+        Chave chave = new Chave(alarme.agendamentoId(), alarme.tipo());
+        roda.cancelar(alarmes.remove(chave));
+        alarmes.put(chave, roda.agendar(epochMs(vencimento), alarme));
+    }
+
+    // ==========================
+    // DISPARO
+    // ==========================
+
+    private void avancar() {
+        List<Alarme> vencidos;
+        synchronized (this) {
+            vencidos = roda.avancar(System.currentTimeMillis());
+            for (Alarme a : vencidos) alarmes.remove(new Chave(a.agendamentoId(), a.tipo()));
+        }
+
+        for (Alarme a : vencidos) {
+            try {
+                envio.execute(() -> disparar(a));
+            } catch (RejectedExecutionException e) {
+                return; // desligando
+            }
+        }
+    }
+
+    private void disparar(Alarme alarme) {
+        try {
+            if (alarme.tipo() == TipoAlarme.NAO_COMPARECEU) {
+                if (agendamentoService.marcarNaoComparecimento(alarme.agendamentoId(), alarme.referencia())) {
+                    faltas.increment();
+                } else {
+                    ignorados.increment();
+                }
+                return;
+            }
+            enviarLembrete(alarme);
+        } catch (RuntimeException e) {
+            falhas.increment();
+            log.warn("Falha no alarme {} do agendamento {}: {}", alarme.tipo(), alarme.agendamentoId(), e.getMessage());
+        }
+    }
+
+    private void enviarLembrete(Alarme alarme) {
+
+        Lembrete.Tipo tipo = (alarme.tipo() == TipoAlarme.LEMBRETE_24H) ? Lembrete.Tipo.LEMBRETE_24H : Lembrete.Tipo.LEMBRETE_1H;
+        Long id = alarme.agendamentoId();
+
+        if (!alarme.referencia().isAfter(LocalDateTime.now())) {
+            ignorados.increment(); // o horário já começou
+            return;
+        }
+
+        // reserva e lê os dados na mesma transação; o envio vem depois do commit
+        Lembrete lembrete = transactionTemplate.execute(tx -> {
+            LocalDateTime agora = LocalDateTime.now();
+            int reservado = (tipo == Lembrete.Tipo.LEMBRETE_24H)
+                    ? agendamentoRepository.reservarLembrete24h(id, alarme.referencia(), agora)
+                    : agendamentoRepository.reservarLembrete1h(id, alarme.referencia(), agora);
+            if (reservado == 0) return null;
+
+            Object[] d = agendamentoRepository.findDadosLembrete(id).get(0);
+            return new Lembrete(tipo, id, alarme.referencia(),
+                    (String) d[0], (String) d[1], (String) d[2], (String) d[3], (String) d[4]);
+        });
+
+        if (lembrete == null) {
+            ignorados.increment();
+            return;
+        }
+
+        enviador.enviar(lembrete);
+        (tipo == Lembrete.Tipo.LEMBRETE_24H ? enviados24h : enviados1h).increment();
+    }
+
+    private static long epochMs(LocalDateTime data) {
+        return data.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
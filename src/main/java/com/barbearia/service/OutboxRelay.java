@@ -0,0 +1,275 @@
+package com.barbearia.service;
+
+import com.barbearia.model.EventoOutbox;
+import com.barbearia.model.EventoOutbox.StatusEvento;
+import com.barbearia.repository.EventoOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entrega os eventos do outbox (eventos_outbox) aos beans OuvinteEventosAgendamento.
+ *
+ * Uma thread própria ("outbox-relay") lê lotes de PENDENTES em ordem de id, entrega a
+ * cada ouvinte e marca o lote como PUBLICADO numa transação curta. Acorda logo após o
+ * commit de quem gravou um evento (OutboxService) e, no máximo, a cada "intervalo".
+ *
+ * Pelo menos uma vez: o evento só vira PUBLICADO depois que todos os ouvintes aceitaram.
+ * Se a aplicação cair no meio do lote, ele é entregue de novo no próximo start. Falhas
+ * voltam com espera crescente e, depois de max-tentativas, ficam como FALHOU.
+ *
+ * Uma instância só entrega: não há trava entre instâncias (o índice de disponibilidade
+ * e os caches também são locais).
+ *
+ * Métricas: outbox.eventos (resultado=publicado|falha|descartado), outbox.lote (tempo de
+ * entrega por lote), outbox.atraso (gravação até publicação) e outbox.pendente.idade
+ * (segundos do pendente mais antigo: cresce se o relay parar).
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final int MAX_ERRO = 500;
+    private static final Duration ESPERA_MAXIMA = Duration.ofHours(1);
+    private static final Duration INTERVALO_LIMPEZA = Duration.ofHours(1);
+
+    private final EventoOutboxRepository eventoOutboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<OuvinteEventosAgendamento> ouvintes;
+
+    private final boolean habilitado;
+    private final int tamanhoLote;
+    private final long intervaloMs;
+    private final int maxTentativas;
+    private final Duration esperaBase;
+    private final Duration retencao;
+
+    private final Semaphore acordar = new Semaphore(0);
+    private final AtomicLong pendenteMaisAntigo = new AtomicLong(); // epoch ms de criadoEm; 0 = nada pendente
+    private volatile Thread thread;
+    private volatile boolean ativo;
+    private long proximaLimpeza;
+
+    private final Counter publicados;
+    private final Counter falhas;
+    private final Counter descartados;
+    private final Timer tempoLote;
+    private final Timer atraso;
+
+    public OutboxRelay(EventoOutboxRepository eventoOutboxRepository,
+                       TransactionTemplate transactionTemplate,
+                       ObjectProvider<OuvinteEventosAgendamento> ouvintes,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.outbox.habilitado:true}") boolean habilitado,
+                       @Value("${app.outbox.lote:200}") int tamanhoLote,
+                       @Value("${app.outbox.intervalo:1s}") Duration intervalo,
+                       @Value("${app.outbox.max-tentativas:10}") int maxTentativas,
+                       @Value("${app.outbox.espera-base:5s}") Duration esperaBase,
+                       @Value("${app.outbox.retencao:7d}") Duration retencao) {
+        this.eventoOutboxRepository = eventoOutboxRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ouvintes = ouvintes;
+        this.habilitado = habilitado;
+        this.tamanhoLote = tamanhoLote;
+        this.intervaloMs = intervalo.toMillis();
+        this.maxTentativas = maxTentativas;
+        this.esperaBase = esperaBase;
+        this.retencao = retencao;
+
+        this.publicados = Counter.builder("outbox.eventos").tag("resultado", "publicado")
+                .description("Eventos do outbox processados pelo relay").register(meterRegistry);
+        this.falhas = Counter.builder("outbox.eventos").tag("resultado", "falha")
+                .description("Eventos do outbox processados pelo relay").register(meterRegistry);
+        this.descartados = Counter.builder("outbox.eventos").tag("resultado", "descartado")
+                .description("Eventos do outbox processados pelo relay").register(meterRegistry);
+        this.tempoLote = Timer.builder("outbox.lote")
+                .description("Tempo de entrega de um lote aos ouvintes").register(meterRegistry);
+        this.atraso = Timer.builder("outbox.atraso")
+                .description("Tempo entre a gravação do evento e a publicação").register(meterRegistry);
+
+        Gauge.builder("outbox.pendente.idade", pendenteMaisAntigo, v -> {
+                    long criado = v.get();
+                    return (criado == 0) ? 0 : (System.currentTimeMillis() - criado) / 1000.0;
+                })
+                .description("Idade em segundos do evento pendente mais antigo visto pelo relay")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!habilitado || thread != null) return;
+
+        ativo = true;
+        thread = new Thread(this::executar, "outbox-relay");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        ativo = false;
+        Thread t = thread;
+        if (t != null) t.interrupt();
+    }
+
+    /**
+     * Pede uma rodada agora (chamado após o commit de quem gravou eventos).
+     */
+    public void acordar() {
+        if (acordar.availablePermits() == 0) acordar.release();
+    }
+
+    // ==========================
+    // LAÇO DO RELAY
+    // ==========================
+
+    private void executar() {
+        while (ativo) {
+            try {
+                acordar.tryAcquire(intervaloMs, TimeUnit.MILLISECONDS);
+                acordar.drainPermits();
+
+                while (ativo && processarLote() == tamanhoLote) {
+                    // backlog: segue lendo sem esperar o intervalo
+                }
+                limparSeNecessario();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // banco fora do ar etc.: tenta de novo na próxima rodada
+                log.warn("Falha no relay do outbox: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Entrega um lote de pendentes e devolve quantos eventos foram lidos.
+     */
+    public synchronized int processarLote() {
+
+        LocalDateTime agora = LocalDateTime.now();
+        List<EventoOutbox> pendentes = eventoOutboxRepository.findPendentes(agora, PageRequest.of(0, tamanhoLote));
+
+        if (pendentes.isEmpty()) {
+            pendenteMaisAntigo.set(0);
+            return 0;
+        }
+        pendenteMaisAntigo.set(epochMs(pendentes.get(0).getCriadoEm()));
+
+        List<EventoAgendamento> lote = new ArrayList<>(pendentes.size());
+        for (EventoOutbox e : pendentes) lote.add(EventoAgendamento.de(e));
+
+        Map<Long, String> erros = new LinkedHashMap<>();
+        tempoLote.record(() -> ouvintes.orderedStream().forEach(o -> entregar(o, lote, erros)));
+
+        LocalDateTime publicadoEm = LocalDateTime.now();
+        List<Long> ok = new ArrayList<>(pendentes.size());
+        for (EventoOutbox e : pendentes) {
+            if (!erros.containsKey(e.getId())) {
+                ok.add(e.getId());
+                atraso.record(Duration.between(e.getCriadoEm(), publicadoEm));
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            if (!ok.isEmpty()) eventoOutboxRepository.marcarPublicados(ok, publicadoEm);
+            for (EventoOutbox e : pendentes) {
+                String erro = erros.get(e.getId());
+                if (erro != null) registrarFalha(e, erro, publicadoEm);
+            }
+        });
+        publicados.increment(ok.size());
+
+        // lote incompleto: não sobrou pendente liberado para agora
+        if (pendentes.size() < tamanhoLote) pendenteMaisAntigo.set(0);
+
+        return pendentes.size();
+    }
+
+    // lote inteiro; se falhar, evento a evento para isolar o que está com problema
+    private void entregar(OuvinteEventosAgendamento ouvinte, List<EventoAgendamento> lote, Map<Long, String> erros) {
+        try {
+            ouvinte.processar(lote);
+            return;
+        } catch (RuntimeException e) {
+            if (lote.size() == 1) {
+                erros.put(lote.get(0).id(), descrever(ouvinte, e));
+                return;
+            }
+        }
+
+        for (EventoAgendamento evento : lote) {
+            try {
+                ouvinte.processar(List.of(evento));
+            } catch (RuntimeException e) {
+                erros.putIfAbsent(evento.id(), descrever(ouvinte, e));
+            }
+        }
+    }
+
+    private void registrarFalha(EventoOutbox e, String erro, LocalDateTime agora) {
+
+        int tentativas = e.getTentativas() + 1;
+
+        if (tentativas >= maxTentativas) {
+            log.error("Evento {} ({} do agendamento {}) descartado após {} tentativas: {}",
+                    e.getId(), e.getTipo(), e.getAgendamentoId(), tentativas, erro);
+            eventoOutboxRepository.registrarFalha(e.getId(), StatusEvento.FALHOU, tentativas, null, erro);
+            descartados.increment();
+            return;
+        }
+
+        // espera-base, 2x, 4x... até 1 hora
+        long fator = 1L << Math.min(tentativas - 1, 20);
+        Duration espera = esperaBase.multipliedBy(fator);
+        if (espera.compareTo(ESPERA_MAXIMA) > 0) espera = ESPERA_MAXIMA;
+
+        log.warn("Evento {} ({} do agendamento {}) falhou (tentativa {}): {}",
+                e.getId(), e.getTipo(), e.getAgendamentoId(), tentativas, erro);
+        eventoOutboxRepository.registrarFalha(e.getId(), StatusEvento.PENDENTE, tentativas, agora.plus(espera), erro);
+        falhas.increment();
+    }
+
+    private void limparSeNecessario() {
+        long agora = System.currentTimeMillis();
+        if (agora < proximaLimpeza) return;
+        proximaLimpeza = agora + INTERVALO_LIMPEZA.toMillis();
+
+        Integer apagados = transactionTemplate.execute(tx ->
+                eventoOutboxRepository.apagarPublicadosAntes(LocalDateTime.now().minus(retencao)));
+        if (apagados != null && apagados > 0) log.info("Outbox: {} eventos publicados removidos", apagados);
+    }
+
+    private static String descrever(OuvinteEventosAgendamento ouvinte, RuntimeException e) {
+        String texto = ouvinte.getClass().getSimpleName() + ": " + e;
+        return (texto.length() > MAX_ERRO) ? texto.substring(0, MAX_ERRO) : texto;
+    }
+
+    private static long epochMs(LocalDateTime data) {
+        return data.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,67 @@
+package com.barbearia.service;
+
+import com.barbearia.model.Agendamento;
+import com.barbearia.model.EventoOutbox;
+import com.barbearia.model.EventoOutbox.TipoEvento;
+import com.barbearia.repository.EventoOutboxRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Grava eventos de agendamento no outbox, dentro da transação de quem chama.
+ *
+ * O evento só existe se a escrita commitar, e quem reage a ele (OuvinteEventosAgendamento)
+ * roda depois, no OutboxRelay: a requisição paga só um insert, que entra no mesmo lote
+ * JDBC do agendamento, não importa quantos ouvintes existam.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+    private final EventoOutboxRepository eventoOutboxRepository;
+    private final OutboxRelay outboxRelay;
+
+    public OutboxService(EventoOutboxRepository eventoOutboxRepository, OutboxRelay outboxRelay) {
+        this.eventoOutboxRepository = eventoOutboxRepository;
+        this.outboxRelay = outboxRelay;
+    }
+
+    public void registrar(TipoEvento tipo, Agendamento agendamento) {
+        registrar(tipo, agendamento, null);
+    }
+
+    // dataHoraAnterior: só na remarcação
+    public void registrar(TipoEvento tipo, Agendamento agendamento, LocalDateTime dataHoraAnterior) {
+        eventoOutboxRepository.save(new EventoOutbox(tipo, agendamento, dataHoraAnterior));
+        acordarAposCommit();
+    }
+
+    public void registrarTodos(TipoEvento tipo, List<Agendamento> agendamentos) {
+        List<EventoOutbox> eventos = new ArrayList<>(agendamentos.size());
+        for (Agendamento a : agendamentos) eventos.add(new EventoOutbox(tipo, a, null));
+        eventoOutboxRepository.saveAll(eventos);
+        acordarAposCommit();
+    }
+
+    // uma sincronização por transação basta para acordar o relay
+    private void acordarAposCommit() {
+        for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+            if (s instanceof AcordarRelay) return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new AcordarRelay());
+    }
+
+    private final class AcordarRelay implements TransactionSynchronization {
+        @Override
+        public void afterCommit() {
+            outboxRelay.acordar();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.barbearia.service;
+
+import java.util.List;
+
+/**
+ * Consumidor dos eventos de agendamento (criado, remarcado, cancelado, pago).
+ *
+ * Basta ser um bean: o OutboxRelay entrega os eventos em lotes, na ordem em que foram
+ * gravados, fora das transações das requisições. Se processar(...) lançar exceção, o
+ * lote é reentregue evento a evento e só os que falharem voltam para o outbox (com
+ * espera crescente). Um evento pode chegar mais de uma vez: o processamento deve ser
+ * idempotente.
+ */
+public interface OuvinteEventosAgendamento {
+
+    void processar(List<EventoAgendamento> lote);
+}
@@ -2,13 +2,18 @@ package com.barbearia.service;
 
 import com.barbearia.dto.DTOs.PagamentoRequest;
 import com.barbearia.dto.DTOs.PagamentoResponse;
+import com.barbearia.dto.DTOs.RelatorioDia;
 import com.barbearia.dto.DTOs.RelatorioFinanceiroResponse;
+import com.barbearia.dto.DTOs.RelatorioFormaPagamento;
 import com.barbearia.exception.BusinessException;
 import com.barbearia.exception.ResourceNotFoundException;
 import com.barbearia.model.Agendamento;
 import com.barbearia.model.Pagamento;
+import com.barbearia.model.PagamentoDiario;
 import com.barbearia.model.Agendamento.StatusAgendamento;
+import com.barbearia.model.EventoOutbox.TipoEvento;
 import com.barbearia.repository.AgendamentoRepository;
+import com.barbearia.repository.PagamentoDiarioRepository;
 import com.barbearia.repository.PagamentoRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,6 +21,10 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @Transactional
@@ -23,11 +32,23 @@ public class PagamentoService {
 
     private final PagamentoRepository pagamentoRepository;
     private final AgendamentoRepository agendamentoRepository;
+    private final DisponibilidadeIndex disponibilidadeIndex;
+    private final PagamentoDiarioRepository pagamentoDiarioRepository;
+    private final RelatorioAnaliticoService relatorioAnaliticoService;
+    private final OutboxService outboxService;
 
     public PagamentoService(PagamentoRepository pagamentoRepository,
-                            AgendamentoRepository agendamentoRepository) {
+                            AgendamentoRepository agendamentoRepository,
+                            DisponibilidadeIndex disponibilidadeIndex,
+                            PagamentoDiarioRepository pagamentoDiarioRepository,
+                            RelatorioAnaliticoService relatorioAnaliticoService,
+                            OutboxService outboxService) {
         this.pagamentoRepository = pagamentoRepository;
         this.agendamentoRepository = agendamentoRepository;
+        this.disponibilidadeIndex = disponibilidadeIndex;
+        this.pagamentoDiarioRepository = pagamentoDiarioRepository;
+        this.relatorioAnaliticoService = relatorioAnaliticoService;
+        this.outboxService = outboxService;
     }
 
     public PagamentoResponse pagar(PagamentoRequest request) {
@@ -75,10 +96,25 @@ public class PagamentoService {
 
         pagamento = pagamentoRepository.save(pagamento);
 
-        // 6) ao pagar, agendamento vira CONCLUIDO
+        // 6) consolidado do dia, na mesma transação do pagamento.
+        // Linha nova: insert com ON CONFLICT; se outro pagamento criou a linha ao mesmo tempo,
+        // soma de novo (a linha já existe). Sem violação de PK e sem o SELECT do merge do save().
+        LocalDate dia = pagamento.getDataPagamento().toLocalDate();
+        if (pagamentoDiarioRepository.somar(dia, forma, valorCobrado) == 0
+                && pagamentoDiarioRepository.inserirSeAusente(dia, forma.name(), valorCobrado) == 0) {
+            pagamentoDiarioRepository.somar(dia, forma, valorCobrado);
+        }
+
+        // 7) ao pagar, agendamento vira CONCLUIDO
         agendamento.setStatus(StatusAgendamento.CONCLUIDO);
         agendamentoRepository.save(agendamento);
 
+        // CONCLUIDO não bloqueia mais o horário na disponibilidade
+        disponibilidadeIndex.liberar(agendamento.getBarbeiro().getId(), agendamento.getId(),
+                agendamento.getDataHora(), agendamento.getDataHoraFim());
+        relatorioAnaliticoService.invalidar(agendamento.getDataHora().toLocalDate());
+        outboxService.registrar(TipoEvento.PAGO, agendamento);
+
         return toResponse(pagamento);
     }
 
@@ -91,17 +127,52 @@ public class PagamentoService {
         if (dataFim.isBefore(dataInicio))
             throw new BusinessException("dataFim não pode ser antes de dataInicio.");
 
-        LocalDateTime inicio = dataInicio.atStartOfDay();
-        LocalDateTime fim = dataFim.plusDays(1).atStartOfDay(); // fim inclusivo
-
-        BigDecimal total = pagamentoRepository.somarTotalPorPeriodo(inicio, fim);
-        long quantidade = pagamentoRepository.contarPorPeriodo(inicio, fim);
+        // lê só o consolidado: no máximo (dias x formas de pagamento) linhas, fim inclusivo
+        List<PagamentoDiario> linhas = pagamentoDiarioRepository.findByPeriodo(dataInicio, dataFim);
+
+        BigDecimal total = BigDecimal.ZERO;
+        long quantidade = 0;
+
+        List<RelatorioDia> porDia = new ArrayList<>();
+        Map<Pagamento.FormaPagamento, RelatorioFormaPagamento> porForma = new EnumMap<>(Pagamento.FormaPagamento.class);
+
+        RelatorioDia diaAtual = null;
+        BigDecimal totalDia = BigDecimal.ZERO;
+
+        for (PagamentoDiario d : linhas) {
+            total = total.add(d.getTotal());
+            quantidade += d.getQuantidade();
+
+            // linhas vêm ordenadas por data
+            if (diaAtual == null || !diaAtual.getData().equals(d.getData())) {
+                diaAtual = new RelatorioDia();
+                diaAtual.setData(d.getData());
+                diaAtual.setQuantidade(0);
+                totalDia = BigDecimal.ZERO;
+                porDia.add(diaAtual);
+            }
+            totalDia = totalDia.add(d.getTotal());
+            diaAtual.setTotal(totalDia.doubleValue());
+            diaAtual.setQuantidade(diaAtual.getQuantidade() + (int) d.getQuantidade());
+
+            RelatorioFormaPagamento f = porForma.computeIfAbsent(d.getFormaPagamento(), forma -> {
+                RelatorioFormaPagamento nova = new RelatorioFormaPagamento();
+                nova.setFormaPagamento(forma.name());
+                nova.setTotal(0.0);
+                nova.setQuantidade(0);
+                return nova;
+            });
+            f.setTotal(BigDecimal.valueOf(f.getTotal()).add(d.getTotal()).doubleValue());
+            f.setQuantidade(f.getQuantidade() + (int) d.getQuantidade());
+        }
 
         RelatorioFinanceiroResponse r = new RelatorioFinanceiroResponse();
         r.setDataInicio(dataInicio);
         r.setDataFim(dataFim);
         r.setTotal(total.doubleValue());
         r.setQuantidadePagamentos((int) quantidade);
+        r.setPorDia(porDia);
+        r.setPorFormaPagamento(new ArrayList<>(porForma.values()));
 
         return r;
     }
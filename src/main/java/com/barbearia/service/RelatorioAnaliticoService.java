@@ -0,0 +1,251 @@
+package com.barbearia.service;
+
+import com.barbearia.config.CacheCarregavel;
+import com.barbearia.dto.DTOs.IndicadoresAnaliticos;
+import com.barbearia.dto.DTOs.RelatorioAnaliticoResponse;
+import com.barbearia.exception.BusinessException;
+import com.barbearia.model.Barbeiro;
+import com.barbearia.repository.BarbeiroRepository;
+import com.barbearia.repository.PagamentoRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Relatório analítico por período: receita, ticket médio, cancelamento,
+ * não comparecimento e ocupação por barbeiro, serviço e forma de pagamento.
+ *
+ * O banco devolve uma linha por (barbeiro, serviço, forma de pagamento) e os
+ * subtotais são montados aqui numa única passada. Todo barbeiro ativo entra na
+ * ocupação, mesmo sem agendamento no período. O resultado fica em cache por
+ * período; qualquer escrita que mexa num dia do período descarta a entrada.
+ */
+@Service
+@Transactional(readOnly = true)
+public class RelatorioAnaliticoService {
+
+    private record Periodo(LocalDate inicio, LocalDate fim) {
+        boolean contem(LocalDate data) {
+            return !data.isBefore(inicio) && !data.isAfter(fim);
+        }
+    }
+
+    private final PagamentoRepository pagamentoRepository;
+    private final BarbeiroRepository barbeiroRepository;
+    private final CacheCarregavel<Periodo, RelatorioAnaliticoResponse> cache;
+
+    public RelatorioAnaliticoService(PagamentoRepository pagamentoRepository,
+                                     BarbeiroRepository barbeiroRepository,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.cache.analitico.tamanho-maximo:500}") long tamanhoMaximo,
+                                     @Value("${app.cache.analitico.ttl:5m}") Duration ttl) {
+        this.pagamentoRepository = pagamentoRepository;
+        this.barbeiroRepository = barbeiroRepository;
+        Cache<Periodo, RelatorioAnaliticoResponse> caffeine = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(ttl) // o não comparecimento depende do horário atual
+                .recordStats()
+                .build();
+        this.cache = new CacheCarregavel<>(caffeine);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, caffeine, "relatorio-analitico");
+    }
+
+    public RelatorioAnaliticoResponse gerar(LocalDate dataInicio, LocalDate dataFim) {
+
+        if (dataInicio == null || dataFim == null)
+            throw new BusinessException("dataInicio e dataFim são obrigatórios.");
+
+        if (dataFim.isBefore(dataInicio))
+            throw new BusinessException("dataFim não pode ser antes de dataInicio.");
+
+        return cache.obter(new Periodo(dataInicio, dataFim), this::calcular);
+    }
+
+    /**
+     * Descarta (depois do commit) os períodos em cache que contêm alguma das datas.
+     */
+    public void invalidar(LocalDate... datas) {
+        Runnable acao = () -> cache.invalidarSe(p -> {
+            for (LocalDate d : datas) {
+                if (d != null && p.contem(d)) return true;
+            }
+            return false;
+        });
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
+
+    // ==========================
+    // CÁLCULO
+    // ==========================
+
+    private RelatorioAnaliticoResponse calcular(Periodo periodo) {
+
+        List<Object[]> linhas = pagamentoRepository.agregarAnalitico(
+                periodo.inicio().atStartOfDay(),
+                periodo.fim().plusDays(1).atStartOfDay(), // fim inclusivo
+                LocalDateTime.now()
+        );
+
+        long dias = ChronoUnit.DAYS.between(periodo.inicio(), periodo.fim()) + 1;
+
+        Acumulador geral = new Acumulador(null, "Geral");
+        Map<Long, Acumulador> porBarbeiro = new LinkedHashMap<>();
+        Map<Long, Acumulador> porServico = new LinkedHashMap<>();
+        Map<String, Acumulador> porForma = new LinkedHashMap<>();
+
+        // expediente de quem estava disponível, com ou sem agendamento no período
+        for (Barbeiro b : barbeiroRepository.findByAtivoTrue()) {
+            porBarbeiro.put(b.getId(), acumuladorDeBarbeiro(b.getId(), b.getNome(),
+                    b.getHoraEntrada(), b.getHoraSaida(), dias, geral));
+        }
+
+        for (Object[] l : linhas) {
+            Long barbeiroId = (Long) l[0];
+            Long servicoId = (Long) l[4];
+            Enum<?> forma = (Enum<?>) l[6];
+
+            // inativo hoje, mas com agendamentos no período
+            Acumulador barbeiro = porBarbeiro.computeIfAbsent(barbeiroId, id -> acumuladorDeBarbeiro(id,
+                    (String) l[1], (LocalTime) l[2], (LocalTime) l[3], dias, geral));
+            Acumulador servico = porServico.computeIfAbsent(servicoId,
+                    id -> new Acumulador(String.valueOf(id), (String) l[5]));
+
+            geral.somar(l);
+            barbeiro.somar(l);
+            servico.somar(l);
+
+            // agendamentos sem pagamento não entram no agrupamento por forma
+            if (forma != null) {
+                porForma.computeIfAbsent(forma.name(), nome -> new Acumulador(nome, nome)).somar(l);
+            }
+        }
+
+        RelatorioAnaliticoResponse r = new RelatorioAnaliticoResponse();
+        r.setDataInicio(periodo.inicio());
+        r.setDataFim(periodo.fim());
+        r.setGeral(geral.indicadores(true, true));
+        r.setPorBarbeiro(listar(porBarbeiro, true, true));
+        r.setPorServico(listar(porServico, true, false));
+        r.setPorFormaPagamento(listar(porForma, false, false));
+
+        return r;
+    }
+
+    private static List<IndicadoresAnaliticos> listar(Map<?, Acumulador> grupos,
+                                                      boolean comAgendamentos, boolean comOcupacao) {
+        List<IndicadoresAnaliticos> lista = new ArrayList<>(grupos.size());
+        for (Acumulador a : grupos.values()) {
+            lista.add(a.indicadores(comAgendamentos, comOcupacao));
+        }
+        return lista;
+    }
+
+    private static Acumulador acumuladorDeBarbeiro(Long id, String nome, LocalTime entrada, LocalTime saida,
+                                                   long dias, Acumulador geral) {
+        Acumulador a = new Acumulador(String.valueOf(id), nome);
+        a.minutosDisponiveis = dias * minutosExpediente(entrada, saida);
+        geral.minutosDisponiveis += a.minutosDisponiveis;
+        return a;
+    }
+
+    private static long minutosExpediente(LocalTime entrada, LocalTime saida) {
+        if (entrada == null || saida == null || !saida.isAfter(entrada)) return 0;
+        return ChronoUnit.MINUTES.between(entrada, saida);
+    }
+
+    private static long numero(Object valor) {
+        return (valor == null) ? 0 : ((Number) valor).longValue();
+    }
+
+    private static double taxa(long parte, long total) {
+        if (total == 0) return 0.0;
+        return BigDecimal.valueOf(parte)
+                .divide(BigDecimal.valueOf(total), 4, RoundingMode.HALF_UP)
+                .doubleValue();
+    }
+
+    private static final class Acumulador {
+
+        private final String id;
+        private final String nome;
+
+        private BigDecimal receita = BigDecimal.ZERO;
+        private long pagamentos;
+        private long agendamentos;
+        private long cancelados;
+        private long naoCompareceu;
+        private long minutosOcupados;
+        private long minutosDisponiveis;
+
+        private Acumulador(String id, String nome) {
+            this.id = id;
+            this.nome = nome;
+        }
+
+        private void somar(Object[] l) {
+            agendamentos += numero(l[7]);
+            cancelados += numero(l[8]);
+            naoCompareceu += numero(l[9]);
+            minutosOcupados += numero(l[10]);
+            pagamentos += numero(l[11]);
+            if (l[12] != null) receita = receita.add((BigDecimal) l[12]);
+        }
+
+        private IndicadoresAnaliticos indicadores(boolean comAgendamentos, boolean comOcupacao) {
+
+            IndicadoresAnaliticos i = new IndicadoresAnaliticos();
+            i.setId(id);
+            i.setNome(nome);
+
+            i.setReceita(receita.doubleValue());
+            i.setQuantidadePagamentos((int) pagamentos);
+            i.setTicketMedio(pagamentos == 0 ? 0.0
+                    : receita.divide(BigDecimal.valueOf(pagamentos), 2, RoundingMode.HALF_UP).doubleValue());
+
+            if (comAgendamentos) {
+                i.setAgendamentos((int) agendamentos);
+                i.setCancelados((int) cancelados);
+                i.setNaoCompareceu((int) naoCompareceu);
+                i.setTaxaCancelamento(taxa(cancelados, agendamentos));
+                i.setTaxaNaoComparecimento(taxa(naoCompareceu, agendamentos));
+                i.setMinutosOcupados(minutosOcupados);
+            }
+
+            if (comOcupacao) {
+                i.setMinutosDisponiveis(minutosDisponiveis);
+                i.setTaxaOcupacao(taxa(minutosOcupados, minutosDisponiveis));
+            }
+
+            return i;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.barbearia.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Roda temporal hierárquica (hierarchical timing wheel) para os alarmes do LembreteService.
+ *
+ * São NIVEIS rodas de BALDES baldes cada. No nível 0 cada balde vale um tick; no nível n,
+ * BALDES^n ticks. Um alarme entra no nível mais baixo que alcança o seu vencimento e desce
+ * de nível (cascata) quando a roda de baixo completa uma volta, até vencer no nível 0.
+ *
+ * - agendar e cancelar custam O(1) (cada balde é uma lista duplamente ligada);
+ * - avançar custa O(1) por tick mais os alarmes que vencem ou descem de nível;
+ * - a memória é fixa (NIVEIS x BALDES sentinelas) mais um nó por alarme, não importa
+ *   a distância dos vencimentos.
+ *
+ * Não é thread-safe: quem usa sincroniza.
+ */
+final class RodaTemporal<T> {
+
+    private static final int BITS = 6;
+    private static final int BALDES = 1 << BITS;       // 64 por nível
+    private static final int MASCARA = BALDES - 1;
+    private static final int NIVEIS = 4;               // 64^4 ticks (com tick de 1s, ~194 dias)
+    private static final long ALCANCE = 1L << (BITS * NIVEIS);
+
+    /**
+     * Entrada na roda. Guarde a referência para cancelar.
+     */
+    static final class Entrada<T> {
+
+        private final long vencimento; // em ticks
+        private final T valor;
+        private Entrada<T> anterior;
+        private Entrada<T> proximo;
+        private boolean naRoda;
+
+        private Entrada(long vencimento, T valor) {
+            this.vencimento = vencimento;
+            this.valor = valor;
+        }
+
+        T valor() {
+            return valor;
+        }
+    }
+
+    private final long tickMs;
+    private final Entrada<T>[][] baldes; // sentinelas das listas circulares
+    private long atual;                 // último tick processado
+    private int tamanho;
+
+    RodaTemporal(long tickMs, long agoraMs) {
+        this.tickMs = tickMs;
+        this.atual = agoraMs / tickMs;
+        @SuppressWarnings("unchecked")
+        Entrada<T>[][] baldes = (Entrada<T>[][]) new Entrada<?>[NIVEIS][BALDES];
+        this.baldes = baldes;
+        for (Entrada<T>[] nivel : baldes) {
+            for (int i = 0; i < BALDES; i++) {
+                Entrada<T> sentinela = new Entrada<>(0, null);
+                sentinela.anterior = sentinela;
+                sentinela.proximo = sentinela;
+                nivel[i] = sentinela;
+            }
+        }
+    }
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Agenda "valor" para vencer em "quandoMs". Vencimento já passado vence no próximo avanço.
+     */
+    Entrada<T> agendar(long quandoMs, T valor) {
+        Entrada<T> entrada = new Entrada<>(Math.max(quandoMs / tickMs, atual + 1), valor);
+        colocar(entrada);
+        tamanho++;
+        return entrada;
+    }
+
+    void cancelar(Entrada<T> entrada) {
+        if (entrada == null || !entrada.naRoda) return;
+        retirar(entrada);
+        tamanho--;
+    }
+
+    /**
+     * Avança até "agoraMs" e devolve os valores vencidos, em ordem de vencimento.
+     */
+    List<T> avancar(long agoraMs) {
+
+        long alvo = agoraMs / tickMs;
+        List<T> vencidos = new ArrayList<>();
+
+        while (atual < alvo) {
+            atual++;
+
+            // fim de volta do nível 0: desce o balde correspondente do nível 1 (e assim por diante)
+            if ((atual & MASCARA) == 0) {
+                for (int nivel = 1; nivel < NIVEIS; nivel++) {
+                    int indice = (int) ((atual >>> (BITS * nivel)) & MASCARA);
+                    cascatear(baldes[nivel][indice]);
+                    if (indice != 0) break;
+                }
+            }
+
+            Entrada<T> sentinela = baldes[0][(int) (atual & MASCARA)];
+            while (sentinela.proximo != sentinela) {
+                Entrada<T> entrada = sentinela.proximo;
+                retirar(entrada);
+                tamanho--;
+                vencidos.add(entrada.valor);
+            }
+        }
+        return vencidos;
+    }
+
+    // ==========================
+    // LISTAS
+    // ==========================
+
+    private void colocar(Entrada<T> entrada) {
+
+        long delta = entrada.vencimento - atual;
+        long vencimento = (delta >= ALCANCE) ? atual + ALCANCE - 1 : entrada.vencimento; // além do alcance: volta na cascata
+
+        int nivel = 0;
+        while (nivel < NIVEIS - 1 && (vencimento - atual) >= (1L << (BITS * (nivel + 1)))) {
+            nivel++;
+        }
+        int indice = (int) ((Math.max(vencimento, atual) >>> (BITS * nivel)) & MASCARA);
+
+        Entrada<T> sentinela = baldes[nivel][indice];
+        entrada.anterior = sentinela.anterior;
+        entrada.proximo = sentinela;
+        sentinela.anterior.proximo = entrada;
+        sentinela.anterior = entrada;
+        entrada.naRoda = true;
+    }
+
+    private static <T> void retirar(Entrada<T> entrada) {
+        entrada.anterior.proximo = entrada.proximo;
+        entrada.proximo.anterior = entrada.anterior;
+        entrada.anterior = null;
+        entrada.proximo = null;
+        entrada.naRoda = false;
+    }
+
+    private void cascatear(Entrada<T> sentinela) {
+        if (sentinela.proximo == sentinela) return;
+
+        // solta a lista inteira e recoloca cada entrada a partir do tick atual
+        Entrada<T> entrada = sentinela.proximo;
+        sentinela.anterior.proximo = null;
+        sentinela.proximo = sentinela;
+        sentinela.anterior = sentinela;
+
+        while (entrada != null) {
+            Entrada<T> seguinte = entrada.proximo;
+            colocar(entrada);
+            entrada = seguinte;
+        }
+    }
+}
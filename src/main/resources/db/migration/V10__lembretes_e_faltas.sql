@@ -0,0 +1,17 @@
+-- ============================================================
+-- V10__lembretes_e_faltas.sql
+-- Lembretes de 24h/1h e faltas (LembreteService): colunas de
+-- reserva do envio, novo status NAO_COMPARECEU e índice para as
+-- varreduras por faixa de data_hora dos AGENDADOS.
+-- ============================================================
+
+-- null = lembrete ainda não enviado para o horário atual (a remarcação zera)
+ALTER TABLE agendamentos ADD COLUMN lembrete_24h_enviado_em TIMESTAMP;
+ALTER TABLE agendamentos ADD COLUMN lembrete_1h_enviado_em TIMESTAMP;
+
+ALTER TABLE agendamentos DROP CONSTRAINT IF EXISTS agendamentos_status_check;
+ALTER TABLE agendamentos ADD CONSTRAINT agendamentos_status_check
+    CHECK (status IN ('AGENDADO','CONFIRMADO','CONCLUIDO','CANCELADO','NAO_COMPARECEU'));
+
+-- Índice que cobre: status = 'AGENDADO' AND data_hora >= ? AND data_hora < ?
+CREATE INDEX idx_agendamentos_status_data_hora ON agendamentos(status, data_hora);
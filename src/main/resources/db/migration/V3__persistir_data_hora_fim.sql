@@ -0,0 +1,20 @@
+-- ============================================================
+-- V3__persistir_data_hora_fim.sql
+-- Grava o fim do agendamento para que conflito/disponibilidade
+-- usem só predicados de intervalo (sem join em servicos)
+-- ============================================================
+
+ALTER TABLE agendamentos ADD COLUMN data_hora_fim TIMESTAMP;
+
+-- Backfill pela duração do serviço
+UPDATE agendamentos a
+SET data_hora_fim = a.data_hora + (s.duracao_minutos * INTERVAL '1 minute')
+FROM servicos s
+WHERE s.id = a.servico_id
+  AND a.data_hora_fim IS NULL;
+
+ALTER TABLE agendamentos ALTER COLUMN data_hora_fim SET NOT NULL;
+
+-- Índice que cobre: barbeiro_id = ? AND status = ? AND data_hora < ? AND data_hora_fim > ?
+CREATE INDEX idx_agendamentos_barbeiro_status_periodo
+    ON agendamentos(barbeiro_id, status, data_hora, data_hora_fim);
@@ -0,0 +1,7 @@
+-- ============================================================
+-- V4__indice_paginacao_agendamentos.sql
+-- Índice para a paginação por keyset de GET /agendamentos
+-- (order by data_hora desc, id desc)
+-- ============================================================
+
+CREATE INDEX idx_agendamentos_data_hora_id ON agendamentos(data_hora, id);
@@ -0,0 +1,7 @@
+-- ============================================================
+-- V5__versao_token_usuarios.sql
+-- Versão dos tokens do usuário (claim "ver" do JWT).
+-- Incrementar a versão revoga todos os tokens já emitidos.
+-- ============================================================
+
+ALTER TABLE usuarios ADD COLUMN token_versao INT NOT NULL DEFAULT 0;
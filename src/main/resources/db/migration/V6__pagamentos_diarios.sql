@@ -0,0 +1,20 @@
+-- ============================================================
+-- V6__pagamentos_diarios.sql
+-- Consolidado diário por forma de pagamento, atualizado junto
+-- com cada pagamento. O relatório financeiro lê só esta tabela.
+-- ============================================================
+
+CREATE TABLE pagamentos_diarios (
+    data            DATE            NOT NULL,
+    forma_pagamento VARCHAR(30)     NOT NULL
+                    CHECK (forma_pagamento IN ('DINHEIRO','CARTAO_CREDITO','CARTAO_DEBITO','PIX')),
+    total           DECIMAL(12,2)   NOT NULL DEFAULT 0,
+    quantidade      BIGINT          NOT NULL DEFAULT 0,
+    PRIMARY KEY (data, forma_pagamento)
+);
+
+-- Backfill com o histórico já existente
+INSERT INTO pagamentos_diarios (data, forma_pagamento, total, quantidade)
+SELECT CAST(data_pagamento AS DATE), forma_pagamento, SUM(valor_cobrado), COUNT(*)
+FROM pagamentos
+GROUP BY CAST(data_pagamento AS DATE), forma_pagamento;
@@ -0,0 +1,10 @@
+-- ============================================================
+-- V7__sequencia_agendamentos.sql
+-- Ids de agendamentos passam a vir de uma sequência com incremento 50
+-- (alocação em blocos no Hibernate), o que permite inserts em lote.
+-- A sequência começa depois do maior id já gerado pelo BIGSERIAL.
+-- ============================================================
+
+CREATE SEQUENCE IF NOT EXISTS agendamentos_seq INCREMENT BY 50;
+
+SELECT setval('agendamentos_seq', (SELECT COALESCE(MAX(id), 0) + 51 FROM agendamentos), false);
@@ -0,0 +1,18 @@
+-- ============================================================
+-- V8__sequencias_entidades.sql
+-- Demais entidades deixam o BIGSERIAL (IDENTITY) e passam a usar
+-- sequências com incremento 50, como agendamentos no V7.
+-- Cada sequência começa depois do maior id já existente.
+-- ============================================================
+
+CREATE SEQUENCE IF NOT EXISTS usuarios_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS clientes_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS barbeiros_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS servicos_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS pagamentos_seq INCREMENT BY 50;
+
+SELECT setval('usuarios_seq',   (SELECT COALESCE(MAX(id), 0) + 51 FROM usuarios),   false);
+SELECT setval('clientes_seq',   (SELECT COALESCE(MAX(id), 0) + 51 FROM clientes),   false);
+SELECT setval('barbeiros_seq',  (SELECT COALESCE(MAX(id), 0) + 51 FROM barbeiros),  false);
+SELECT setval('servicos_seq',   (SELECT COALESCE(MAX(id), 0) + 51 FROM servicos),   false);
+SELECT setval('pagamentos_seq', (SELECT COALESCE(MAX(id), 0) + 51 FROM pagamentos), false);
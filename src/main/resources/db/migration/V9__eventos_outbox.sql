@@ -0,0 +1,29 @@
+-- ============================================================
+-- V9__eventos_outbox.sql
+-- Outbox transacional dos eventos de agendamento: gravado na mesma
+-- transação da escrita e entregue depois pelo OutboxRelay.
+-- ============================================================
+
+CREATE SEQUENCE IF NOT EXISTS eventos_outbox_seq INCREMENT BY 50;
+
+CREATE TABLE eventos_outbox (
+    id                 BIGINT          PRIMARY KEY,
+    tipo               VARCHAR(20)     NOT NULL
+                       CHECK (tipo IN ('CRIADO','REMARCADO','CANCELADO','PAGO','NAO_COMPARECEU')),
+    agendamento_id     BIGINT          NOT NULL,
+    barbeiro_id        BIGINT          NOT NULL,
+    cliente_id         BIGINT          NOT NULL,
+    data_hora          TIMESTAMP       NOT NULL,
+    data_hora_fim      TIMESTAMP,
+    data_hora_anterior TIMESTAMP,
+    criado_em          TIMESTAMP       NOT NULL,
+    status             VARCHAR(20)     NOT NULL DEFAULT 'PENDENTE'
+                       CHECK (status IN ('PENDENTE','PUBLICADO','FALHOU')),
+    tentativas         INTEGER         NOT NULL DEFAULT 0,
+    proxima_tentativa  TIMESTAMP,
+    publicado_em       TIMESTAMP,
+    ultimo_erro        VARCHAR(500)
+);
+
+-- O relay lê os pendentes em ordem de id: status = 'PENDENTE' ORDER BY id
+CREATE INDEX idx_eventos_outbox_status_id ON eventos_outbox(status, id);
@@ -0,0 +1,73 @@
+package com.barbearia;
+
+import com.barbearia.model.Barbeiro;
+import com.barbearia.model.Cliente;
+import com.barbearia.model.Servico;
+import com.barbearia.model.Usuario;
+import com.barbearia.repository.BarbeiroRepository;
+import com.barbearia.repository.ClienteRepository;
+import com.barbearia.repository.ServicoRepository;
+import com.barbearia.repository.UsuarioRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cria clientes, barbeiros e serviços para os testes de integração.
+ * O banco é dividido entre as classes de teste: nomes e emails são únicos por chamada.
+ */
+@Component
+public class DadosTeste {
+
+    private static final AtomicInteger SEQUENCIA = new AtomicInteger();
+
+    private final UsuarioRepository usuarioRepository;
+    private final ClienteRepository clienteRepository;
+    private final BarbeiroRepository barbeiroRepository;
+    private final ServicoRepository servicoRepository;
+
+    public DadosTeste(UsuarioRepository usuarioRepository, ClienteRepository clienteRepository,
+                      BarbeiroRepository barbeiroRepository, ServicoRepository servicoRepository) {
+        this.usuarioRepository = usuarioRepository;
+        this.clienteRepository = clienteRepository;
+        this.barbeiroRepository = barbeiroRepository;
+        this.servicoRepository = servicoRepository;
+    }
+
+    public Cliente cliente(String nome) {
+        String email = "cliente" + SEQUENCIA.incrementAndGet() + "@teste.com";
+        Usuario usuario = usuarioRepository.save(new Usuario(null, nome, email, "x", "ROLE_CLIENTE"));
+
+        Cliente cliente = new Cliente();
+        cliente.setUsuario(usuario);
+        cliente.setNome(nome);
+        cliente.setEmail(email);
+        return clienteRepository.save(cliente);
+    }
+
+    public Barbeiro barbeiro(String nome, LocalTime entrada, LocalTime saida) {
+        String email = "barbeiro" + SEQUENCIA.incrementAndGet() + "@teste.com";
+        Usuario usuario = usuarioRepository.save(new Usuario(null, nome, email, "x", "ROLE_BARBEIRO"));
+
+        Barbeiro barbeiro = new Barbeiro();
+        barbeiro.setUsuario(usuario);
+        barbeiro.setNome(nome);
+        barbeiro.setEmail(email);
+        barbeiro.setHoraEntrada(entrada);
+        barbeiro.setHoraSaida(saida);
+        return barbeiroRepository.save(barbeiro);
+    }
+
+    public Barbeiro barbeiro(String nome) {
+        return barbeiro(nome, LocalTime.of(9, 0), LocalTime.of(18, 0));
+    }
+
+    public Servico servico(String nome, int duracaoMinutos, double preco) {
+        Servico servico = new Servico();
+        servico.setNome(nome + " " + SEQUENCIA.incrementAndGet());
+        servico.setDuracaoMinutos(duracaoMinutos);
+        servico.setPreco(preco);
+        return servicoRepository.save(servico);
+    }
+}
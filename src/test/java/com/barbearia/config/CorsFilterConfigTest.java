@@ -0,0 +1,156 @@
+package com.barbearia.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Regras de origem do filtro de CORS e alocação por request: com as origins e os
+ * headers pré-calculados no startup, uma request de origin permitida não aloca nada no filtro.
+ */
+class CorsFilterConfigTest {
+
+    private static final String ORIGENS = "http://localhost:5173, https://barbearia.com.br,https://*.vercel.app";
+    private static final int REQUESTS = 200_000;
+
+    private CorsFilterConfig filtro;
+
+    @BeforeEach
+    void criarFiltro() {
+        filtro = new CorsFilterConfig();
+        ReflectionTestUtils.setField(filtro, "allowedOrigins", ORIGENS);
+        filtro.init();
+    }
+
+    @Test
+    void origemExataRecebeHeaders() throws Exception {
+        MockHttpServletResponse response = filtrar("GET", "https://barbearia.com.br");
+
+        assertThat(response.getHeader("Access-Control-Allow-Origin")).isEqualTo("https://barbearia.com.br");
+        assertThat(response.getHeader("Access-Control-Allow-Credentials")).isEqualTo("true");
+        assertThat(response.getHeader("Vary")).isEqualTo("Origin");
+    }
+
+    @Test
+    void curingaCasaSubdominioMasNaoAtravessaBarra() throws Exception {
+        assertThat(filtrar("GET", "https://preview-42.vercel.app").getHeader("Access-Control-Allow-Origin"))
+                .isEqualTo("https://preview-42.vercel.app");
+        assertThat(filtrar("GET", "https://evil.com/x.vercel.app").getHeader("Access-Control-Allow-Origin"))
+                .isNull();
+        assertThat(filtrar("GET", "https://vercel.app.evil.com").getHeader("Access-Control-Allow-Origin"))
+                .isNull();
+    }
+
+    @Test
+    void origemDesconhecidaNaoRecebeHeaders() throws Exception {
+        assertThat(filtrar("GET", "https://outra.com").getHeader("Access-Control-Allow-Origin")).isNull();
+    }
+
+    @Test
+    void preflightRespondeSemChamarAChain() throws Exception {
+        AtomicInteger chamadas = new AtomicInteger();
+        MockHttpServletRequest request = new MockHttpServletRequest("OPTIONS", "/api/agendamentos");
+        request.addHeader("Origin", "http://localhost:5173");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filtro.doFilter(request, response, (req, res) -> chamadas.incrementAndGet());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader("Access-Control-Allow-Methods")).contains("PATCH");
+        assertThat(chamadas).hasValue(0);
+    }
+
+    @Test
+    void requestPermitidaNaoAlocaNoFiltro() throws Exception {
+        HttpServletRequest request = new RequestFixa("GET", "https://barbearia.com.br");
+        HttpServletResponse response = new ResponseDescartavel();
+        FilterChain chain = (req, res) -> { };
+
+        long porRequest = bytesPorRequest(() -> filtro.doFilter(request, response, chain));
+
+        // implementação anterior: split + stream + List.contains a cada request
+        String origin = request.getHeader("Origin");
+        long anterior = bytesPorRequest(() -> {
+            if (Arrays.stream(ORIGENS.split(",")).map(String::trim).toList().contains(origin)) {
+                response.setHeader("Access-Control-Allow-Origin", origin);
+            }
+        });
+
+        System.out.printf("CORS: %d bytes/request (antes: %d bytes/request)%n", porRequest, anterior);
+        assertThat(porRequest).isLessThan(16);
+        assertThat(anterior).isGreaterThan(porRequest * 10);
+    }
+
+    private MockHttpServletResponse filtrar(String metodo, String origin) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(metodo, "/api/servicos");
+        request.addHeader("Origin", origin);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtro.doFilter(request, response, (req, res) -> { });
+        return response;
+    }
+
+    // média de bytes alocados pela thread atual, depois de uma rodada de aquecimento do JIT
+    private static long bytesPorRequest(Acao acao) throws Exception {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        for (int i = 0; i < REQUESTS; i++) acao.executar();
+
+        long antes = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < REQUESTS; i++) acao.executar();
+        return (threads.getCurrentThreadAllocatedBytes() - antes) / REQUESTS;
+    }
+
+    @FunctionalInterface
+    private interface Acao {
+        void executar() throws Exception;
+    }
+
+    // request com header e método fixos: o mock do Spring aloca ao procurar headers
+    private static final class RequestFixa extends HttpServletRequestWrapper {
+        private final String metodo;
+        private final String origin;
+
+        RequestFixa(String metodo, String origin) {
+            super(new MockHttpServletRequest());
+            this.metodo = metodo;
+            this.origin = origin;
+        }
+
+        @Override
+        public String getMethod() {
+            return metodo;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return "Origin".equals(name) ? origin : null;
+        }
+    }
+
+    // response que descarta os headers, para medir só o que o filtro aloca
+    private static final class ResponseDescartavel extends HttpServletResponseWrapper {
+        ResponseDescartavel() {
+            super(new MockHttpServletResponse());
+        }
+
+        @Override
+        public void setHeader(String name, String value) { }
+
+        @Override
+        public void setStatus(int sc) { }
+    }
+}
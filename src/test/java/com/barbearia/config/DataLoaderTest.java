@@ -0,0 +1,90 @@
+package com.barbearia.config;
+
+import com.barbearia.DadosTeste;
+import com.barbearia.model.Agendamento.StatusAgendamento;
+import com.barbearia.model.Barbeiro;
+import com.barbearia.model.Cliente;
+import com.barbearia.model.Servico;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Banco de produção criado antes do NAO_COMPARECEU (ddl-auto=update não refaz checks):
+ * o DataLoader troca o check antigo de agendamentos.status por um com todos os valores
+ * do enum e deixa o check como está quando ele já aceita todos.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:dataloader;MODE=PostgreSQL;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class DataLoaderTest {
+
+    private static final String CHECKS_DE_STATUS = """
+            select cc.constraint_name, cc.check_clause
+            from information_schema.table_constraints tc
+            join information_schema.check_constraints cc
+              on cc.constraint_schema = tc.constraint_schema
+             and cc.constraint_name = tc.constraint_name
+            where lower(tc.table_name) = 'agendamentos'
+              and tc.constraint_type = 'CHECK'
+              and cc.check_clause like '%''AGENDADO''%'
+            """;
+
+    @Autowired private DataLoader dataLoader;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private DadosTeste dados;
+
+    @Test
+    void checkAntigoDeStatusERecriadoComNaoCompareceu() {
+        Long id = agendamento();
+
+        // como o check que o Hibernate gerou antes do novo status
+        checks().forEach(c -> jdbcTemplate.execute("alter table agendamentos drop constraint \"" + c[0] + "\""));
+        jdbcTemplate.execute("alter table agendamentos add constraint status_antigo"
+                + " check (status in ('AGENDADO','CANCELADO','CONCLUIDO'))");
+        assertThatThrownBy(() -> marcar(id, StatusAgendamento.NAO_COMPARECEU))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        dataLoader.recriarCheckDeEnum("agendamentos", "status", StatusAgendamento.class);
+
+        marcar(id, StatusAgendamento.NAO_COMPARECEU);
+        assertThatThrownBy(() -> jdbcTemplate.update("update agendamentos set status = 'OUTRO' where id = ?", id))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        // check já completo: nada muda
+        List<String[]> antes = checks();
+        dataLoader.recriarCheckDeEnum("agendamentos", "status", StatusAgendamento.class);
+        assertThat(checks()).singleElement()
+                .satisfies(c -> assertThat(c).containsExactly(antes.get(0)))
+                .satisfies(c -> assertThat(c[0]).isEqualToIgnoringCase("agendamentos_status_check"));
+    }
+
+    private List<String[]> checks() {
+        return jdbcTemplate.query(CHECKS_DE_STATUS, (rs, i) -> new String[]{rs.getString(1), rs.getString(2)});
+    }
+
+    private void marcar(Long id, StatusAgendamento status) {
+        jdbcTemplate.update("update agendamentos set status = ? where id = ?", status.name(), id);
+    }
+
+    private Long agendamento() {
+        Cliente cliente = dados.cliente("Cliente check");
+        Barbeiro barbeiro = dados.barbeiro("Barbeiro check");
+        Servico servico = dados.servico("Corte check", 30, 40.0);
+        var inicio = LocalDate.now().plusDays(1).atTime(10, 0);
+
+        jdbcTemplate.update("""
+                insert into agendamentos (id, cliente_id, barbeiro_id, servico_id, data_hora, data_hora_fim, status)
+                values (nextval('agendamentos_seq'), ?, ?, ?, ?, ?, 'AGENDADO')
+                """, cliente.getId(), barbeiro.getId(), servico.getId(), inicio, inicio.plusMinutes(30));
+        return jdbcTemplate.queryForObject("select max(id) from agendamentos", Long.class);
+    }
+}
@@ -0,0 +1,186 @@
+package com.barbearia.controller;
+
+import com.barbearia.DadosTeste;
+import com.barbearia.dto.DTOs.AgendamentoRequest;
+import com.barbearia.model.Barbeiro;
+import com.barbearia.model.Cliente;
+import com.barbearia.model.Servico;
+import com.barbearia.model.Usuario;
+import com.barbearia.repository.UsuarioRepository;
+import com.barbearia.security.JwtUtil;
+import com.barbearia.service.AgendamentoService;
+import com.barbearia.service.DisponibilidadeIndex;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Carga comparativa entre GET /agendamentos/disponibilidade (JPA, bloqueante) e
+ * GET /agendamentos/disponibilidade/reativa (R2DBC) no Tomcat de verdade, com o mesmo
+ * threads.max: REQUESTS chegam juntas, uma por barbeiro/dia, e o índice em memória é
+ * descartado antes de cada rodada para toda request ir ao banco.
+ *
+ * Mede p99, tempo total e o máximo de threads do Tomcat presas ao mesmo tempo numa
+ * request (do filtro até a volta do dispatch inicial). No H2 em memória não há espera de
+ * I/O, então os números medem o custo de cada caminho, não o ganho de liberar a thread
+ * enquanto o Postgres responde; o que se confere aqui é que os dois respondem igual.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:cargadisponibilidade;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "app.disponibilidade.reativa.url=r2dbc:h2:mem:///cargadisponibilidade?options=DB_CLOSE_DELAY=-1",
+        "server.tomcat.threads.max=" + CargaDisponibilidadeTest.THREADS_TOMCAT
+})
+@ActiveProfiles("test")
+@Import(CargaDisponibilidadeTest.ThreadsPresas.class)
+class CargaDisponibilidadeTest {
+
+    static final int THREADS_TOMCAT = 20;
+    private static final int BARBEIROS = 10;
+    private static final int DIAS = 20;
+
+    // requests de disponibilidade segurando uma thread do Tomcat agora / no pico
+    static class ThreadsPresas extends OncePerRequestFilter {
+
+        static final AtomicInteger agora = new AtomicInteger();
+        static final AtomicInteger maximo = new AtomicInteger();
+
+        @Override
+        protected boolean shouldNotFilter(HttpServletRequest request) {
+            return !request.getRequestURI().startsWith("/agendamentos/disponibilidade");
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            maximo.accumulateAndGet(agora.incrementAndGet(), Math::max);
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                agora.decrementAndGet();
+            }
+        }
+    }
+
+    private record Rodada(long p99Ms, long totalMs, int threadsPresas, Map<String, String> respostas) {}
+
+    @LocalServerPort private int porta;
+    @Autowired private JwtUtil jwtUtil;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private AgendamentoService agendamentoService;
+    @Autowired private DisponibilidadeIndex disponibilidadeIndex;
+    @Autowired private DadosTeste dados;
+
+    private final List<Barbeiro> barbeiros = new ArrayList<>();
+    private final LocalDate primeiroDia = LocalDate.now().plusDays(1);
+    private Servico servico;
+    private String token;
+
+    @BeforeEach
+    void montarAgenda() {
+        Usuario admin = usuarioRepository.findByEmail("admin@admin.com").orElseThrow();
+        token = jwtUtil.gerarToken(admin, null);
+
+        Cliente cliente = dados.cliente("Cliente carga");
+        servico = dados.servico("Corte carga", 30, 40.0);
+
+        for (int b = 0; b < BARBEIROS; b++) {
+            Barbeiro barbeiro = dados.barbeiro("Barbeiro carga " + b);
+            barbeiros.add(barbeiro);
+
+            for (int d = 0; d < DIAS; d++) {
+                AgendamentoRequest request = new AgendamentoRequest();
+                request.setClienteId(cliente.getId());
+                request.setBarbeiroId(barbeiro.getId());
+                request.setServicoId(servico.getId());
+                request.setDataHora(primeiroDia.plusDays(d).atTime(LocalTime.of(9 + (b + d) % 8, 0)));
+                agendamentoService.criar(request);
+            }
+        }
+    }
+
+    @Test
+    void reativaRespondeIgualAoCaminhoBloqueante() {
+        HttpClient cliente = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+        // aquecimento dos dois caminhos (conexões, JIT, pool do R2DBC)
+        rodada(cliente, "/agendamentos/disponibilidade");
+        rodada(cliente, "/agendamentos/disponibilidade/reativa");
+
+        Rodada bloqueante = rodada(cliente, "/agendamentos/disponibilidade");
+        Rodada reativa = rodada(cliente, "/agendamentos/disponibilidade/reativa");
+
+        System.out.printf("%d requests, threads.max %d%n"
+                        + "  bloqueante: p99 %d ms, total %d ms, threads presas no pico %d%n"
+                        + "  reativa:    p99 %d ms, total %d ms, threads presas no pico %d%n",
+                BARBEIROS * DIAS, THREADS_TOMCAT,
+                bloqueante.p99Ms(), bloqueante.totalMs(), bloqueante.threadsPresas(),
+                reativa.p99Ms(), reativa.totalMs(), reativa.threadsPresas());
+
+        assertThat(reativa.respostas()).hasSize(BARBEIROS * DIAS).isEqualTo(bloqueante.respostas());
+        assertThat(bloqueante.respostas().values()).allSatisfy(corpo -> assertThat(corpo).contains("\"ocupados\":[\""));
+        assertThat(bloqueante.threadsPresas()).isLessThanOrEqualTo(THREADS_TOMCAT);
+    }
+
+    // uma request por barbeiro/dia, todas juntas, com o índice vazio para esses dias
+    private Rodada rodada(HttpClient cliente, String rota) {
+        for (Barbeiro barbeiro : barbeiros) {
+            for (int d = 0; d < DIAS; d++) disponibilidadeIndex.recarregar(barbeiro.getId(), primeiroDia.plusDays(d));
+        }
+        ThreadsPresas.maximo.set(0);
+
+        Map<String, String> respostas = new ConcurrentHashMap<>();
+        List<CompletableFuture<Long>> latencias = new ArrayList<>();
+        long inicio = System.nanoTime();
+
+        for (Barbeiro barbeiro : barbeiros) {
+            for (int d = 0; d < DIAS; d++) {
+                String chave = "?barbeiroId=" + barbeiro.getId() + "&data=" + primeiroDia.plusDays(d)
+                        + "&servicoId=" + servico.getId();
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + rota + chave))
+                        .header("Authorization", "Bearer " + token)
+                        .timeout(Duration.ofSeconds(60))
+                        .build();
+
+                long enviada = System.nanoTime();
+                latencias.add(cliente.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                        .thenApply(r -> {
+                            assertThat(r.statusCode()).isEqualTo(200);
+                            respostas.put(chave, r.body());
+                            return (System.nanoTime() - enviada) / 1_000_000;
+                        }));
+            }
+        }
+
+        long[] ordenadas = latencias.stream().mapToLong(CompletableFuture::join).sorted().toArray();
+        long total = (System.nanoTime() - inicio) / 1_000_000;
+        long p99 = ordenadas[(int) Math.ceil(ordenadas.length * 0.99) - 1];
+
+        return new Rodada(p99, total, ThreadsPresas.maximo.get(), respostas);
+    }
+}
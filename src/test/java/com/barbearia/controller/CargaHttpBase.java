@@ -0,0 +1,103 @@
+package com.barbearia.controller;
+
+import com.barbearia.model.Usuario;
+import com.barbearia.repository.UsuarioRepository;
+import com.barbearia.security.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Teste de carga HTTP no Tomcat de verdade (porta aleatória): REQUESTS chegam juntas num
+ * endpoint que passa ESPERA_MS bloqueado, como uma consulta lenta no Postgres.
+ * As subclasses sobem o contexto com threads de plataforma (pool de THREADS_TOMCAT) ou
+ * com virtual threads e comparam p99 e o máximo de requests em andamento no servidor.
+ */
+abstract class CargaHttpBase {
+
+    static final int THREADS_TOMCAT = 20;
+    static final int REQUESTS = 200;
+    static final long ESPERA_MS = 100;
+
+    // espera bloqueante no lugar do I/O do banco; conta quantas requests estão dentro dela
+    @RestController
+    static class EsperaController {
+
+        static final AtomicInteger emAndamento = new AtomicInteger();
+        static final AtomicInteger maximo = new AtomicInteger();
+
+        @GetMapping("/teste/carga")
+        String esperar() throws InterruptedException {
+            maximo.accumulateAndGet(emAndamento.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(ESPERA_MS);
+                // Thread.isVirtual() não existe no JDK 17 (perfil java17 compila os testes também)
+                return "VirtualThread".equals(Thread.currentThread().getClass().getSimpleName())
+                        ? "virtual" : "plataforma";
+            } finally {
+                emAndamento.decrementAndGet();
+            }
+        }
+    }
+
+    record Resultado(long p99Ms, int maximoEmAndamento, List<String> threads) {}
+
+    @LocalServerPort private int porta;
+    @Autowired private JwtUtil jwtUtil;
+    @Autowired private UsuarioRepository usuarioRepository;
+
+    abstract void conferir(Resultado resultado);
+
+    @Test
+    void cargaComEsperaBloqueante() {
+        Usuario admin = usuarioRepository.findByEmail("admin@admin.com").orElseThrow();
+        String token = jwtUtil.gerarToken(admin, null);
+
+        HttpClient cliente = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/teste/carga"))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(60))
+                .build();
+
+        // aquecimento (conexões, JIT, caches de token)
+        cliente.sendAsync(request, HttpResponse.BodyHandlers.ofString()).join();
+        EsperaController.maximo.set(0);
+
+        List<CompletableFuture<long[]>> respostas = new ArrayList<>(REQUESTS);
+        List<String> threads = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            long inicio = System.nanoTime();
+            respostas.add(cliente.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .thenApply(r -> {
+                        assertThat(r.statusCode()).isEqualTo(200);
+                        synchronized (threads) {
+                            threads.add(r.body());
+                        }
+                        return new long[]{(System.nanoTime() - inicio) / 1_000_000};
+                    }));
+        }
+
+        long[] latencias = respostas.stream().map(CompletableFuture::join).mapToLong(l -> l[0]).sorted().toArray();
+        long p99 = latencias[(int) Math.ceil(latencias.length * 0.99) - 1];
+
+        Resultado resultado = new Resultado(p99, EsperaController.maximo.get(), threads);
+        System.out.printf("%s: %d requests, p99 %d ms, máximo em andamento %d%n",
+                getClass().getSimpleName(), REQUESTS, resultado.p99Ms(), resultado.maximoEmAndamento());
+
+        conferir(resultado);
+    }
+}
@@ -0,0 +1,27 @@
+package com.barbearia.controller;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Threads de plataforma: no máximo THREADS_TOMCAT requests ao mesmo tempo no servidor;
+ * as demais esperam na fila, e o p99 cresce com REQUESTS / THREADS_TOMCAT esperas.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=false",
+        "server.tomcat.threads.max=" + CargaHttpBase.THREADS_TOMCAT
+})
+@ActiveProfiles("test")
+@Import(CargaHttpBase.EsperaController.class)
+class CargaThreadsPlataformaTest extends CargaHttpBase {
+
+    @Override
+    void conferir(Resultado resultado) {
+        assertThat(resultado.threads()).containsOnly("plataforma");
+        assertThat(resultado.maximoEmAndamento()).isLessThanOrEqualTo(THREADS_TOMCAT);
+        assertThat(resultado.p99Ms()).isGreaterThanOrEqualTo(ESPERA_MS * (REQUESTS / THREADS_TOMCAT - 1));
+    }
+}
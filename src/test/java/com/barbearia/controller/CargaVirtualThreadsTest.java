@@ -0,0 +1,30 @@
+package com.barbearia.controller;
+
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Virtual threads (Java 21+): o mesmo threads.max do Tomcat não limita mais as requests
+ * em andamento, e o p99 fica perto de uma única espera. Em JDK 17 o teste é ignorado.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "server.tomcat.threads.max=" + CargaHttpBase.THREADS_TOMCAT
+})
+@ActiveProfiles("test")
+@Import(CargaHttpBase.EsperaController.class)
+class CargaVirtualThreadsTest extends CargaHttpBase {
+
+    @Override
+    void conferir(Resultado resultado) {
+        assertThat(resultado.threads()).containsOnly("virtual");
+        assertThat(resultado.maximoEmAndamento()).isGreaterThan(THREADS_TOMCAT);
+        assertThat(resultado.p99Ms()).isLessThan(ESPERA_MS * (REQUESTS / THREADS_TOMCAT - 1));
+    }
+}
@@ -0,0 +1,102 @@
+package com.barbearia.repository;
+
+import com.barbearia.DadosTeste;
+import com.barbearia.dto.DTOs.AgendamentoResponse;
+import com.barbearia.model.Agendamento;
+import com.barbearia.model.Agendamento.StatusAgendamento;
+import com.barbearia.model.Barbeiro;
+import com.barbearia.model.Cliente;
+import com.barbearia.model.Servico;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Paginação por keyset com filtros montados só quando presentes (AgendamentoPaginacaoImpl).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AgendamentoPaginacaoTest {
+
+    @Autowired private AgendamentoRepository agendamentoRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private DadosTeste dados;
+
+    @Test
+    void percorrePaginasSemRepetirNemPularComHorariosIguais() {
+
+        Cliente cliente = dados.cliente("Cliente");
+        Barbeiro b1 = dados.barbeiro("B1");
+        Barbeiro b2 = dados.barbeiro("B2");
+        Servico servico = dados.servico("Corte", 30, 25.0);
+
+        // dois barbeiros com os mesmos horários: empates em dataHora decididos pelo id
+        LocalDateTime base = LocalDate.now().plusYears(3).atTime(9, 0);
+        List<Agendamento> todos = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            todos.add(novo(cliente, b1, servico, base.plusHours(i % 6), StatusAgendamento.AGENDADO));
+            todos.add(novo(cliente, b2, servico, base.plusHours(i % 6), i % 3 == 0 ? StatusAgendamento.CANCELADO : StatusAgendamento.AGENDADO));
+        }
+        agendamentoRepository.saveAll(todos);
+
+        List<Agendamento> esperado = new ArrayList<>(todos);
+        esperado.sort(Comparator.comparing(Agendamento::getDataHora).thenComparing(Agendamento::getId).reversed());
+
+        List<Long> vistos = new ArrayList<>();
+        LocalDateTime cursorDataHora = null;
+        Long cursorId = null;
+        while (true) {
+            List<AgendamentoResponse> pagina = agendamentoRepository.findPagina(
+                    null, null, cliente.getId(), null, null, cursorDataHora, cursorId, 5);
+            pagina.forEach(a -> vistos.add(a.getId()));
+            if (pagina.size() < 5) break;
+            AgendamentoResponse ultimo = pagina.get(pagina.size() - 1);
+            cursorDataHora = ultimo.getDataHora();
+            cursorId = ultimo.getId();
+        }
+
+        assertThat(vistos).containsExactlyElementsOf(esperado.stream().map(Agendamento::getId).toList());
+
+        // filtros combinados
+        assertThat(agendamentoRepository.findPagina(StatusAgendamento.CANCELADO, b2.getId(), cliente.getId(),
+                null, null, null, null, 50)).hasSize(4);
+        assertThat(agendamentoRepository.findPagina(null, b1.getId(), null,
+                base.plusHours(1), base.plusHours(3), null, null, 50)).hasSize(4)
+                .allSatisfy(a -> assertThat(a.getBarbeiroId()).isEqualTo(b1.getId()));
+    }
+
+    @Test
+    void keysetPorComparacaoDeLinhaUsaOIndiceDataHoraId() {
+
+        List<String> plano = jdbcTemplate.queryForList("""
+                explain select a.id from agendamentos a
+                where (a.data_hora, a.id) < (timestamp '2030-01-01 10:00:00', 1000)
+                order by a.data_hora desc, a.id desc
+                limit 51
+                """, String.class);
+
+        assertThat(String.join("\n", plano)).containsIgnoringCase("IDX_AGENDAMENTOS_DATA_HORA_ID");
+    }
+
+    private static Agendamento novo(Cliente cliente, Barbeiro barbeiro, Servico servico,
+                                    LocalDateTime inicio, StatusAgendamento status) {
+        Agendamento a = new Agendamento();
+        a.setCliente(cliente);
+        a.setBarbeiro(barbeiro);
+        a.setServico(servico);
+        a.setDataHora(inicio);
+        a.setDataHoraFim(inicio.plusMinutes(30));
+        a.setStatus(status);
+        return a;
+    }
+}
@@ -0,0 +1,144 @@
+package com.barbearia.repository;
+
+import com.barbearia.DadosTeste;
+import com.barbearia.model.Barbeiro;
+import com.barbearia.model.Cliente;
+import com.barbearia.model.Servico;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Consultas de conflito com data_hora_fim persistido: predicados só de intervalo,
+ * resolvidos pelo índice (barbeiro_id, status, data_hora, data_hora_fim).
+ *
+ * O barbeiro tem uma agenda sintética de LINHAS agendamentos de 45 minutos (um por hora,
+ * 10 por dia), gravada direto por SQL.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AgendamentoRepositoryIntervaloTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AgendamentoRepositoryIntervaloTest.class);
+
+    private static final int LINHAS = 100_000;
+    private static final int POR_DIA = 10;
+    private static final long PRIMEIRO_ID = 50_000_000L; // longe dos ids da sequência
+    private static final LocalDate PRIMEIRO_DIA = LocalDate.of(2030, 1, 1);
+
+    @Autowired private AgendamentoRepository agendamentoRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private DadosTeste dados;
+
+    private Barbeiro barbeiro;
+
+    @BeforeAll
+    void popular() {
+        barbeiro = dados.barbeiro("Agenda cheia");
+        Cliente cliente = dados.cliente("Cliente");
+        Servico servico = dados.servico("Corte", 45, 35.0);
+
+        // dia = x / 10, hora = 8 + x % 10; cada agendamento vai de hh:00 a hh:45
+        jdbcTemplate.update("""
+                insert into agendamentos (id, cliente_id, barbeiro_id, servico_id, data_hora, data_hora_fim, status)
+                select ? + x, ?, ?, ?, t, dateadd('MINUTE', 45, t), 'AGENDADO'
+                from (select x, dateadd('HOUR', 8 + mod(x, ?), dateadd('DAY', x / ?, cast(? as timestamp))) t
+                      from system_range(0, ? - 1))
+                """,
+                PRIMEIRO_ID, cliente.getId(), barbeiro.getId(), servico.getId(),
+                POR_DIA, POR_DIA, PRIMEIRO_DIA.atStartOfDay(), LINHAS);
+        jdbcTemplate.execute("analyze table agendamentos");
+    }
+
+    @AfterAll
+    void limpar() {
+        jdbcTemplate.update("delete from agendamentos where id >= ?", PRIMEIRO_ID);
+    }
+
+    @Test
+    void conflitoUsaSoPredicadosDeIntervalo() {
+
+        LocalDate dia = PRIMEIRO_DIA.plusDays(LINHAS / POR_DIA / 2);
+        Long b = barbeiro.getId();
+
+        // 10:00-10:45 ocupado; 10:45-11:00 livre; 11:00-11:45 ocupado
+        assertThat(conflito(b, null, dia.atTime(10, 30), dia.atTime(10, 50))).isTrue();
+        assertThat(conflito(b, null, dia.atTime(10, 45), dia.atTime(11, 0))).isFalse();
+        assertThat(conflito(b, null, dia.atTime(10, 44), dia.atTime(11, 0))).isTrue();
+        assertThat(conflito(b, null, dia.atTime(10, 45), dia.atTime(11, 1))).isTrue();
+
+        // o próprio agendamento não conflita na remarcação; o das 11:00 continua conflitando
+        long idDasDez = PRIMEIRO_ID + (long) (LINHAS / POR_DIA / 2) * POR_DIA + 2;
+        assertThat(conflito(b, idDasDez, dia.atTime(10, 0), dia.atTime(10, 45))).isFalse();
+        assertThat(conflito(b, idDasDez, dia.atTime(10, 30), dia.atTime(11, 30))).isTrue();
+    }
+
+    @Test
+    void conflitoUsaOIndiceDePeriodo() {
+
+        LocalDateTime inicio = PRIMEIRO_DIA.plusDays(100).atTime(10, 30);
+        String plano = explicar("""
+                select count(*) from agendamentos a
+                where a.barbeiro_id = %d and a.status = 'AGENDADO'
+                  and a.data_hora >= timestamp '%s' and a.data_hora < timestamp '%s'
+                  and a.data_hora_fim > timestamp '%s'
+                """.formatted(barbeiro.getId(), inicio.minusDays(1), inicio.plusMinutes(45), inicio));
+
+        assertThat(plano).containsIgnoringCase("IDX_AGENDAMENTOS_BARBEIRO_STATUS_PERIODO");
+        assertThat(plano).doesNotContainIgnoringCase("tableScan");
+        assertThat(plano).doesNotContainIgnoringCase("servicos");
+    }
+
+    @Test
+    void latenciaNaoDependeDaPosicaoNoHistorico() {
+
+        Long b = barbeiro.getId();
+        int dias = LINHAS / POR_DIA;
+
+        // aquece
+        medirMicros(b, 0, 100);
+        medirMicros(b, dias - 1, 100);
+
+        // sem limite inferior, o fim da agenda percorreria todo o histórico anterior no índice
+        double inicioDaAgenda = medirMicros(b, 0, 300);
+        double fimDaAgenda = medirMicros(b, dias - 1, 300);
+
+        log.info("existsConflito com {} linhas: {} µs no primeiro dia, {} µs no último",
+                LINHAS, String.format("%.1f", inicioDaAgenda), String.format("%.1f", fimDaAgenda));
+        assertThat(fimDaAgenda).isLessThan(Math.max(inicioDaAgenda, 50.0) * 10);
+    }
+
+    // média em µs de existsConflito num dia (com conflito às 12:15-12:30)
+    private double medirMicros(Long barbeiroId, int diaDaAgenda, int consultas) {
+        LocalDate dia = PRIMEIRO_DIA.plusDays(diaDaAgenda);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < consultas; i++) {
+            assertThat(conflito(barbeiroId, null, dia.atTime(12, 15), dia.atTime(12, 30))).isTrue();
+        }
+        return (System.nanoTime() - t0) / 1_000.0 / consultas;
+    }
+
+    // mesmo limite inferior que o AgendamentoService passa
+    private boolean conflito(Long barbeiroId, Long excluir, LocalDateTime inicio, LocalDateTime fim) {
+        return agendamentoRepository.existsConflito(barbeiroId, excluir, inicio.minusDays(1), inicio, fim);
+    }
+
+    private String explicar(String sql) {
+        List<String> linhas = jdbcTemplate.queryForList("explain " + sql, String.class);
+        return String.join("\n", linhas);
+    }
+}
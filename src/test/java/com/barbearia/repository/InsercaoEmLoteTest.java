@@ -0,0 +1,81 @@
+package com.barbearia.repository;
+
+import com.barbearia.model.Cliente;
+import com.barbearia.model.Usuario;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ids de sequência com alocação 50 + hibernate.jdbc.batch_size: inserir usuários e clientes
+ * em massa (importação, DataLoader) vira poucos comandos em lote, e não um por linha.
+ * A mesma carga com batch_size 1 na sessão serve de comparação.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class InsercaoEmLoteTest {
+
+    private static final int CLIENTES = 1_000;
+    private static final AtomicInteger SEQUENCIA = new AtomicInteger();
+
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Test
+    void insercaoEmMassaUsaComandosEmLote() {
+
+        Carga semLote = inserir(1);
+        Carga emLote = inserir(null);
+
+        System.out.printf("%d usuários + clientes: sem lote %d comandos / %d ms, em lote %d comandos / %d ms%n",
+                CLIENTES, semLote.comandos, semLote.millis, emLote.comandos, emLote.millis);
+
+        // sem lote: um comando por insert (2 por cliente), mais as chamadas de sequência
+        assertThat(semLote.comandos).isGreaterThanOrEqualTo(2L * CLIENTES);
+        // em lote: um comando a cada 50 inserts por tabela, mais uma sequência a cada 50 ids
+        assertThat(emLote.comandos).isLessThan(2L * CLIENTES / 10);
+    }
+
+    private record Carga(long comandos, long millis) {}
+
+    // insere CLIENTES pares usuário/cliente em uma transação desfeita no fim;
+    // batchSize null = o configurado no application.properties
+    private Carga inserir(Integer batchSize) {
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.setStatisticsEnabled(true);
+        estatisticas.clear();
+        long inicio = System.nanoTime();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (batchSize != null) entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+
+            for (int i = 0; i < CLIENTES; i++) {
+                String email = "lote" + SEQUENCIA.incrementAndGet() + "@teste.com";
+                Usuario usuario = new Usuario(null, "Lote " + i, email, "x", "ROLE_CLIENTE");
+                entityManager.persist(usuario);
+
+                Cliente cliente = new Cliente();
+                cliente.setUsuario(usuario);
+                cliente.setNome("Lote " + i);
+                cliente.setEmail(email);
+                entityManager.persist(cliente);
+            }
+            entityManager.flush();
+            status.setRollbackOnly();
+        });
+
+        return new Carga(estatisticas.getPrepareStatementCount(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+}
@@ -0,0 +1,119 @@
+package com.barbearia.security;
+
+import com.barbearia.model.Usuario;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Parser e chave montados uma vez e cache dos tokens já verificados.
+ */
+class JwtUtilTest {
+
+    private static final String SEGREDO = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private JwtUtil jwtUtil;
+    private Usuario usuario;
+
+    @BeforeEach
+    void montar() {
+        jwtUtil = novoJwtUtil(60_000);
+
+        usuario = new Usuario(7L, "Ana", "ana@teste.com", "x", "ROLE_CLIENTE");
+        usuario.revogarTokens();
+        usuario.revogarTokens();
+    }
+
+    @Test
+    void tokenValidoTrazAsClaimsDaAutenticacao() {
+        Claims claims = jwtUtil.validar(jwtUtil.gerarToken(usuario, 11L));
+
+        assertThat(claims.getSubject()).isEqualTo("ana@teste.com");
+        assertThat(claims.get(JwtUtil.CLAIM_ROLE, String.class)).isEqualTo("CLIENTE");
+        assertThat(claims.get(JwtUtil.CLAIM_USUARIO_ID, Long.class)).isEqualTo(7L);
+        assertThat(claims.get(JwtUtil.CLAIM_CLIENTE_ID, Long.class)).isEqualTo(11L);
+        assertThat(claims.get(JwtUtil.CLAIM_VERSAO, Integer.class)).isEqualTo(2);
+    }
+
+    @Test
+    void segundaValidacaoVemDoCacheSemNovoParse() {
+        String token = jwtUtil.gerarToken(usuario, null);
+
+        Claims primeira = jwtUtil.validar(token);
+        Claims segunda = jwtUtil.validar(token);
+
+        // mesma instância: não houve novo parse nem nova verificação de assinatura
+        assertThat(segunda).isSameAs(primeira);
+    }
+
+    @Test
+    void tokenAlteradoOuDeOutraChaveEhRecusado() {
+        String token = jwtUtil.gerarToken(usuario, null);
+        String outraChave = novoJwtUtilComSegredo(SEGREDO.toLowerCase()).gerarToken(usuario, null);
+
+        assertThat(jwtUtil.validar(token + "x")).isNull();
+        assertThat(jwtUtil.validar(outraChave)).isNull();
+        assertThat(jwtUtil.validar("nao-e-um-jwt")).isNull();
+    }
+
+    @Test
+    void tokenExpiradoSaiDoCache() throws Exception {
+        JwtUtil curto = novoJwtUtil(1_500);
+        String token = curto.gerarToken(usuario, null);
+
+        assertThat(curto.validar(token)).isNotNull();
+        Thread.sleep(2_000);
+
+        // expirou junto com o token: volta a passar pelo parser, que recusa
+        assertThat(curto.validar(token)).isNull();
+    }
+
+    @Test
+    void validacaoPeloCacheCustaMenosQueOParse() {
+        String token = jwtUtil.gerarToken(usuario, 11L);
+        JwtParser parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SEGREDO.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        int vezes = 20_000;
+
+        // aquece os dois caminhos
+        for (int i = 0; i < vezes; i++) {
+            jwtUtil.validar(token);
+            parser.parseSignedClaims(token);
+        }
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < vezes; i++) parser.parseSignedClaims(token);
+        long parse = System.nanoTime() - t0;
+
+        t0 = System.nanoTime();
+        for (int i = 0; i < vezes; i++) jwtUtil.validar(token);
+        long cache = System.nanoTime() - t0;
+
+        System.out.printf("JWT: parse %.2f µs, cache %.2f µs por validação%n",
+                parse / 1_000.0 / vezes, cache / 1_000.0 / vezes);
+        assertThat(cache).isLessThan(parse);
+    }
+
+    private static JwtUtil novoJwtUtil(long expiracaoMs) {
+        JwtUtil util = novoJwtUtilComSegredo(SEGREDO);
+        ReflectionTestUtils.setField(util, "expirationMs", expiracaoMs);
+        return util;
+    }
+
+    private static JwtUtil novoJwtUtilComSegredo(String segredo) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "secretKey", segredo);
+        ReflectionTestUtils.setField(util, "expirationMs", 60_000L);
+        util.init();
+        return util;
+    }
+}
@@ -0,0 +1,82 @@
+package com.barbearia.security;
+
+import com.barbearia.DadosTeste;
+import com.barbearia.model.Usuario;
+import com.barbearia.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A versão de token em cache só é descartada depois do commit, e mudar a role
+ * de um usuário invalida os tokens emitidos com a role antiga.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RevogacaoTokenServiceTest {
+
+    @Autowired private RevogacaoTokenService revogacaoTokenService;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private DadosTeste dados;
+
+    @Test
+    void revogarInvalidaCacheSoDepoisDoCommit() {
+        String email = dados.cliente("Revogado").getUsuario().getEmail();
+        assertThat(revogacaoTokenService.versaoValida(email, 0)).isTrue();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            revogacaoTokenService.revogar(usuarioRepository.findByEmail(email).orElseThrow());
+            usuarioRepository.flush();
+
+            // ainda dentro da transação: o cache não foi descartado antes do commit
+            assertThat(revogacaoTokenService.versaoValida(email, 0)).isTrue();
+        });
+
+        assertThat(revogacaoTokenService.versaoValida(email, 0)).isFalse();
+        assertThat(revogacaoTokenService.versaoValida(email, 1)).isTrue();
+    }
+
+    @Test
+    void rollbackMantemVersaoEmCache() {
+        String email = dados.cliente("Rollback").getUsuario().getEmail();
+        assertThat(revogacaoTokenService.versaoValida(email, 0)).isTrue();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            revogacaoTokenService.revogar(usuarioRepository.findByEmail(email).orElseThrow());
+            usuarioRepository.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(revogacaoTokenService.versaoValida(email, 0)).isTrue();
+    }
+
+    @Test
+    void mudarRoleInvalidaTokensAntigos() {
+        String email = dados.cliente("Promovido").getUsuario().getEmail();
+        assertThat(revogacaoTokenService.versaoValida(email, 0)).isTrue();
+
+        transactionTemplate.executeWithoutResult(status ->
+                usuarioRepository.findByEmail(email).orElseThrow().setRole("ROLE_BARBEIRO"));
+
+        assertThat(revogacaoTokenService.versaoValida(email, 0)).isFalse();
+        assertThat(revogacaoTokenService.versaoValida(email, 1)).isTrue();
+    }
+
+    @Test
+    void mesmaRoleNaoRevoga() {
+        String email = dados.cliente("Mesma role").getUsuario().getEmail();
+
+        // "CLIENTE" e "ROLE_CLIENTE" viram a mesma role no token
+        transactionTemplate.executeWithoutResult(status ->
+                usuarioRepository.findByEmail(email).orElseThrow().setRole("CLIENTE"));
+
+        Usuario usuario = usuarioRepository.findByEmail(email).orElseThrow();
+        assertThat(usuario.getTokenVersao()).isZero();
+        assertThat(revogacaoTokenService.versaoValida(email, 0)).isTrue();
+    }
+}
@@ -0,0 +1,47 @@
+package com.barbearia.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pool de BCrypt: uma importação em massa rodando não tira as vagas de login e cadastro,
+ * que continuam sendo atendidos (sem 503) enquanto o lote anda.
+ */
+class SenhaEncoderTest {
+
+    private static final int THREADS = 2;
+    private static final int FILA = 2;
+
+    private final SenhaEncoder encoder = new SenhaEncoder(new SimpleMeterRegistry(), 8, THREADS, FILA,
+            Duration.ofSeconds(1));
+
+    @AfterEach
+    void encerrar() {
+        encoder.encerrar();
+    }
+
+    @Test
+    void importacaoNaoOcupaAsVagasDoLogin() {
+        CompletableFuture<List<String>> importacao = CompletableFuture.supplyAsync(
+                () -> encoder.codificarTodas(Collections.nCopies(100, "segredo")));
+
+        String hash = encoder.encode("segredo");
+        List<Boolean> logins = new ArrayList<>();
+        while (!importacao.isDone()) {
+            logins.add(encoder.matches("segredo", hash)); // 503 sairia como exceção aqui
+        }
+
+        assertThat(logins).isNotEmpty().containsOnly(true);
+        assertThat(importacao.join()).hasSize(100)
+                .allSatisfy(h -> assertThat(encoder.matches("segredo", h)).isTrue());
+    }
+}
@@ -0,0 +1,140 @@
+package com.barbearia.service;
+
+import com.barbearia.DadosTeste;
+import com.barbearia.dto.DTOs.AgendamentoRequest;
+import com.barbearia.exception.BusinessException;
+import com.barbearia.model.Barbeiro;
+import com.barbearia.model.Cliente;
+import com.barbearia.model.Servico;
+import com.barbearia.repository.AgendamentoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Agendamentos simultâneos no mesmo horário: a trava da linha do barbeiro
+ * (BarbeiroRepository.findByIdParaAgendar) deixa passar exatamente um.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AgendamentoConcorrenciaTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired private AgendamentoService agendamentoService;
+    @Autowired private AgendamentoRepository agendamentoRepository;
+    @Autowired private DadosTeste dados;
+
+    @Test
+    void mesmoHorarioEmParaleloGravaSoUmAgendamento() throws Exception {
+
+        Barbeiro barbeiro = dados.barbeiro("Carlos");
+        Servico servico = dados.servico("Corte", 45, 35.0);
+        LocalDateTime inicio = LocalDate.now().plusDays(5).atTime(10, 0);
+
+        List<Cliente> clientes = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) clientes.add(dados.cliente("Cliente " + i));
+
+        // cada thread tenta um início entre 10:00 e 10:30: todos se sobrepõem (45 min)
+        Resultado resultado = disputar(THREADS, i -> requisicao(clientes.get(i), barbeiro, servico,
+                inicio.plusMinutes(2L * i)));
+
+        assertThat(resultado.gravados.get()).isEqualTo(1);
+        assertThat(resultado.conflitos.get()).isEqualTo(THREADS - 1);
+        assertThat(resultado.outrosErros).isEmpty();
+        assertThat(agendadosNoDia(barbeiro, inicio.toLocalDate())).isEqualTo(1);
+    }
+
+    @Test
+    void barbeirosDiferentesNaoSeBloqueiam() throws Exception {
+
+        Servico servico = dados.servico("Barba", 30, 30.0);
+        Cliente cliente = dados.cliente("Cliente");
+        LocalDateTime inicio = LocalDate.now().plusDays(6).atTime(11, 0);
+
+        List<Barbeiro> barbeiros = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) barbeiros.add(dados.barbeiro("Barbeiro " + i));
+
+        Resultado resultado = disputar(THREADS, i -> requisicao(cliente, barbeiros.get(i), servico, inicio));
+
+        assertThat(resultado.gravados.get()).isEqualTo(THREADS);
+        assertThat(resultado.outrosErros).isEmpty();
+    }
+
+    // ==========================
+    // APOIO
+    // ==========================
+
+    private interface Requisicoes {
+        AgendamentoRequest criar(int indice);
+    }
+
+    private static class Resultado {
+        final AtomicInteger gravados = new AtomicInteger();
+        final AtomicInteger conflitos = new AtomicInteger();
+        final List<Throwable> outrosErros = new ArrayList<>();
+    }
+
+    // solta todas as threads juntas e conta quem gravou e quem recebeu conflito
+    private Resultado disputar(int threads, Requisicoes requisicoes) throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        Resultado resultado = new Resultado();
+
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                AgendamentoRequest request = requisicoes.criar(i);
+                tarefas.add(executor.submit(() -> {
+                    largada.await();
+                    try {
+                        agendamentoService.criar(request);
+                        resultado.gravados.incrementAndGet();
+                    } catch (BusinessException e) {
+                        resultado.conflitos.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        synchronized (resultado.outrosErros) {
+                            resultado.outrosErros.add(e);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> tarefa : tarefas) tarefa.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        return resultado;
+    }
+
+    private static AgendamentoRequest requisicao(Cliente cliente, Barbeiro barbeiro, Servico servico,
+                                                 LocalDateTime dataHora) {
+        AgendamentoRequest request = new AgendamentoRequest();
+        request.setClienteId(cliente.getId());
+        request.setBarbeiroId(barbeiro.getId());
+        request.setServicoId(servico.getId());
+        request.setDataHora(dataHora);
+        return request;
+    }
+
+    private long agendadosNoDia(Barbeiro barbeiro, LocalDate dia) {
+        return agendamentoRepository.findAgendadosByBarbeiroAndDia(
+                barbeiro.getId(), dia.atStartOfDay(), dia.plusDays(1).atStartOfDay()).size();
+    }
+}
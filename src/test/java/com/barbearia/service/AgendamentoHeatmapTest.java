@@ -0,0 +1,72 @@
+package com.barbearia.service;
+
+import com.barbearia.DadosTeste;
+import com.barbearia.dto.DTOs.AgendamentoRequest;
+import com.barbearia.dto.DTOs.HeatmapBarbeiro;
+import com.barbearia.dto.DTOs.HeatmapOcupacaoResponse;
+import com.barbearia.model.Barbeiro;
+import com.barbearia.model.Servico;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Heatmap de ocupação: percentual por slot de 30 minutos e barbeiros sem expediente
+ * cadastrado fora da resposta (em vez de NullPointerException).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AgendamentoHeatmapTest {
+
+    @Autowired private AgendamentoService agendamentoService;
+    @Autowired private EntityManager entityManager;
+    @Autowired private DadosTeste dados;
+
+    @Test
+    @Transactional
+    void ocupacaoPorSlotEBarbeiroSemExpedienteIgnorado() {
+
+        Barbeiro comExpediente = dados.barbeiro("Com expediente");
+        Barbeiro semExpediente = dados.barbeiro("Sem expediente");
+        Servico servico = dados.servico("Corte", 45, 35.0);
+
+        LocalDate segunda = LocalDate.now().plusDays(14).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+        AgendamentoRequest request = new AgendamentoRequest();
+        request.setClienteId(dados.cliente("Cliente heatmap").getId());
+        request.setBarbeiroId(comExpediente.getId());
+        request.setServicoId(servico.getId());
+        request.setDataHora(segunda.atTime(10, 0));
+        agendamentoService.criar(request);
+
+        // barbeiro antigo, de antes das colunas de expediente (a coluna hoje é NOT NULL):
+        // só em memória, sem flush, e a transação do teste é desfeita no fim
+        entityManager.flush();
+        entityManager.setFlushMode(FlushModeType.COMMIT);
+        semExpediente.setHoraEntrada(null);
+        semExpediente.setHoraSaida(null);
+
+        HeatmapOcupacaoResponse resp = agendamentoService.getHeatmapOcupacao(segunda, segunda,
+                List.of(comExpediente.getId(), semExpediente.getId()));
+
+        assertThat(resp.getBarbeiros()).extracting(HeatmapBarbeiro::getBarbeiroId)
+                .containsExactly(comExpediente.getId());
+
+        // 10:00-10:45: slot das 10:00 inteiro, metade do slot das 10:30
+        double[] segundaFeira = resp.getBarbeiros().get(0).getOcupacao()[0];
+        assertThat(segundaFeira[20]).isEqualTo(100.0);
+        assertThat(segundaFeira[21]).isEqualTo(50.0);
+        assertThat(segundaFeira[22]).isZero();
+    }
+}
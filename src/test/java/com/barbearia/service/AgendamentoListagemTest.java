@@ -0,0 +1,135 @@
+package com.barbearia.service;
+
+import com.barbearia.DadosTeste;
+import com.barbearia.dto.DTOs.AgendamentoResponse;
+import com.barbearia.model.Agendamento;
+import com.barbearia.model.Agendamento.StatusAgendamento;
+import com.barbearia.model.Barbeiro;
+import com.barbearia.model.Cliente;
+import com.barbearia.model.Servico;
+import com.barbearia.repository.AgendamentoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * As listagens montam AgendamentoResponse por projeção: o número de comandos SQL
+ * não cresce com o número de agendamentos (sem N+1 em cliente/barbeiro/serviço).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AgendamentoListagemTest {
+
+    @Autowired private AgendamentoService agendamentoService;
+    @Autowired private AgendamentoRepository agendamentoRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private DadosTeste dados;
+
+    private Statistics estatisticas;
+
+    @BeforeEach
+    void ligarEstatisticas() {
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.setStatisticsEnabled(true);
+    }
+
+    @Test
+    void listarPorClienteTemComandosFixos() {
+
+        Cenario poucos = cenario(3);
+        Cenario muitos = cenario(40);
+
+        long comandosPoucos = contarComandos(() -> agendamentoService.listarPorCliente(poucos.cliente.getId()), 3);
+        long comandosMuitos = contarComandos(() -> agendamentoService.listarPorCliente(muitos.cliente.getId()), 40);
+
+        assertThat(comandosMuitos).isEqualTo(comandosPoucos).isEqualTo(1);
+    }
+
+    @Test
+    void listarPorBarbeiroTemComandosFixos() {
+
+        Cenario poucos = cenario(3);
+        Cenario muitos = cenario(40);
+
+        long comandosPoucos = contarComandos(() -> agendamentoService.listarPorBarbeiro(poucos.barbeiro.getId()), 3);
+        long comandosMuitos = contarComandos(() -> agendamentoService.listarPorBarbeiro(muitos.barbeiro.getId()), 40);
+
+        assertThat(comandosMuitos).isEqualTo(comandosPoucos).isEqualTo(1);
+    }
+
+    @Test
+    void paginaTemComandosFixos() {
+
+        Cenario poucos = cenario(3);
+        Cenario muitos = cenario(40);
+
+        long comandosPoucos = contarComandos(() -> agendamentoService
+                .listarPagina(null, poucos.barbeiro.getId(), null, null, null, null, 50).getItens(), 3);
+        long comandosMuitos = contarComandos(() -> agendamentoService
+                .listarPagina(null, muitos.barbeiro.getId(), null, null, null, null, 50).getItens(), 40);
+
+        assertThat(comandosMuitos).isEqualTo(comandosPoucos);
+    }
+
+    @Test
+    void projecaoTrazOsDadosRelacionados() {
+
+        Cenario c = cenario(2);
+        List<AgendamentoResponse> itens = agendamentoService.listarPorCliente(c.cliente.getId());
+
+        assertThat(itens).hasSize(2).allSatisfy(a -> {
+            assertThat(a.getClienteNome()).isEqualTo(c.cliente.getNome());
+            assertThat(a.getBarbeiroNome()).isEqualTo(c.barbeiro.getNome());
+            assertThat(a.getServicoNome()).isEqualTo(c.servico.getNome());
+            assertThat(a.getDataHoraFim()).isEqualTo(a.getDataHora().plusMinutes(30));
+        });
+    }
+
+    // ==========================
+    // APOIO
+    // ==========================
+
+    private record Cenario(Cliente cliente, Barbeiro barbeiro, Servico servico) {}
+
+    // um cliente e um barbeiro novos com "quantidade" agendamentos, um por dia
+    private Cenario cenario(int quantidade) {
+
+        Cliente cliente = dados.cliente("Cliente");
+        Barbeiro barbeiro = dados.barbeiro("Barbeiro");
+        Servico servico = dados.servico("Corte", 30, 25.0);
+
+        LocalDateTime inicio = LocalDate.now().plusDays(10).atTime(10, 0);
+        List<Agendamento> agendamentos = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            Agendamento a = new Agendamento();
+            a.setCliente(cliente);
+            a.setBarbeiro(barbeiro);
+            a.setServico(servico);
+            a.setDataHora(inicio.plusDays(i));
+            a.setDataHoraFim(inicio.plusDays(i).plusMinutes(30));
+            a.setStatus(StatusAgendamento.AGENDADO);
+            agendamentos.add(a);
+        }
+        agendamentoRepository.saveAll(agendamentos);
+        return new Cenario(cliente, barbeiro, servico);
+    }
+
+    private long contarComandos(Supplier<List<?>> listagem, int esperados) {
+        estatisticas.clear();
+        assertThat(listagem.get()).hasSize(esperados);
+        return estatisticas.getPrepareStatementCount();
+    }
+}
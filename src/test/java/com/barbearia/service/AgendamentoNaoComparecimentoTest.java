@@ -0,0 +1,97 @@
+package com.barbearia.service;
+
+import com.barbearia.DadosTeste;
+import com.barbearia.dto.DTOs.AgendamentoRequest;
+import com.barbearia.dto.DTOs.AgendamentoResponse;
+import com.barbearia.dto.DTOs.AgendamentoUpdateRequest;
+import com.barbearia.exception.BusinessException;
+import com.barbearia.model.Agendamento.StatusAgendamento;
+import com.barbearia.model.Barbeiro;
+import com.barbearia.model.Cliente;
+import com.barbearia.model.EventoOutbox.TipoEvento;
+import com.barbearia.model.Servico;
+import com.barbearia.repository.AgendamentoRepository;
+import com.barbearia.repository.EventoOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * NAO_COMPARECEU: a falta não sobrescreve um pagamento que commitou depois de o agendamento
+ * ter sido lido, e voltar para AGENDADO passa pela checagem de conflito, porque o horário
+ * liberado pela falta pode já ter outro cliente.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AgendamentoNaoComparecimentoTest {
+
+    @Autowired private AgendamentoService agendamentoService;
+    @Autowired private AgendamentoRepository agendamentoRepository;
+    @Autowired private EventoOutboxRepository eventoOutboxRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private DadosTeste dados;
+
+    @Test
+    void faltaNaoSobrescrevePagamentoConcorrente() {
+        AgendamentoResponse agendamento = agendar(dados.barbeiro("Barbeiro falta"), 10);
+
+        boolean marcado = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            // a transação já leu o agendamento ainda AGENDADO...
+            agendamentoRepository.findById(agendamento.getId()).orElseThrow();
+
+            // ...quando o pagamento, em outra conexão, o conclui e commita
+            CompletableFuture.runAsync(() -> jdbcTemplate.update(
+                    "update agendamentos set status = 'CONCLUIDO' where id = ?", agendamento.getId())).join();
+
+            return agendamentoService.marcarNaoComparecimento(agendamento.getId(), agendamento.getDataHoraFim());
+        }));
+
+        assertThat(marcado).isFalse();
+        assertThat(agendamentoRepository.findById(agendamento.getId()).orElseThrow().getStatus())
+                .isEqualTo(StatusAgendamento.CONCLUIDO);
+        assertThat(eventoOutboxRepository.findAll())
+                .noneMatch(e -> e.getAgendamentoId().equals(agendamento.getId())
+                        && e.getTipo() == TipoEvento.NAO_COMPARECEU);
+    }
+
+    @Test
+    void voltarParaAgendadoNaoSobrepoeQuemPegouOHorario() {
+        Barbeiro barbeiro = dados.barbeiro("Barbeiro reabrir");
+        AgendamentoResponse faltou = agendar(barbeiro, 14);
+
+        assertThat(agendamentoService.marcarNaoComparecimento(faltou.getId(), faltou.getDataHoraFim())).isTrue();
+
+        // o horário liberado pela falta é ocupado por outro agendamento
+        agendar(barbeiro, 14);
+
+        AgendamentoUpdateRequest reabrir = new AgendamentoUpdateRequest();
+        reabrir.setStatus("AGENDADO");
+        assertThatThrownBy(() -> agendamentoService.atualizar(faltou.getId(), reabrir))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("Já existe um agendamento neste horário");
+        assertThat(agendamentoRepository.findById(faltou.getId()).orElseThrow().getStatus())
+                .isEqualTo(StatusAgendamento.NAO_COMPARECEU);
+    }
+
+    private AgendamentoResponse agendar(Barbeiro barbeiro, int hora) {
+        Cliente cliente = dados.cliente("Cliente falta");
+        Servico servico = dados.servico("Corte falta", 30, 40.0);
+
+        AgendamentoRequest request = new AgendamentoRequest();
+        request.setClienteId(cliente.getId());
+        request.setBarbeiroId(barbeiro.getId());
+        request.setServicoId(servico.getId());
+        request.setDataHora(LocalDate.now().plusDays(2).atTime(hora, 0));
+        return agendamentoService.criar(request);
+    }
+}
@@ -0,0 +1,68 @@
+package com.barbearia.service;
+
+import com.barbearia.model.Agendamento;
+import com.barbearia.repository.AgendamentoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * TTL do índice: conta da carga do banco. Um dia consultado sem parar, e com escritas
+ * locais no meio, ainda é relido depois do ttl e passa a mostrar o agendamento gravado
+ * por outra instância.
+ */
+class DisponibilidadeIndexTest {
+
+    private static final Duration TTL = Duration.ofMillis(200);
+    private static final Long BARBEIRO = 1L;
+    private static final LocalDate DIA = LocalDate.now().plusDays(1);
+
+    private final AgendamentoRepository repository = mock(AgendamentoRepository.class);
+    private final DisponibilidadeIndex index = new DisponibilidadeIndex(repository,
+            mock(DisponibilidadeEventos.class), new SimpleMeterRegistry(), 100, TTL);
+
+    @Test
+    void consultasEEscritasLocaisNaoSeguramODiaAlemDoTtl() throws Exception {
+        // criado antes da carga: o primeiro mock da classe demora mais que o ttl
+        Agendamento remoto = agendamento(99L, DIA.atTime(10, 0), DIA.atTime(10, 30));
+
+        when(repository.findAgendadosByBarbeiroAndDia(eq(BARBEIRO), any(), any())).thenReturn(List.of());
+        assertThat(index.intervalos(BARBEIRO, DIA).sobrepoe(10 * 60, 11 * 60, null)).isFalse();
+
+        // outra instância agenda 10:00-10:30; esta não recebe o evento
+        when(repository.findAgendadosByBarbeiroAndDia(eq(BARBEIRO), any(), any())).thenReturn(List.of(remoto));
+
+        // polling da tela a cada 20 ms, com um agendamento local marcado no meio
+        long limite = System.nanoTime() + TTL.multipliedBy(5).toNanos();
+        boolean apareceu = false;
+        int consultas = 0;
+        while (!apareceu && System.nanoTime() < limite) {
+            if (consultas++ == 3) index.marcar(BARBEIRO, 7L, DIA.atTime(15, 0), DIA.atTime(15, 30));
+            apareceu = index.intervalos(BARBEIRO, DIA).sobrepoe(10 * 60, 11 * 60, null);
+            Thread.sleep(20);
+        }
+
+        assertThat(apareceu).isTrue();
+        verify(repository, atLeast(2)).findAgendadosByBarbeiroAndDia(eq(BARBEIRO), any(), any());
+    }
+
+    private static Agendamento agendamento(Long id, LocalDateTime inicio, LocalDateTime fim) {
+        Agendamento agendamento = mock(Agendamento.class);
+        when(agendamento.getId()).thenReturn(id);
+        when(agendamento.getDataHora()).thenReturn(inicio);
+        when(agendamento.getDataHoraFim()).thenReturn(fim);
+        return agendamento;
+    }
+}
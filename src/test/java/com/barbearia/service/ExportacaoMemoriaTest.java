@@ -0,0 +1,93 @@
+package com.barbearia.service;
+
+import com.barbearia.dto.DTOs.AgendamentoResponse;
+import com.barbearia.model.Agendamento.StatusAgendamento;
+import com.barbearia.repository.AgendamentoRepository;
+import com.barbearia.repository.PagamentoRepository;
+import com.barbearia.service.ExportacaoService.FormatoExportacao;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Exporta um milhão de linhas sintéticas com heap pequeno.
+ *
+ * Roda na execução "exportacao-memoria" do surefire, numa JVM separada com -Xmx64m
+ * (ver pom.xml): se a exportação juntasse as linhas numa lista antes de escrever
+ * (~1M AgendamentoResponse), o teste terminaria em OutOfMemoryError.
+ */
+class ExportacaoMemoriaTest {
+
+    private static final long LINHAS = 1_000_000L;
+
+    @Test
+    void ndjsonDeUmMilhaoDeLinhasComHeapPequeno() throws Exception {
+        ContadorDeBytes saida = exportar(FormatoExportacao.NDJSON);
+
+        assertThat(saida.linhas).isEqualTo(LINHAS);
+    }
+
+    @Test
+    void csvDeUmMilhaoDeLinhasComHeapPequeno() throws Exception {
+        ContadorDeBytes saida = exportar(FormatoExportacao.CSV);
+
+        assertThat(saida.linhas).isEqualTo(LINHAS + 1); // + cabeçalho
+    }
+
+    private static ContadorDeBytes exportar(FormatoExportacao formato) throws Exception {
+
+        AgendamentoRepository agendamentoRepository = mock(AgendamentoRepository.class);
+        when(agendamentoRepository.streamAllResponses()).thenReturn(linhasSinteticas());
+
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        ExportacaoService service = new ExportacaoService(agendamentoRepository, mock(PagamentoRepository.class), objectMapper);
+
+        ContadorDeBytes saida = new ContadorDeBytes();
+        service.exportarAgendamentos(formato, saida);
+
+        assertThat(saida.bytes).isGreaterThan(LINHAS * 50); // o suficiente para não caber em 64 MB como objetos
+        return saida;
+    }
+
+    // gerado sob demanda, como o cursor do banco
+    private static Stream<AgendamentoResponse> linhasSinteticas() {
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 9, 0);
+        return LongStream.rangeClosed(1, LINHAS).mapToObj(i -> new AgendamentoResponse(
+                i,
+                i % 5_000, "Cliente " + (i % 5_000),
+                i % 20, "Barbeiro " + (i % 20),
+                i % 8, "Serviço " + (i % 8),
+                35.0,
+                base.plusMinutes(30 * i), base.plusMinutes(30 * i + 30),
+                StatusAgendamento.CONCLUIDO, (i % 10 == 0) ? "observação, com vírgula" : null));
+    }
+
+    // descarta o que recebe; só conta bytes e quebras de linha
+    private static final class ContadorDeBytes extends OutputStream {
+        long bytes;
+        long linhas;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') linhas++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') linhas++;
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.barbearia.service;
+
+import com.barbearia.dto.DTOs.FalhaImportacao;
+import com.barbearia.dto.DTOs.ProgressoImportacao;
+import com.barbearia.exception.BusinessException;
+import com.barbearia.repository.ClienteRepository;
+import com.barbearia.repository.UsuarioRepository;
+import com.barbearia.service.ImportacaoService.FormatoImportacao;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Importação de clientes: linhas sem senha são recusadas (não há senha padrão), as senhas
+ * informadas são gravadas com hash e o CSV aceita campos entre aspas com quebra de linha.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ImportacaoServiceTest {
+
+    @Autowired private ImportacaoService importacaoService;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private ClienteRepository clienteRepository;
+    @Autowired private PasswordEncoder passwordEncoder;
+
+    @Test
+    void clienteSemSenhaERecusado() throws Exception {
+        String prefixo = "imp" + System.nanoTime();
+        String csv = """
+                nome,email,telefone,senha
+                Com senha,%1$s-a@teste.com,11999990000,segredo1
+                Sem senha,%1$s-b@teste.com,,
+                "Nome, com ""aspas""
+                e quebra",%1$s-c@teste.com,,segredo2
+                Repetido,%1$s-a@teste.com,,segredo3
+                """.formatted(prefixo);
+
+        ProgressoImportacao resumo = importar(FormatoImportacao.CSV, csv);
+
+        assertThat(resumo.getImportados()).isEqualTo(2L);
+        assertThat(resumo.getFalhas()).isEqualTo(2L);
+        assertThat(resumo.getFalhasDetalhe()).extracting(FalhaImportacao::getMotivo)
+                .contains("senha é obrigatória.");
+
+        assertThat(usuarioRepository.findByEmail(prefixo + "-b@teste.com")).isEmpty();
+
+        String hash = usuarioRepository.findByEmail(prefixo + "-a@teste.com").orElseThrow().getSenha();
+        assertThat(hash).isNotEqualTo("segredo1");
+        assertThat(passwordEncoder.matches("segredo1", hash)).isTrue();
+
+        assertThat(clienteRepository.findByEmail(prefixo + "-c@teste.com").orElseThrow().getNome())
+                .isEqualTo("Nome, com \"aspas\"\ne quebra");
+    }
+
+    @Test
+    void ndjsonSemSenhaTambemERecusado() throws Exception {
+        String prefixo = "imp" + System.nanoTime();
+        String ndjson = """
+                {"nome":"Json","email":"%1$s-a@teste.com","senha":"segredo"}
+                {"nome":"Json sem senha","email":"%1$s-b@teste.com","senha":null}
+                """.formatted(prefixo);
+
+        ProgressoImportacao resumo = importar(FormatoImportacao.NDJSON, ndjson);
+
+        assertThat(resumo.getImportados()).isEqualTo(1L);
+        assertThat(resumo.getFalhasDetalhe()).singleElement()
+                .satisfies(f -> assertThat(f.getLinha()).isEqualTo(2L));
+    }
+
+    @Test
+    void formatoDeImportacao() {
+        assertThat(FormatoImportacao.de(null)).isEqualTo(FormatoImportacao.NDJSON);
+        assertThat(FormatoImportacao.de(" csv ")).isEqualTo(FormatoImportacao.CSV);
+        assertThatThrownBy(() -> FormatoImportacao.de("xlsx")).isInstanceOf(BusinessException.class);
+    }
+
+    private ProgressoImportacao importar(FormatoImportacao formato, String corpo) throws Exception {
+        return importacaoService.importarClientes(formato,
+                new ByteArrayInputStream(corpo.getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream());
+    }
+}
@@ -0,0 +1,188 @@
+package com.barbearia.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Propriedades do IntervalosOcupados contra uma referência por força bruta (um boolean por
+ * minuto do dia), com dias gerados aleatoriamente, e comparação com a varredura linear
+ * que o validarConflito fazia antes.
+ */
+class IntervalosOcupadosTest {
+
+    private static final int MINUTOS = IntervalosOcupados.MINUTOS_DIA;
+    private static final int DIAS_ALEATORIOS = 3_000;
+    private static final int CONSULTAS_POR_DIA = 50;
+
+    @Test
+    void mesmasRespostasQueAForcaBruta() {
+        Random aleatorio = new Random(42);
+
+        for (int dia = 0; dia < DIAS_ALEATORIOS; dia++) {
+            Dia d = Dia.aleatorio(aleatorio, aleatorio.nextInt(12));
+
+            // montado de uma vez e montado incluindo um a um têm que dar o mesmo
+            IntervalosOcupados deUmaVez = IntervalosOcupados.de(d.inicios, d.fins, d.ids);
+            IntervalosOcupados incremental = IntervalosOcupados.VAZIO;
+            for (int i = 0; i < d.n(); i++) incremental = incremental.com(d.ids[i], d.inicios[i], d.fins[i]);
+
+            for (int q = 0; q < CONSULTAS_POR_DIA; q++) {
+                int inicio = aleatorio.nextInt(MINUTOS);
+                int fim = Math.min(inicio + 1 + aleatorio.nextInt(100), MINUTOS);
+                long ignorado = d.n() > 0 ? 1 + aleatorio.nextInt(d.n()) : 99;
+
+                assertThat(deUmaVez.sobrepoe(inicio, fim)).isEqualTo(d.sobrepoe(inicio, fim, -1));
+                assertThat(incremental.sobrepoe(inicio, fim)).isEqualTo(d.sobrepoe(inicio, fim, -1));
+                assertThat(deUmaVez.sobrepoe(inicio, fim, ignorado)).isEqualTo(d.sobrepoe(inicio, fim, ignorado));
+            }
+
+            int entrada = aleatorio.nextInt(600);
+            int saida = entrada + aleatorio.nextInt(840);
+            int duracao = 5 + aleatorio.nextInt(90);
+            int passo = 5 + aleatorio.nextInt(60);
+            int aPartirDe = aleatorio.nextInt(MINUTOS);
+
+            assertThat(deUmaVez.iniciosLivres(entrada, saida, duracao, passo, aPartirDe, Integer.MAX_VALUE))
+                    .isEqualTo(d.iniciosLivres(entrada, saida, duracao, passo, aPartirDe));
+            assertThat(deUmaVez.blocosOcupados(entrada, saida, passo))
+                    .isEqualTo(d.blocosOcupados(entrada, saida, passo));
+        }
+    }
+
+    @Test
+    void servicoDe45MinutosOcupaSoOQueUsa() {
+        // 10:00-10:45: com blocos de 30 min, 10:00 e 10:30 aparecem ocupados; 11:00 não
+        IntervalosOcupados dia = IntervalosOcupados.de(new int[]{600}, new int[]{645}, new long[]{1});
+
+        assertThat(dia.blocosOcupados(540, 720, 30)).containsExactly(600, 630);
+        assertThat(dia.sobrepoe(645, 690)).isFalse();
+        assertThat(dia.sobrepoe(644, 690)).isTrue();
+
+        // de 15 em 15 minutos, o próximo início de 45 min depois das 10:00 é 10:45
+        assertThat(dia.iniciosLivres(540, 720, 45, 15, 600, 1)).containsExactly(645);
+    }
+
+    @Test
+    void buscaBinariaMaisRapidaQueVarreduraLinear() {
+        Random aleatorio = new Random(7);
+
+        // 1000 intervalos curtos de manhã e consultas à tarde: horário livre, o pior caso
+        // da varredura linear (percorre o dia inteiro sem achar conflito)
+        int n = 1_000;
+        int[] inicios = new int[n];
+        int[] fins = new int[n];
+        long[] ids = new long[n];
+        for (int i = 0; i < n; i++) {
+            inicios[i] = aleatorio.nextInt(700);
+            fins[i] = inicios[i] + 1;
+            ids[i] = i + 1;
+        }
+        IntervalosOcupados dia = IntervalosOcupados.de(inicios, fins, ids);
+
+        int consultas = 200_000;
+        int[] q = new int[consultas];
+        for (int i = 0; i < consultas; i++) q[i] = 700 + aleatorio.nextInt(MINUTOS - 700 - 45);
+
+        // aquecimento do JIT nas duas versões
+        long conferencia = 0;
+        for (int r = 0; r < 3; r++) {
+            conferencia += linear(inicios, fins, q) + indice(dia, q);
+        }
+
+        long t0 = System.nanoTime();
+        long respostasLinear = linear(inicios, fins, q);
+        long tempoLinear = System.nanoTime() - t0;
+
+        t0 = System.nanoTime();
+        long respostasIndice = indice(dia, q);
+        long tempoIndice = System.nanoTime() - t0;
+
+        System.out.printf("sobreposição, %d consultas em %d intervalos: linear %d ms, índice %d ms (%d)%n",
+                consultas, n, tempoLinear / 1_000_000, tempoIndice / 1_000_000, conferencia);
+
+        assertThat(respostasIndice).isEqualTo(respostasLinear);
+        assertThat(tempoIndice).isLessThan(tempoLinear);
+    }
+
+    // como o validarConflito fazia: anyMatch sobre todos os agendamentos do dia
+    private static long linear(int[] inicios, int[] fins, int[] consultas) {
+        long conflitos = 0;
+        for (int inicio : consultas) {
+            int fim = inicio + 45;
+            for (int i = 0; i < inicios.length; i++) {
+                if (inicios[i] < fim && fins[i] > inicio) {
+                    conflitos++;
+                    break;
+                }
+            }
+        }
+        return conflitos;
+    }
+
+    private static long indice(IntervalosOcupados dia, int[] consultas) {
+        long conflitos = 0;
+        for (int inicio : consultas) {
+            if (dia.sobrepoe(inicio, inicio + 45)) conflitos++;
+        }
+        return conflitos;
+    }
+
+    // dia de referência: arrays paralelos + um boolean por minuto
+    private record Dia(int[] inicios, int[] fins, long[] ids, boolean[] ocupado) {
+
+        static Dia aleatorio(Random aleatorio, int n) {
+            int[] inicios = new int[n];
+            int[] fins = new int[n];
+            long[] ids = new long[n];
+            boolean[] ocupado = new boolean[MINUTOS];
+
+            for (int i = 0; i < n; i++) {
+                inicios[i] = aleatorio.nextInt(1400);
+                // às vezes vazio ou invertido (fim <= início): tem que ser ignorado
+                fins[i] = Math.min(inicios[i] + aleatorio.nextInt(120) - 5, MINUTOS);
+                ids[i] = i + 1;
+                for (int m = inicios[i]; m < fins[i]; m++) ocupado[m] = true;
+            }
+            return new Dia(inicios, fins, ids, ocupado);
+        }
+
+        int n() {
+            return inicios.length;
+        }
+
+        boolean sobrepoe(int inicio, int fim, long ignorado) {
+            for (int i = 0; i < n(); i++) {
+                if (ids[i] != ignorado && fins[i] > inicios[i] && inicios[i] < fim && fins[i] > inicio) return true;
+            }
+            return false;
+        }
+
+        List<Integer> iniciosLivres(int entrada, int saida, int duracao, int passo, int aPartirDe) {
+            List<Integer> livres = new ArrayList<>();
+            for (int t = entrada; t + duracao <= saida; t += passo) {
+                if (t >= aPartirDe && !algumOcupado(t, t + duracao)) livres.add(t);
+            }
+            return livres;
+        }
+
+        List<Integer> blocosOcupados(int entrada, int saida, int granularidade) {
+            List<Integer> blocos = new ArrayList<>();
+            for (int t = entrada; t < saida; t += granularidade) {
+                if (algumOcupado(t, Math.min(t + granularidade, saida))) blocos.add(t);
+            }
+            return blocos;
+        }
+
+        private boolean algumOcupado(int inicio, int fim) {
+            for (int m = inicio; m < fim; m++) {
+                if (ocupado[m]) return true;
+            }
+            return false;
+        }
+    }
+}
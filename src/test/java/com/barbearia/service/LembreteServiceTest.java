@@ -0,0 +1,131 @@
+package com.barbearia.service;
+
+import com.barbearia.DadosTeste;
+import com.barbearia.model.Agendamento;
+import com.barbearia.model.Agendamento.StatusAgendamento;
+import com.barbearia.model.Barbeiro;
+import com.barbearia.model.Cliente;
+import com.barbearia.model.EventoOutbox.TipoEvento;
+import com.barbearia.model.Servico;
+import com.barbearia.repository.AgendamentoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lembretes e faltas com a roda temporal ligada (tick de 50 ms, tolerância de falta 1 s):
+ * cada lembrete sai uma vez, o já reservado no banco não sai de novo (nem depois de
+ * recarregar), o remarcado perde o alarme antigo e o AGENDADO vencido vira NAO_COMPARECEU.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lembretes;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "app.lembretes.habilitado=true",
+        "app.lembretes.tick=50ms",
+        "app.lembretes.tolerancia-falta=1s",
+        "app.lembretes.recarga=1h"
+})
+@ActiveProfiles("test")
+class LembreteServiceTest {
+
+    static class CaixaDeSaida implements EnviadorLembretes {
+
+        final List<Lembrete> enviados = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void enviar(Lembrete lembrete) {
+            enviados.add(lembrete);
+        }
+    }
+
+    @TestConfiguration
+    static class Configuracao {
+
+        @Bean
+        @Primary
+        CaixaDeSaida caixaDeSaida() {
+            return new CaixaDeSaida();
+        }
+    }
+
+    @Autowired private CaixaDeSaida caixa;
+    @Autowired private LembreteService lembreteService;
+    @Autowired private AgendamentoRepository agendamentoRepository;
+    @Autowired private DadosTeste dados;
+
+    @Test
+    void lembretesSaemUmaVezEFaltasSaoMarcadas() throws Exception {
+        Cliente cliente = dados.cliente("Ana");
+        Barbeiro barbeiro = dados.barbeiro("Beto", LocalTime.of(0, 0), LocalTime.of(23, 59));
+        Servico servico = dados.servico("Degradê", 45, 35.0);
+
+        LocalDateTime agora = LocalDateTime.now().withNano(0);
+        Agendamento umaHora = salvar(cliente, barbeiro, servico, agora.plusHours(1).plusSeconds(2), null);
+        Agendamento falta = salvar(cliente, barbeiro, servico, agora.minusHours(2), null);
+        Agendamento jaEnviado = salvar(cliente, barbeiro, servico, agora.plusHours(1).plusSeconds(2), agora);
+        Agendamento umDia = salvar(cliente, barbeiro, servico, agora.plusHours(24).plusSeconds(2), null);
+        Agendamento remarcado = salvar(cliente, barbeiro, servico, agora.plusHours(1).plusSeconds(3), null);
+
+        // evento repetido não duplica o alarme
+        lembreteService.processar(List.of(evento(umaHora), evento(falta), evento(jaEnviado),
+                evento(umDia), evento(remarcado), evento(umaHora)));
+
+        remarcado.setDataHora(agora.plusDays(3));
+        remarcado.setDataHoraFim(agora.plusDays(3).plusMinutes(45));
+        agendamentoRepository.save(remarcado);
+        lembreteService.processar(List.of(evento(remarcado)));
+
+        Thread.sleep(4_500);
+
+        assertThat(caixa.enviados).hasSize(2);
+        assertThat(caixa.enviados).anySatisfy(l -> {
+            assertThat(l.agendamentoId()).isEqualTo(umaHora.getId());
+            assertThat(l.tipo()).isEqualTo(Lembrete.Tipo.LEMBRETE_1H);
+            assertThat(l.clienteNome()).isEqualTo("Ana");
+            assertThat(l.servicoNome()).isEqualTo(servico.getNome());
+        });
+        assertThat(caixa.enviados).anySatisfy(l -> {
+            assertThat(l.agendamentoId()).isEqualTo(umDia.getId());
+            assertThat(l.tipo()).isEqualTo(Lembrete.Tipo.LEMBRETE_24H);
+        });
+        assertThat(agendamentoRepository.findById(falta.getId()).orElseThrow().getStatus())
+                .isEqualTo(StatusAgendamento.NAO_COMPARECEU);
+        assertThat(agendamentoRepository.findById(umaHora.getId()).orElseThrow().getLembrete1hEnviadoEm())
+                .isNotNull();
+
+        // como num reinício: os alarmes voltam, mas a reserva no banco impede o reenvio
+        lembreteService.processar(List.of(evento(umaHora), evento(umDia)));
+        lembreteService.carregar();
+        Thread.sleep(500);
+
+        assertThat(caixa.enviados).hasSize(2);
+    }
+
+    private Agendamento salvar(Cliente cliente, Barbeiro barbeiro, Servico servico,
+                               LocalDateTime inicio, LocalDateTime lembrete1hEnviadoEm) {
+        Agendamento agendamento = new Agendamento();
+        agendamento.setCliente(cliente);
+        agendamento.setBarbeiro(barbeiro);
+        agendamento.setServico(servico);
+        agendamento.setDataHora(inicio);
+        agendamento.setDataHoraFim(inicio.plusMinutes(45));
+        agendamento.setStatus(StatusAgendamento.AGENDADO);
+        agendamento.setLembrete1hEnviadoEm(lembrete1hEnviadoEm);
+        return agendamentoRepository.save(agendamento);
+    }
+
+    private static EventoAgendamento evento(Agendamento a) {
+        return new EventoAgendamento(1L, TipoEvento.CRIADO, a.getId(), 1L, 1L,
+                a.getDataHora(), a.getDataHoraFim(), null, LocalDateTime.now());
+    }
+}
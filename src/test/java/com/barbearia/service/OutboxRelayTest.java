@@ -0,0 +1,110 @@
+package com.barbearia.service;
+
+import com.barbearia.DadosTeste;
+import com.barbearia.dto.DTOs.AgendamentoRequest;
+import com.barbearia.dto.DTOs.AgendamentoResponse;
+import com.barbearia.dto.DTOs.AgendamentoUpdateRequest;
+import com.barbearia.model.Barbeiro;
+import com.barbearia.model.Cliente;
+import com.barbearia.model.EventoOutbox;
+import com.barbearia.model.EventoOutbox.StatusEvento;
+import com.barbearia.model.EventoOutbox.TipoEvento;
+import com.barbearia.model.Servico;
+import com.barbearia.repository.EventoOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Outbox: os eventos gravados junto com criar/remarcar/cancelar chegam ao ouvinte em
+ * ordem, com o horário anterior na remarcação. Um evento cujo ouvinte sempre falha vai
+ * para FALHOU depois de max-tentativas, sem segurar os demais.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "app.outbox.espera-base=200ms",
+        "app.outbox.max-tentativas=2"
+})
+@ActiveProfiles("test")
+class OutboxRelayTest {
+
+    static class Coletor implements OuvinteEventosAgendamento {
+
+        final List<EventoAgendamento> recebidos = new CopyOnWriteArrayList<>();
+        final Set<LocalDateTime> falhar = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void processar(List<EventoAgendamento> lote) {
+            for (EventoAgendamento evento : lote) {
+                if (falhar.contains(evento.dataHora())) throw new IllegalStateException("falha " + evento.id());
+            }
+            recebidos.addAll(lote);
+        }
+    }
+
+    @TestConfiguration
+    static class Configuracao {
+
+        @Bean
+        Coletor coletor() {
+            return new Coletor();
+        }
+    }
+
+    @Autowired private Coletor coletor;
+    @Autowired private AgendamentoService agendamentoService;
+    @Autowired private EventoOutboxRepository outboxRepository;
+    @Autowired private DadosTeste dados;
+
+    @Test
+    void eventosChegamEmOrdemEFalhaNaoSeguraOsDemais() throws Exception {
+        Cliente cliente = dados.cliente("Cliente outbox");
+        Barbeiro barbeiro = dados.barbeiro("Barbeiro outbox");
+        Servico servico = dados.servico("Corte outbox", 45, 35.0);
+        LocalDate dia = LocalDate.now().plusDays(3);
+
+        AgendamentoRequest request = new AgendamentoRequest();
+        request.setClienteId(cliente.getId());
+        request.setBarbeiroId(barbeiro.getId());
+        request.setServicoId(servico.getId());
+
+        request.setDataHora(dia.atTime(10, 0));
+        AgendamentoResponse remarcado = agendamentoService.criar(request);
+        request.setDataHora(dia.atTime(12, 0));
+        AgendamentoResponse cancelado = agendamentoService.criar(request);
+        coletor.falhar.add(dia.atTime(14, 0)); // antes de criar: o relay pode pegar o evento logo no commit
+        request.setDataHora(dia.atTime(14, 0));
+        AgendamentoResponse comFalha = agendamentoService.criar(request);
+
+        AgendamentoUpdateRequest update = new AgendamentoUpdateRequest();
+        update.setDataHora(dia.atTime(15, 0));
+        agendamentoService.atualizar(remarcado.getId(), update);
+        agendamentoService.cancelar(cancelado.getId());
+
+        Thread.sleep(2_500);
+
+        assertThat(coletor.recebidos).extracting(EventoAgendamento::tipo)
+                .containsExactly(TipoEvento.CRIADO, TipoEvento.CRIADO, TipoEvento.REMARCADO, TipoEvento.CANCELADO);
+        assertThat(coletor.recebidos.get(2).dataHoraAnterior()).isEqualTo(dia.atTime(10, 0));
+
+        List<EventoOutbox> eventos = outboxRepository.findAll();
+        assertThat(eventos).filteredOn(e -> e.getStatus() == StatusEvento.PUBLICADO).hasSize(4);
+        assertThat(eventos).filteredOn(e -> e.getStatus() == StatusEvento.FALHOU).singleElement()
+                .satisfies(e -> {
+                    assertThat(e.getAgendamentoId()).isEqualTo(comFalha.getId());
+                    assertThat(e.getTentativas()).isEqualTo(2);
+                });
+    }
+}
@@ -0,0 +1,103 @@
+package com.barbearia.service;
+
+import com.barbearia.DadosTeste;
+import com.barbearia.dto.DTOs.AgendamentoRequest;
+import com.barbearia.dto.DTOs.PagamentoRequest;
+import com.barbearia.model.Pagamento.FormaPagamento;
+import com.barbearia.model.Servico;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pagamentos simultâneos que criam a mesma linha do consolidado diário:
+ * nenhum falha com violação de PK e a linha soma todos eles.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PagamentoConcorrenciaTest {
+
+    private static final int THREADS = 16;
+    private static final FormaPagamento FORMA = FormaPagamento.CARTAO_DEBITO;
+
+    @Autowired private PagamentoService pagamentoService;
+    @Autowired private AgendamentoService agendamentoService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private DadosTeste dados;
+
+    @Test
+    void primeirosPagamentosDoDiaEmParaleloSomamNaMesmaLinha() throws Exception {
+
+        Servico servico = dados.servico("Corte", 30, 40.0);
+        LocalDateTime inicio = LocalDate.now().plusDays(7).atTime(14, 0);
+
+        List<Long> agendamentos = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            AgendamentoRequest request = new AgendamentoRequest();
+            request.setClienteId(dados.cliente("Pagante " + i).getId());
+            request.setBarbeiroId(dados.barbeiro("Barbeiro " + i).getId());
+            request.setServicoId(servico.getId());
+            request.setDataHora(inicio);
+            agendamentos.add(agendamentoService.criar(request).getId());
+        }
+
+        // todos disputam a criação da linha (hoje, CARTAO_DEBITO)
+        LocalDate hoje = LocalDate.now();
+        jdbcTemplate.update("delete from pagamentos_diarios where data = ? and forma_pagamento = ?",
+                hoje, FORMA.name());
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Throwable> erros = new ArrayList<>();
+
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (Long agendamentoId : agendamentos) {
+                PagamentoRequest request = new PagamentoRequest();
+                request.setAgendamentoId(agendamentoId);
+                request.setValor(40.0);
+                request.setFormaPagamento(FORMA.name());
+
+                tarefas.add(executor.submit(() -> {
+                    largada.await();
+                    try {
+                        pagamentoService.pagar(request);
+                    } catch (RuntimeException e) {
+                        synchronized (erros) {
+                            erros.add(e);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> tarefa : tarefas) tarefa.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(erros).isEmpty();
+
+        Map<String, Object> linha = jdbcTemplate.queryForMap(
+                "select total, quantidade from pagamentos_diarios where data = ? and forma_pagamento = ?",
+                hoje, FORMA.name());
+        assertThat(((Number) linha.get("quantidade")).longValue()).isEqualTo(THREADS);
+        assertThat((BigDecimal) linha.get("total")).isEqualByComparingTo(BigDecimal.valueOf(40.0 * THREADS));
+    }
+}
@@ -0,0 +1,85 @@
+package com.barbearia.service;
+
+import com.barbearia.DadosTeste;
+import com.barbearia.dto.DTOs.HorarioDisponivel;
+import com.barbearia.dto.DTOs.ProximosHorariosResponse;
+import com.barbearia.model.Barbeiro;
+import com.barbearia.model.Servico;
+import com.barbearia.repository.BarbeiroRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Próximos horários de um serviço: os dias que faltam no índice são carregados numa
+ * consulta por dia para todos os barbeiros, e não uma por barbeiro dentro do parallelStream.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ProximosHorariosTest {
+
+    private static final int LIMITE = 5;
+
+    @Autowired private AgendamentoService agendamentoService;
+    @Autowired private BarbeiroRepository barbeiroRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private DadosTeste dados;
+
+    @Test
+    void consultasNaoCrescemComONumeroDeBarbeiros() {
+
+        Servico poucos = servicoCom(3);
+        Servico muitos = servicoCom(24);
+
+        // índice frio para os barbeiros novos nos dois casos
+        long comandosPoucos = comandos(() -> agendamentoService.buscarProximosHorarios(poucos.getId(), LIMITE));
+        long comandosMuitos = comandos(() -> agendamentoService.buscarProximosHorarios(muitos.getId(), LIMITE));
+
+        assertThat(comandosMuitos).isEqualTo(comandosPoucos);
+    }
+
+    @Test
+    void horariosOrdenadosEDoServicoPedido() {
+
+        Servico servico = servicoCom(4);
+        ProximosHorariosResponse resp = agendamentoService.buscarProximosHorarios(servico.getId(), LIMITE);
+
+        assertThat(resp.getHorarios()).hasSize(LIMITE);
+        assertThat(resp.getHorarios()).isSortedAccordingTo(Comparator
+                .comparing(HorarioDisponivel::getInicio)
+                .thenComparing(HorarioDisponivel::getBarbeiroId));
+        assertThat(resp.getHorarios()).allSatisfy(h ->
+                assertThat(h.getFim()).isEqualTo(h.getInicio().plusMinutes(servico.getDuracaoMinutos())));
+    }
+
+    private Servico servicoCom(int barbeiros) {
+        Servico servico = dados.servico("Próximos", 30, 30.0);
+
+        List<Barbeiro> salvos = new ArrayList<>();
+        for (int i = 0; i < barbeiros; i++) {
+            Barbeiro b = dados.barbeiro("Barbeiro " + i);
+            b.setServicos(new ArrayList<>(List.of(servico)));
+            salvos.add(b);
+        }
+        barbeiroRepository.saveAll(salvos);
+        return servico;
+    }
+
+    private long comandos(Runnable acao) {
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.setStatisticsEnabled(true);
+        estatisticas.clear();
+        acao.run();
+        return estatisticas.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,63 @@
+package com.barbearia.service;
+
+import com.barbearia.DadosTeste;
+import com.barbearia.dto.DTOs.AgendamentoRequest;
+import com.barbearia.dto.DTOs.IndicadoresAnaliticos;
+import com.barbearia.dto.DTOs.RelatorioAnaliticoResponse;
+import com.barbearia.model.Barbeiro;
+import com.barbearia.model.Cliente;
+import com.barbearia.model.Servico;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ocupação do relatório analítico: um barbeiro ativo sem agendamento no período entra
+ * com 0% e o expediente dele conta no total geral.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:analitico;MODE=PostgreSQL;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class RelatorioAnaliticoServiceTest {
+
+    @Autowired private RelatorioAnaliticoService relatorioService;
+    @Autowired private AgendamentoService agendamentoService;
+    @Autowired private DadosTeste dados;
+
+    @Test
+    void barbeiroSemAgendamentoEntraNaOcupacao() {
+        LocalDate dia = LocalDate.now().plusDays(4);
+        Barbeiro ocupado = dados.barbeiro("Barbeiro ocupado", LocalTime.of(9, 0), LocalTime.of(19, 0));
+        Barbeiro livre = dados.barbeiro("Barbeiro livre", LocalTime.of(9, 0), LocalTime.of(19, 0));
+        Cliente cliente = dados.cliente("Cliente analitico");
+        Servico servico = dados.servico("Corte analitico", 60, 50.0);
+
+        AgendamentoRequest request = new AgendamentoRequest();
+        request.setClienteId(cliente.getId());
+        request.setBarbeiroId(ocupado.getId());
+        request.setServicoId(servico.getId());
+        request.setDataHora(dia.atTime(10, 0));
+        agendamentoService.criar(request);
+
+        RelatorioAnaliticoResponse r = relatorioService.gerar(dia, dia);
+
+        assertThat(r.getPorBarbeiro()).filteredOn(i -> i.getId().equals(String.valueOf(ocupado.getId())))
+                .singleElement()
+                .satisfies(i -> assertThat(i.getTaxaOcupacao()).isEqualTo(0.1));
+        assertThat(r.getPorBarbeiro()).filteredOn(i -> i.getId().equals(String.valueOf(livre.getId())))
+                .singleElement()
+                .satisfies(i -> {
+                    assertThat(i.getMinutosDisponiveis()).isEqualTo(600L);
+                    assertThat(i.getTaxaOcupacao()).isZero();
+                });
+
+        long disponiveis = r.getPorBarbeiro().stream().mapToLong(IndicadoresAnaliticos::getMinutosDisponiveis).sum();
+        assertThat(r.getGeral().getMinutosDisponiveis()).isEqualTo(disponiveis).isGreaterThanOrEqualTo(1200L);
+        assertThat(r.getGeral().getMinutosOcupados()).isEqualTo(60L);
+    }
+}
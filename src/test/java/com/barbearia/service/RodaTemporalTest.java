@@ -0,0 +1,70 @@
+package com.barbearia.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Roda temporal hierárquica: alarmes aleatórios em todos os níveis, parte cancelada,
+ * e avanços de tamanho variado. Cada alarme vence uma vez, no tick dele ou no primeiro
+ * avanço depois, e em ordem de vencimento.
+ */
+class RodaTemporalTest {
+
+    private static final long TICK_MS = 10;
+    private static final long INICIO = 1_000_000L;
+
+    @Test
+    void alarmesVencemUmaVezEmOrdem() {
+        RodaTemporal<String> roda = new RodaTemporal<>(TICK_MS, INICIO);
+        Random random = new Random(1);
+
+        Map<String, Long> vencimentos = new HashMap<>();
+        List<RodaTemporal.Entrada<String>> cancelados = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            long vencimento = INICIO + (long) (random.nextDouble() * TICK_MS * 300_000); // até o nível 3
+            RodaTemporal.Entrada<String> entrada = roda.agendar(vencimento, "a" + i);
+            if (i % 7 == 0) cancelados.add(entrada);
+            else vencimentos.put("a" + i, vencimento);
+        }
+        cancelados.forEach(roda::cancelar);
+        cancelados.forEach(roda::cancelar); // cancelar de novo não faz nada
+        assertThat(roda.tamanho()).isEqualTo(vencimentos.size());
+
+        long agora = INICIO;
+        long ultimoTick = -1;
+        int vencidos = 0;
+        while (roda.tamanho() > 0) {
+            int passo = 1 + random.nextInt(5_000);
+            agora += TICK_MS * passo;
+
+            for (String valor : roda.avancar(agora)) {
+                long tick = vencimentos.get(valor) / TICK_MS;
+                assertThat(tick).isLessThanOrEqualTo(agora / TICK_MS);
+                assertThat(tick).isGreaterThan(agora / TICK_MS - passo);
+                assertThat(tick).isGreaterThanOrEqualTo(ultimoTick);
+                ultimoTick = tick;
+                vencidos++;
+            }
+        }
+        assertThat(vencidos).isEqualTo(vencimentos.size());
+    }
+
+    @Test
+    void alarmeAlemDoUltimoNivel() {
+        RodaTemporal<String> roda = new RodaTemporal<>(TICK_MS, INICIO);
+        long longe = INICIO + TICK_MS * (1L << 25);
+
+        roda.agendar(longe, "longe");
+
+        assertThat(roda.avancar(longe - TICK_MS)).isEmpty();
+        assertThat(roda.avancar(longe)).containsExactly("longe");
+        assertThat(roda.tamanho()).isZero();
+    }
+}